@@ -0,0 +1,43 @@
+package com.example.demotelegrambot1.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "bot.admission")
+@Getter
+@Setter
+public class AdmissionConfig {
+
+    boolean enabled = true;
+
+    /**
+     * Commands and navigation a single chat may send, on average and in a burst, before the rest are
+     * dropped. Registration input is not limited.
+     */
+    double chatRatePerSecond = 3;
+
+    double chatBurst = 20;
+
+    /**
+     * A callback repeating the chat's last one on the same message within this window is dropped.
+     */
+    Duration debounce = Duration.ofSeconds(1);
+
+    /**
+     * Load, counted as updates queued for handlers plus outbound calls pending, above which navigation
+     * is dropped, and above which other commands are dropped too. Registration input is never shed.
+     */
+    int shedNavigationAbove = 1000;
+
+    int shedCommandsAbove = 4000;
+
+    /**
+     * Chats the admission table has room for before it grows.
+     */
+    int initialChats = 1024;
+}
@@ -1,10 +1,16 @@
 package com.example.demotelegrambot1.config;
 
+import com.example.demotelegrambot1.enums.BotMode;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashSet;
+import java.util.Set;
+
 @Configuration
+@ConfigurationProperties(prefix = "bot")
 @Getter
 @Setter
 public class BotConfig {
@@ -12,4 +18,14 @@ public class BotConfig {
     String botName = System.getenv("BOT_NAME");
 
     String botToken = System.getenv("BOT_TOKEN");
-}
\ No newline at end of file
+
+    /**
+     * How updates reach the bot: long polling via getUpdates, or Telegram pushing them to our webhook endpoint.
+     */
+    BotMode mode = BotMode.POLLING;
+
+    /**
+     * Chats allowed to use organizer commands such as {@code /export}.
+     */
+    Set<Long> adminChatIds = new HashSet<>();
+}
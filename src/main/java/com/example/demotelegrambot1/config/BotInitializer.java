@@ -1,14 +1,22 @@
 package com.example.demotelegrambot1.config;
 
+import com.example.demotelegrambot1.enums.BotMode;
 import com.example.demotelegrambot1.service.TelegramBotService;
+import com.example.demotelegrambot1.service.intake.UpdateIntake;
+import com.example.demotelegrambot1.service.intake.UpdatePoller;
+import com.example.demotelegrambot1.service.sender.TelegramTransport;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.api.methods.commands.SetMyCommands;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.api.objects.commands.BotCommand;
+import org.telegram.telegrambots.meta.api.objects.commands.scope.BotCommandScopeDefault;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
-import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
+
+import java.util.List;
 
 @Component
 @Slf4j
@@ -17,14 +25,68 @@ public class BotInitializer {
     @Autowired
     TelegramBotService bot;
 
-    @EventListener({ContextRefreshedEvent.class})
-    public void init() throws TelegramApiException {
-        TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
+    @Autowired
+    BotConfig botConfig;
+
+    @Autowired
+    WebhookConfig webhookConfig;
+
+    @Autowired
+    UpdateIntake updateIntake;
+
+    @Autowired
+    UpdatePoller updatePoller;
+
+    @Autowired
+    TelegramTransport transport;
+
+    /**
+     * Starts taking updates once the application is ready. Nothing here blocks startup on a call to
+     * Telegram except registering the webhook, which must be in place before updates arrive.
+     */
+    @EventListener({ApplicationReadyEvent.class})
+    public void init() {
+        registerCommands();
+        // Updates acknowledged before a crash but never checkpointed go first.
+        bot.onUpdatesReplayed(updateIntake.unfinished());
+        if (botConfig.getMode() == BotMode.WEBHOOK) {
+            registerWebhook();
+            return;
+        }
+        updatePoller.start();
+    }
+
+    private void registerCommands() {
+        if (botConfig.getBotToken() == null || botConfig.getBotToken().isBlank()) {
+            return;
+        }
+        List<BotCommand> commands = List.of(
+                new BotCommand("/start", "Start the bot"),
+                new BotCommand("/events", "List current events"),
+                new BotCommand("/help", "Show help message")
+        );
+        transport.send(new SetMyCommands(commands, new BotCommandScopeDefault(), null))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.error("Failed to set bot commands: {}", error.getMessage());
+                    } else {
+                        log.info("Bot commands set successfully.");
+                    }
+                });
+    }
+
+    private void registerWebhook() {
+        SetWebhook setWebhook = SetWebhook.builder()
+                .url(webhookConfig.getPublicUrl() + webhookConfig.getPath())
+                .secretToken(webhookConfig.getSecretToken())
+                .maxConnections(webhookConfig.getMaxConnections())
+                .allowedUpdates(List.of("message", "callback_query"))
+                .build();
         try {
-            telegramBotsApi.registerBot(bot);
-            log.info("Bot has been registered successfully.");
+            bot.execute(setWebhook);
+            log.info("Webhook has been registered at {}.", setWebhook.getUrl());
         } catch (TelegramApiException e) {
-            log.error("Failed to register bot: {}", e.getMessage());
+            log.error("Failed to register webhook: {}", e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
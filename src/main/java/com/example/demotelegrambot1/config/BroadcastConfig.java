@@ -0,0 +1,40 @@
+package com.example.demotelegrambot1.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "bot.broadcast")
+@Getter
+@Setter
+public class BroadcastConfig {
+
+    /**
+     * Messages per second across all running broadcasts. Kept below the sender's global rate so
+     * interactive replies always find free capacity.
+     */
+    double ratePerSecond = 20;
+
+    /**
+     * Recipients read per keyset page.
+     */
+    int pageSize = 100;
+
+    /**
+     * Broadcasts pause while more calls than this are queued in the sender, e.g. during a burst of
+     * interactive traffic.
+     */
+    int maxPendingOutbound = 100;
+
+    Duration tickInterval = Duration.ofMillis(250);
+
+    /**
+     * Resume unfinished broadcasts at startup. Off for databases without the broadcast tables, such as
+     * the in-memory H2 of the test harness.
+     */
+    boolean resumeOnStartup = true;
+}
@@ -0,0 +1,30 @@
+package com.example.demotelegrambot1.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "bot.catalog")
+@Getter
+@Setter
+public class CatalogConfig {
+
+    /**
+     * Fallback reload interval for changes made outside the application, e.g. directly in the database.
+     */
+    Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * Events per page when browsing.
+     */
+    int pageSize = 10;
+
+    /**
+     * Category filter buttons under the event list; further categories are only reachable by search.
+     */
+    int categoryButtons = 6;
+}
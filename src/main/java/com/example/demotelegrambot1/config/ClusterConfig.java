@@ -0,0 +1,48 @@
+package com.example.demotelegrambot1.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "bot.cluster")
+@Getter
+@Setter
+public class ClusterConfig {
+
+    /**
+     * Run as one of several nodes that split chats between them. Requires webhook mode.
+     */
+    boolean enabled;
+
+    String nodeId = System.getenv().getOrDefault("HOSTNAME", "node") + "-" + ProcessHandle.current().pid();
+
+    /**
+     * Base URL other nodes use to forward updates to this one, e.g. {@code http://10.0.0.5:8080}.
+     */
+    String advertisedUrl;
+
+    /**
+     * Shared by all nodes and checked on forwarded updates.
+     */
+    String secret = System.getenv("BOT_CLUSTER_SECRET");
+
+    /**
+     * Number of chat partitions. Must be the same on every node and never changed while nodes are running.
+     */
+    int partitions = 64;
+
+    Duration leaseDuration = Duration.ofSeconds(15);
+
+    Duration renewInterval = Duration.ofSeconds(5);
+
+    Duration forwardTimeout = Duration.ofSeconds(2);
+
+    /**
+     * How long a node waits for in-flight updates of partitions it gives up.
+     */
+    Duration drainTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,25 @@
+package com.example.demotelegrambot1.config;
+
+import com.example.demotelegrambot1.enums.BackpressurePolicy;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "bot.dispatcher")
+@Getter
+@Setter
+public class DispatcherConfig {
+
+    int workerThreads = 16;
+
+    int chatQueueCapacity = 32;
+
+    /**
+     * How many queued updates a worker drains for one chat before yielding to other chats.
+     */
+    int drainBatchSize = 8;
+
+    BackpressurePolicy backpressurePolicy = BackpressurePolicy.REJECT_NEWEST;
+}
@@ -0,0 +1,42 @@
+package com.example.demotelegrambot1.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "bot.intake")
+@Getter
+@Setter
+public class IntakeConfig {
+
+    /**
+     * Journal updates in the database before acknowledging them and replay unfinished ones after a
+     * restart. Off in cluster mode, where updates reach several nodes, and for databases without
+     * the journal tables, such as the in-memory H2 of the test harness.
+     */
+    boolean journal = true;
+
+    /**
+     * Recent update IDs remembered for dropping redeliveries; a power of two.
+     */
+    int dedupWindow = 1 << 16;
+
+    Duration checkpointInterval = Duration.ofSeconds(1);
+
+    /**
+     * Long polling: how long one getUpdates call waits for updates, and how many it takes at most.
+     */
+    Duration pollTimeout = Duration.ofSeconds(50);
+
+    int pollLimit = 100;
+
+    /**
+     * Batches with a message older than this are a backlog, whose superseded navigation is dropped;
+     * 0 handles every update.
+     */
+    Duration catchUpAge = Duration.ofSeconds(30);
+}
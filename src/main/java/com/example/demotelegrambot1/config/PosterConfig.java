@@ -0,0 +1,20 @@
+package com.example.demotelegrambot1.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+@ConfigurationProperties(prefix = "bot.posters")
+@Getter
+@Setter
+public class PosterConfig {
+
+    /**
+     * Directory relative event poster paths are resolved against.
+     */
+    Path directory = Path.of("posters");
+}
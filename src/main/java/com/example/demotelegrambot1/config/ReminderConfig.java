@@ -0,0 +1,57 @@
+package com.example.demotelegrambot1.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "bot.reminders")
+@Getter
+@Setter
+public class ReminderConfig {
+
+    boolean enabled = true;
+
+    /**
+     * How long before an event's start registered teams are reminded.
+     */
+    Duration leadTime = Duration.ofHours(24);
+
+    /**
+     * Resolution of the timing wheel; reminders fire at most one tick late.
+     */
+    Duration tick = Duration.ofSeconds(1);
+
+    /**
+     * Slots per wheel level. With a one second tick, 512 slots cover about 8.5 minutes on the first
+     * level and three days on the second.
+     */
+    int wheelSize = 512;
+
+    /**
+     * Reminders due within this window are loaded into the wheel; later ones stay in the database
+     * until a later load reaches them.
+     */
+    Duration loadHorizon = Duration.ofHours(6);
+
+    Duration loadInterval = Duration.ofMinutes(5);
+
+    /**
+     * Registrations read per keyset page while loading.
+     */
+    int pageSize = 1000;
+
+    /**
+     * Reminders handed to the sender per second. Reminders due at the same moment, such as all
+     * teams of one event, are spread out at this rate so interactive replies keep flowing.
+     */
+    double ratePerSecond = 20;
+
+    /**
+     * Reminders wait while more calls than this are queued in the sender.
+     */
+    int maxPendingOutbound = 100;
+}
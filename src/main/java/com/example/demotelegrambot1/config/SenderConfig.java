@@ -0,0 +1,41 @@
+package com.example.demotelegrambot1.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "bot.sender")
+@Getter
+@Setter
+public class SenderConfig {
+
+    /**
+     * Threads the Telegram HTTP client uses for {@code executeAsync} calls.
+     */
+    int httpThreads = 8;
+
+    /**
+     * Telegram allows roughly 30 messages per second across all chats.
+     */
+    double globalRatePerSecond = 30;
+
+    double globalBurst = 30;
+
+    /**
+     * Telegram asks bots to stay around one message per second in a single chat.
+     */
+    double chatRatePerSecond = 1;
+
+    double chatBurst = 3;
+
+    /**
+     * Merge consecutive queued texts to the same chat into a single message.
+     */
+    boolean mergeTexts = true;
+
+    int maxAttempts = 5;
+
+    long shutdownTimeoutMillis = 5000;
+}
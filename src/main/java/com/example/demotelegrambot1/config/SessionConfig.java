@@ -0,0 +1,29 @@
+package com.example.demotelegrambot1.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "bot.session")
+@Getter
+@Setter
+public class SessionConfig {
+
+    int maxSessions = 10_000;
+
+    Duration idleTimeout = Duration.ofMinutes(30);
+
+    /**
+     * How long dirty sessions may wait before their changes are written to the database.
+     */
+    Duration flushInterval = Duration.ofMillis(500);
+
+    /**
+     * Consecutive failed flushes after which a session's pending changes are dropped.
+     */
+    int maxFlushAttempts = 3;
+}
@@ -0,0 +1,32 @@
+package com.example.demotelegrambot1.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "bot.stats")
+@Getter
+@Setter
+public class StatsConfig {
+
+    /**
+     * Keep the counters in the {@code registration_stats} table. Without it they are counted from
+     * {@code user_event} at every start, e.g. on the in-memory H2 of the test harness.
+     */
+    boolean persist = true;
+
+    /**
+     * How often counter changes are written to the table and changes of other nodes read back.
+     */
+    Duration persistInterval = Duration.ofSeconds(10);
+
+    /**
+     * How often the table is recounted from {@code user_event}, correcting changes made outside the
+     * bot; zero turns it off.
+     */
+    Duration rebuildInterval = Duration.ofHours(6);
+}
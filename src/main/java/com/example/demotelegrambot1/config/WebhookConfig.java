@@ -0,0 +1,27 @@
+package com.example.demotelegrambot1.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "bot.webhook")
+@Getter
+@Setter
+public class WebhookConfig {
+
+    /**
+     * Public HTTPS base URL Telegram posts to, e.g. {@code https://bot.example.com}.
+     */
+    String publicUrl;
+
+    String path = "/telegram/webhook";
+
+    /**
+     * Sent back by Telegram in the {@code X-Telegram-Bot-Api-Secret-Token} header of every request.
+     */
+    String secretToken = System.getenv("BOT_WEBHOOK_SECRET");
+
+    int maxConnections = 40;
+}
@@ -0,0 +1,10 @@
+package com.example.demotelegrambot1.enums;
+
+/**
+ * What a full per-chat lane does with another update. Neither waits: updates are dispatched by the
+ * single intake thread, so waiting for one chat would stall every other chat.
+ */
+public enum BackpressurePolicy {
+    DROP_OLDEST,
+    REJECT_NEWEST,
+}
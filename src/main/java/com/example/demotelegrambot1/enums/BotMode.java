@@ -0,0 +1,6 @@
+package com.example.demotelegrambot1.enums;
+
+public enum BotMode {
+    POLLING,
+    WEBHOOK,
+}
@@ -1,26 +1,77 @@
 package com.example.demotelegrambot1.persistence.entity;
 
+import com.example.demotelegrambot1.persistence.listener.EventChangeListener;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.time.Instant;
 import java.util.List;
 
 @Entity
 @Getter
 @Setter
 @Table(name = "event")
+@EntityListeners(EventChangeListener.class)
 public class Event {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "event_seq")
+    @SequenceGenerator(name = "event_seq", sequenceName = "event_seq", allocationSize = 50)
     private Long id;
 
-    @OneToMany(cascade = CascadeType.PERSIST)
+    @OneToMany(mappedBy = "event")
     private List<UserEvent> userEvents;
 
     private String title;
+    /**
+     * Human-readable date shown to users.
+     */
     private String date;
+
+    /**
+     * Start of the event; reminders are scheduled from it. {@code null} for events without a fixed start.
+     */
+    @Column(name = "starts_at")
+    private Instant startsAt;
+
     private String location;
+
+    /**
+     * Free-form grouping such as "hackathon" or "quiz", offered as a filter when browsing events.
+     */
+    @Column(length = 64)
+    private String category;
     private String description;
 
+    /**
+     * Maximum number of confirmed registrations; {@code null} means unlimited.
+     */
+    private Integer capacity;
+
+    /**
+     * Poster image file, relative to {@code bot.posters.directory} unless absolute; {@code null} for
+     * events without one.
+     */
+    @Column(name = "poster_path", length = 512)
+    private String posterPath;
+
+    /**
+     * Telegram's file_id of the uploaded poster and the fingerprint of the file it was uploaded from.
+     * Maintained by {@link com.example.demotelegrambot1.service.media.PosterStore}, read-only for JPA.
+     */
+    @Column(name = "poster_file_id", insertable = false, updatable = false)
+    private String posterFileId;
+
+    @Column(name = "poster_source", length = 640, insertable = false, updatable = false)
+    private String posterSource;
+
+    /**
+     * Maintained by {@link com.example.demotelegrambot1.service.capacity.SeatAllocator} with conditional
+     * updates, read-only for JPA so saving an event never overwrites it.
+     */
+    @ColumnDefault("0")
+    @Column(name = "seats_taken", nullable = false, insertable = false, updatable = false)
+    private int seatsTaken;
+
 }
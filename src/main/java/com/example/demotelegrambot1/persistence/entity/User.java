@@ -1,8 +1,10 @@
 package com.example.demotelegrambot1.persistence.entity;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.data.domain.Persistable;
 
 import java.sql.Timestamp;
 import java.util.List;
@@ -11,11 +13,11 @@ import java.util.List;
 @Table(name = "`user`")
 @Getter
 @Setter
-public class User {
+public class User implements Persistable<Long> {
     @Id
     private Long chatId;
 
-    @OneToMany(cascade = CascadeType.PERSIST)
+    @OneToMany(mappedBy = "user")
     private List<UserEvent> userEvents;
 
     @OneToOne(cascade = CascadeType.PERSIST)
@@ -30,4 +32,41 @@ public class User {
 
     private Timestamp registeredAt;
 
-}
\ No newline at end of file
+    /**
+     * Latest update whose changes to this user and their registrations are written, for skipping
+     * updates replayed after a crash.
+     */
+    private Integer lastUpdateId;
+
+    /**
+     * The ID is assigned from the chat, so Spring Data cannot tell new users apart by a null ID.
+     * Lets {@code save} persist new users directly instead of merging them with an extra SELECT.
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean persisted = true;
+
+    public static User newUser(long chatId) {
+        User user = new User();
+        user.setChatId(chatId);
+        user.persisted = false;
+        return user;
+    }
+
+    @Override
+    public Long getId() {
+        return chatId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+
+}
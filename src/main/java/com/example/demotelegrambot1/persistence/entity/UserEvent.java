@@ -1,6 +1,7 @@
 package com.example.demotelegrambot1.persistence.entity;
 
 import com.example.demotelegrambot1.enums.RegistrationState;
+import com.example.demotelegrambot1.enums.SeatStatus;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -10,13 +11,18 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "user_event")
+@Table(
+        name = "user_event",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_event_event_user", columnNames = {"event_id", "user_id"}),
+        indexes = @Index(name = "idx_user_event_user", columnList = "user_id")
+)
 @Getter
 @Setter
 public class UserEvent {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_event_seq")
+    @SequenceGenerator(name = "user_event_seq", sequenceName = "user_event_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -30,6 +36,19 @@ public class UserEvent {
     @Column(name = "registration_state", nullable = false)
     private RegistrationState state;
 
+    /**
+     * Set by {@link com.example.demotelegrambot1.service.capacity.SeatAllocator} directly in the database.
+     */
+    @Column(name = "seat_status", insertable = false, updatable = false)
+    private SeatStatus seatStatus;
+
+    /**
+     * Set by {@link com.example.demotelegrambot1.service.reminder.ReminderScheduler} when the reminder
+     * is handed to the sender.
+     */
+    @Column(name = "reminder_sent_at", insertable = false, updatable = false)
+    private Timestamp reminderSentAt;
+
     @Column(name = "registration_date")
     private Timestamp registrationDate;
 
@@ -39,7 +58,10 @@ public class UserEvent {
     @Column(name = "team_name")
     private String teamName;
 
-    @Column(name = "team_members")
+    @ElementCollection
+    @CollectionTable(name = "user_event_member", joinColumns = @JoinColumn(name = "user_event_id"))
+    @OrderColumn(name = "position")
+    @Column(name = "member_name", nullable = false)
     private List<String> teamMembers = new ArrayList<>();
 
 }
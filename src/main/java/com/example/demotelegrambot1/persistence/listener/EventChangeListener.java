@@ -0,0 +1,27 @@
+package com.example.demotelegrambot1.persistence.listener;
+
+import com.example.demotelegrambot1.persistence.entity.Event;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener that turns {@link Event} writes into {@link EventChangedEvent}s.
+ * Instantiated by Hibernate through Spring, so the publisher is injected.
+ */
+public class EventChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public EventChangeListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Event event) {
+        publisher.publishEvent(new EventChangedEvent(event.getId()));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demotelegrambot1.persistence.listener;
+
+/**
+ * Published after an {@code Event} row was inserted, updated or deleted through JPA.
+ */
+public record EventChangedEvent(Long eventId) {
+}
@@ -0,0 +1,22 @@
+package com.example.demotelegrambot1.persistence.projection;
+
+import com.example.demotelegrambot1.enums.SeatStatus;
+
+import java.sql.Timestamp;
+
+/**
+ * One team member of a completed registration, flattened for export. Rows of one registration
+ * arrive consecutively and in member order; a team without members yields one row with a
+ * {@code null} member.
+ */
+public record RegistrationExportRow(
+        Long registrationId,
+        String teamName,
+        String contactPhone,
+        SeatStatus seatStatus,
+        Timestamp registrationDate,
+        Long chatId,
+        String userName,
+        String memberName
+) {
+}
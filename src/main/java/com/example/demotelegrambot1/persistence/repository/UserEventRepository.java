@@ -1,7 +1,37 @@
 package com.example.demotelegrambot1.persistence.repository;
 
 import com.example.demotelegrambot1.persistence.entity.UserEvent;
+import com.example.demotelegrambot1.persistence.projection.RegistrationExportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserEventRepository extends JpaRepository<UserEvent, Long> {
-}
\ No newline at end of file
+
+    Optional<UserEvent> findByUserChatIdAndEventId(Long chatId, Long eventId);
+
+    /**
+     * Streams the completed registrations of an event as unmanaged rows, so memory stays flat however
+     * many teams there are. Must be consumed inside a transaction: the Postgres driver only honours the
+     * fetch size, and so only uses a cursor, with auto-commit off.
+     */
+    @Query("""
+            SELECT new com.example.demotelegrambot1.persistence.projection.RegistrationExportRow(
+                ue.id, ue.teamName, ue.contactPhone, ue.seatStatus, ue.registrationDate, u.chatId, u.userName, m)
+            FROM UserEvent ue
+                JOIN ue.user u
+                LEFT JOIN ue.teamMembers m
+            WHERE ue.event.id = :eventId
+              AND ue.state = com.example.demotelegrambot1.enums.RegistrationState.COMPLETED_REGISTRATION
+            ORDER BY ue.registrationDate, ue.id, INDEX(m)
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<RegistrationExportRow> streamCompletedRegistrations(@Param("eventId") long eventId);
+
+}
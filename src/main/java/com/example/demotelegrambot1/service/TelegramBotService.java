@@ -2,226 +2,535 @@ package com.example.demotelegrambot1.service;
 
 import com.example.demotelegrambot1.config.BotConfig;
 import com.example.demotelegrambot1.enums.RegistrationState;
-import com.example.demotelegrambot1.persistence.entity.Event;
+import com.example.demotelegrambot1.enums.SeatStatus;
 import com.example.demotelegrambot1.persistence.entity.User;
 import com.example.demotelegrambot1.persistence.entity.UserEvent;
 import com.example.demotelegrambot1.persistence.repository.EventRepository;
 import com.example.demotelegrambot1.persistence.repository.UserEventRepository;
 import com.example.demotelegrambot1.persistence.repository.UserRepository;
-import com.vdurmont.emoji.EmojiParser;
+import com.example.demotelegrambot1.service.admission.AdmissionControl;
+import com.example.demotelegrambot1.service.broadcast.BroadcastService;
+import com.example.demotelegrambot1.service.capacity.SeatAllocator;
+import com.example.demotelegrambot1.service.catalog.EventCatalog;
+import com.example.demotelegrambot1.service.catalog.EventQuery;
+import com.example.demotelegrambot1.service.catalog.EventSnapshot;
+import com.example.demotelegrambot1.service.cluster.ChatAffinity;
+import com.example.demotelegrambot1.service.dispatch.UpdateDispatcher;
+import com.example.demotelegrambot1.service.export.ExportFormat;
+import com.example.demotelegrambot1.service.export.RegistrationExport;
+import com.example.demotelegrambot1.service.export.RegistrationExporter;
+import com.example.demotelegrambot1.service.intake.BacklogCoalescer;
+import com.example.demotelegrambot1.service.intake.UpdateIntake;
+import com.example.demotelegrambot1.service.media.PosterStore;
+import com.example.demotelegrambot1.service.metrics.UpdateMetrics;
+import com.example.demotelegrambot1.service.render.EventViewRenderer;
+import com.example.demotelegrambot1.service.render.RenderedView;
+import com.example.demotelegrambot1.service.reminder.ReminderScheduler;
+import com.example.demotelegrambot1.service.routing.CallbackAction;
+import com.example.demotelegrambot1.service.routing.CallbackCodec;
+import com.example.demotelegrambot1.service.routing.CallbackHandler;
+import com.example.demotelegrambot1.service.routing.ChatCommand;
+import com.example.demotelegrambot1.service.routing.MessageHandler;
+import com.example.demotelegrambot1.service.sender.OutboundMessageSender;
+import com.example.demotelegrambot1.service.session.ChatSession;
+import com.example.demotelegrambot1.service.session.SessionStore;
+import com.example.demotelegrambot1.service.stats.RegistrationStats;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
-import org.telegram.telegrambots.meta.api.methods.commands.SetMyCommands;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.DeleteMessage;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
 import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
-import org.telegram.telegrambots.meta.api.objects.commands.BotCommand;
-import org.telegram.telegrambots.meta.api.objects.commands.scope.BotCommandScopeDefault;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboard;
-import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
-import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
-import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardRow;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static com.example.demotelegrambot1.service.render.MessageTemplates.BROADCAST_USAGE;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.DEFAULT_MESSAGE;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.EVENT_FULL_NOTICE;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.EVENT_NOT_FOUND;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.EXPORT_FAILED;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.EXPORT_USAGE;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.HELP_MESSAGE;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.MAIN_MENU;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.REGISTRATION_COMPLETED;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.REGISTRATION_WAITLISTED;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.STATS_REBUILD_STARTED;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.STATS_USAGE;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.broadcastMessage;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.broadcastStarted;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.exportCaption;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.startMessage;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.statsLine;
+import static com.example.demotelegrambot1.service.render.MessageTemplates.statsMessage;
 
 @Service
 @Slf4j
 public class TelegramBotService extends TelegramLongPollingBot {
+    private static final Pattern PHONE_NUMBER = Pattern.compile("^\\+?[0-9]{9,15}$");
+    /** Events listed by a plain {@code /stats}, keeping the reply within Telegram's message size. */
+    private static final int STATS_MAX_EVENTS = 40;
+
     final BotConfig botConfig;
     final UserRepository userRepository;
     final EventRepository eventRepository;
     final UserEventRepository userEventRepository;
-
-    private static final String HELP_MESSAGE = EmojiParser.parseToUnicode(
-            """
-                    Welcome to the Telegram Bot! :robot_face:
-                    
-                    Here are some commands you can use:
-                    /start - Start the bot
-                    /events - List current events
-                    /help - Show this help message
-                    
-                    Feel free to ask me anything! :smiley:
-                    """
-    );
-
-    private static final String DEFAULT_MESSAGE = EmojiParser.parseToUnicode(
-            "Sorry, I didn't understand that command :confused:. Type /help for assistance.");
-
-    public TelegramBotService(BotConfig botConfig, UserRepository userRepository, EventRepository eventRepository, UserEventRepository userEventRepository) {
+    final UpdateDispatcher updateDispatcher;
+    final OutboundMessageSender outboundSender;
+    final EventCatalog eventCatalog;
+    final EventViewRenderer eventViews;
+    final SessionStore sessionStore;
+    final ChatAffinity chatAffinity;
+    final SeatAllocator seatAllocator;
+    final UpdateMetrics updateMetrics;
+    final RegistrationExporter registrationExporter;
+    final BroadcastService broadcastService;
+    final ReminderScheduler reminderScheduler;
+    final UpdateIntake updateIntake;
+    final RegistrationStats registrationStats;
+    final BacklogCoalescer backlogCoalescer;
+    final PosterStore posterStore;
+    final AdmissionControl admissionControl;
+
+    private final Map<ChatCommand, MessageHandler> commandHandlers = new EnumMap<>(ChatCommand.class);
+    private final Map<RegistrationState, MessageHandler> stepHandlers = new EnumMap<>(RegistrationState.class);
+    private final Map<CallbackAction, CallbackHandler> callbackHandlers = new EnumMap<>(CallbackAction.class);
+
+    public TelegramBotService(BotConfig botConfig, UserRepository userRepository, EventRepository eventRepository, UserEventRepository userEventRepository,
+                              UpdateDispatcher updateDispatcher, OutboundMessageSender outboundSender,
+                              EventCatalog eventCatalog, EventViewRenderer eventViews,
+                              SessionStore sessionStore, ChatAffinity chatAffinity,
+                              SeatAllocator seatAllocator, UpdateMetrics updateMetrics,
+                              RegistrationExporter registrationExporter, BroadcastService broadcastService,
+                              ReminderScheduler reminderScheduler, UpdateIntake updateIntake,
+                              RegistrationStats registrationStats, BacklogCoalescer backlogCoalescer,
+                              PosterStore posterStore, AdmissionControl admissionControl) {
         this.botConfig = botConfig;
+        this.updateDispatcher = updateDispatcher;
+        this.outboundSender = outboundSender;
+        this.eventCatalog = eventCatalog;
+        this.eventViews = eventViews;
+        this.sessionStore = sessionStore;
+        this.chatAffinity = chatAffinity;
+        this.seatAllocator = seatAllocator;
+        this.updateMetrics = updateMetrics;
+        this.registrationExporter = registrationExporter;
+        this.broadcastService = broadcastService;
+        this.reminderScheduler = reminderScheduler;
+        this.updateIntake = updateIntake;
+        this.registrationStats = registrationStats;
+        this.backlogCoalescer = backlogCoalescer;
+        this.posterStore = posterStore;
+        this.admissionControl = admissionControl;
         this.userRepository = userRepository;
         this.eventRepository = eventRepository;
-        List<BotCommand> commands = List.of(
-                new BotCommand("/start", "Start the bot"),
-                new BotCommand("/events", "List current events"),
-                new BotCommand("/help", "Show help message")
-        );
-        try {
-            this.execute(new SetMyCommands(commands, new BotCommandScopeDefault(), null));
-            log.info("Bot commands set successfully.");
-        } catch (TelegramApiException e) {
-            log.error("Failed to set bot commands: {}", e.getMessage());
-        }
         this.userEventRepository = userEventRepository;
+
+        commandHandlers.put(ChatCommand.START,
+                (update, chatId, text, session) -> sendStart(chatId, update.getMessage().getChat().getFirstName()));
+        commandHandlers.put(ChatCommand.HELP, (update, chatId, text, session) -> sendMessage(chatId, HELP_MESSAGE));
+        commandHandlers.put(ChatCommand.EVENTS, (update, chatId, text, session) -> sendEvents(chatId, text, session));
+        commandHandlers.put(ChatCommand.EXPORT, (update, chatId, text, session) -> exportRegistrations(chatId, text));
+        commandHandlers.put(ChatCommand.BROADCAST, (update, chatId, text, session) -> startBroadcast(update, chatId, text));
+        commandHandlers.put(ChatCommand.STATS, (update, chatId, text, session) -> sendStats(chatId, text));
+
+        stepHandlers.put(RegistrationState.AWAITING_TEAM_MEMBERS,
+                (update, chatId, text, session) -> handleTeamMembersInput(chatId, text, session));
+        stepHandlers.put(RegistrationState.AWAITING_TEAM_NAME,
+                (update, chatId, text, session) -> handleTeamNameInput(chatId, text, session));
+        stepHandlers.put(RegistrationState.AWAITING_CONTACT_PHONE,
+                (update, chatId, text, session) -> handleContactPhoneInput(chatId, text, session));
+
+        callbackHandlers.put(CallbackAction.SHOW_EVENT, (chatId, eventId, messageId, session) -> editEventDetails(chatId, eventId, messageId));
+        callbackHandlers.put(CallbackAction.REGISTER, this::startRegistration);
+        callbackHandlers.put(CallbackAction.BACK_TO_EVENTS, (chatId, id, messageId, session) ->
+                editToEvents(chatId, messageId, session.getEventQuery(), CallbackCodec.NO_ID, CallbackCodec.NO_ID));
+        callbackHandlers.put(CallbackAction.EVENTS_AFTER, (chatId, eventId, messageId, session) ->
+                editToEvents(chatId, messageId, session.getEventQuery(), eventId, CallbackCodec.NO_ID));
+        callbackHandlers.put(CallbackAction.EVENTS_BEFORE, (chatId, eventId, messageId, session) ->
+                editToEvents(chatId, messageId, session.getEventQuery(), CallbackCodec.NO_ID, eventId));
+        callbackHandlers.put(CallbackAction.FILTER_EVENTS, (chatId, filterId, messageId, session) -> {
+            session.setEventQuery(eventViews.applyFilter(session.getEventQuery(), filterId));
+            editToEvents(chatId, messageId, session.getEventQuery(), CallbackCodec.NO_ID, CallbackCodec.NO_ID);
+        });
+        callbackHandlers.put(CallbackAction.CLOSE_POSTER, (chatId, id, messageId, session) -> {
+            RenderedView eventList = eventViews.eventPage(session.getEventQuery(), CallbackCodec.NO_ID, CallbackCodec.NO_ID);
+            sendMessage(chatId, eventList.text(), eventList.keyboard());
+            deleteMessage(chatId, messageId);
+        });
+    }
+
+    /**
+     * Takes a batch of updates from Telegram. Returns once they are journaled, after which they may
+     * be acknowledged; throws if they could not be, so they are delivered again. A backlog is
+     * coalesced before it is handled.
+     */
+    @Override
+    public void onUpdatesReceived(List<Update> updates) {
+        backlogCoalescer.received(updateIntake.admit(updates)).forEach(this::dispatch);
     }
 
     @Override
     public void onUpdateReceived(Update update) {
-        if (update.hasMessage() && update.getMessage().hasText()) {
-            String messageText = update.getMessage().getText();
-            long chatId = update.getMessage().getChatId();
-            User user = userRepository.findById(chatId).orElse(
-                    registerUser(update.getMessage())
-            );
-            handleDefaultMessage(update, messageText, chatId, user);
-            if (user.getActiveRegistration() != null) {
-                UserEvent activeRegistration = user.getActiveRegistration();
-                RegistrationState registrationState = activeRegistration.getState();
-
-                switch (registrationState.name()) {
-                    case "AWAITING_TEAM_MEMBERS" -> {
-                        handleTeamMembersInput(chatId, messageText, activeRegistration);
-                        userRepository.save(user);
-                    }
-                    case "AWAITING_TEAM_NAME" -> {
-                        handleTeamNameInput(chatId, messageText, activeRegistration);
-                        userRepository.save(user);
+        onUpdatesReceived(List.of(update));
+    }
+
+    /**
+     * Handles updates read back from the journal after a restart.
+     */
+    public void onUpdatesReplayed(List<Update> updates) {
+        List<Update> admitted = updateIntake.readmit(updates);
+        if (!admitted.isEmpty()) {
+            log.info("Replaying {} unfinished updates", admitted.size());
+        }
+        backlogCoalescer.replayed(admitted).forEach(this::dispatch);
+    }
+
+    private void dispatch(Update update) {
+        Long chatId = UpdateChats.chatIdOf(update);
+        if (chatId == null) {
+            updateMetrics.unsupportedReceived();
+            log.warn("Received an unsupported update type: {}", update);
+            updateIntake.completed(update);
+            return;
+        }
+        if (update.hasCallbackQuery()) {
+            updateMetrics.callbackReceived();
+        } else if (update.hasMessage()) {
+            updateMetrics.messageReceived();
+        } else {
+            updateMetrics.unsupportedReceived();
+        }
+        if (!admissionControl.admit(chatId, update)
+                || !updateDispatcher.dispatch(chatId, () -> handleUpdate(chatId, update),
+                        () -> updateIntake.completed(update))) {
+            updateIntake.completed(update);
+        }
+    }
+
+    private void handleUpdate(long chatId, Update update) {
+        try {
+            if (!chatAffinity.mayProcess(chatId)) {
+                log.warn("Dropped update {} for chat ID: {}, chat is owned by another node", update.getUpdateId(), chatId);
+                return;
+            }
+            if (update.hasMessage() && update.getMessage().hasText()) {
+                String messageText = update.getMessage().getText();
+                sessionStore.withSession(chatId, () -> registerUser(update.getMessage()), session -> {
+                    if (firstApplication(update, session)) {
+                        handleTextMessage(update, messageText, chatId, session);
                     }
-                    case "AWAITING_CONTACT_PHONE" -> {
-                        handleContactPhoneInput(chatId, messageText, activeRegistration);
-                        userRepository.save(user);
+                });
+            } else if (update.hasCallbackQuery()) {
+                sessionStore.withSession(chatId, null, session -> {
+                    if (firstApplication(update, session)) {
+                        handleCallback(update, chatId, session);
                     }
-                    default -> sendMessage(chatId, DEFAULT_MESSAGE);
-                }
+                });
+            } else {
+                log.warn("Received an unsupported update type: {}", update);
             }
-            log.info("Received message: {} from chat ID: {}", messageText, chatId);
-        } else if (update.hasCallbackQuery()) {
-            String callbackData = update.getCallbackQuery().getData();
-            long chatId = update.getCallbackQuery().getMessage().getChatId();
-            int messageId = update.getCallbackQuery().getMessage().getMessageId();
-            User user = userRepository.findById(chatId).orElse(null);
-            if (user == null) {
-                log.error("User not found for chat ID: {}", chatId);
+        } finally {
+            updateIntake.completed(update);
+            updateMetrics.updateHandled();
+        }
+    }
+
+    /**
+     * Stamps the session with the update, or skips an update replayed from the journal whose changes
+     * were already written, so no state transition is applied twice.
+     */
+    private boolean firstApplication(Update update, ChatSession session) {
+        if (session.isApplied(update.getUpdateId())) {
+            log.info("Skipped update {} for chat ID: {}, its changes are already stored", update.getUpdateId(), session.getChatId());
+            return false;
+        }
+        session.setUpdateId(update.getUpdateId());
+        return true;
+    }
+
+    private void handleTextMessage(Update update, String messageText, long chatId, ChatSession session) {
+        ChatCommand command = ChatCommand.of(messageText);
+        if (command != null) {
+            clearActiveRegistration(session);
+            updateMetrics.command(command).record(
+                    () -> commandHandlers.get(command).handle(update, chatId, messageText, session));
+            return;
+        }
+        UserEvent activeRegistration = session.getActiveRegistration();
+        if (activeRegistration != null) {
+            RegistrationState state = activeRegistration.getState();
+            updateMetrics.step(state).record(() -> stepHandlers.getOrDefault(state, this::replyDefault)
+                    .handle(update, chatId, messageText, session));
+        }
+    }
+
+    private void handleCallback(Update update, long chatId, ChatSession session) {
+        String callbackData = update.getCallbackQuery().getData();
+        int messageId = update.getCallbackQuery().getMessage().getMessageId();
+        if (session.getUser() == null) {
+            log.error("User not found for chat ID: {}", chatId);
+            return;
+        }
+
+        CallbackAction action = CallbackCodec.action(callbackData);
+        if (action == null) {
+            log.warn("Received an unsupported callback data: {}", callbackData);
+            return;
+        }
+        long id = CallbackCodec.NO_ID;
+        if (action.hasId()) {
+            id = CallbackCodec.id(callbackData, action);
+            if (id == CallbackCodec.NO_ID) {
+                log.warn("Received malformed callback data: {}", callbackData);
                 return;
             }
+        }
+        long callbackId = id;
+        updateMetrics.callback(action).record(() -> callbackHandlers.get(action).handle(chatId, callbackId, messageId, session));
+    }
 
-            if (callbackData.startsWith("event_")) {
-                editEventDetails(chatId, callbackData, messageId);
-            } else if (callbackData.startsWith("register_event_")) {
-                long eventId = extractEventIdFromCallBack(callbackData);
-                Event event = eventRepository.findById(eventId).orElse(null);
-                if (event == null) {
-                    sendMessage(chatId, "❌ Event not found.");
-                    return;
-                }
-
-                UserEvent userEvent = new UserEvent();
-                userEvent.setEvent(event);
-                userEvent.setUser(user);
-                userEvent.setState(RegistrationState.AWAITING_TEAM_MEMBERS);
-                userEventRepository.save(userEvent);
-                user.setActiveRegistration(userEvent);
-
-                userRepository.save(user);
-
-                sendMessage(chatId, "Please enter the first and last names of your team members, one per line.");
-            } else if (callbackData.equals("back_to_events")) {
-                editToEvents(chatId, messageId);
-            } else {
-                log.warn("Received an unsupported callback data: {}", callbackData);
-            }
-        } else {
-            log.warn("Received an unsupported update type: {}", update);
+    private void startRegistration(long chatId, long eventId, int messageId, ChatSession session) {
+        if (eventCatalog.findById(eventId).isEmpty()) {
+            sendMessage(chatId, "❌ Event not found.");
+            return;
         }
 
+        User user = session.getUser();
+        UserEvent userEvent = findRegistration(session, eventId);
+        if (userEvent == null) {
+            userEvent = new UserEvent();
+            userEvent.setEvent(eventRepository.getReferenceById(eventId));
+            userEvent.setUser(user);
+        } else if (userEvent.getState() == RegistrationState.COMPLETED_REGISTRATION) {
+            sendMessage(chatId, userEvent.getSeatStatus() == SeatStatus.WAITLISTED
+                    ? "🕒 Your team is already on the waitlist for this event."
+                    : "✅ You are already registered for this event.");
+            return;
+        }
+        if (seatAllocator.isFull(eventId)) {
+            sendMessage(chatId, EVENT_FULL_NOTICE);
+        }
+        RegistrationState previous = userEvent.getState();
+        userEvent.setState(RegistrationState.AWAITING_TEAM_MEMBERS);
+        updateMetrics.registrationEntered(RegistrationState.AWAITING_TEAM_MEMBERS);
+        registrationStats.registrationMoved(eventId, previous, RegistrationState.AWAITING_TEAM_MEMBERS);
+        session.markRegistrationDirty(userEvent);
+        user.setActiveRegistration(userEvent);
+        session.markUserDirty();
+
+        sendMessage(chatId, "Please enter the first and last names of your team members, one per line.");
     }
 
-    private long extractEventIdFromCallBack(String callbackData) {
-        String[] parts = callbackData.split("_");
-        return Long.parseLong(parts[2]);
+    /**
+     * A user holds at most one registration per event, so registering again restarts the existing one.
+     */
+    private UserEvent findRegistration(ChatSession session, long eventId) {
+        UserEvent active = session.getActiveRegistration();
+        if (active != null && active.getEvent().getId() == eventId) {
+            return active;
+        }
+        return userEventRepository.findByUserChatIdAndEventId(session.getChatId(), eventId).orElse(null);
     }
 
-    private void handleDefaultMessage(Update update, String messageText, long chatId, User user) {
-        switch (messageText) {
-            case "/start" -> {
-                user.setActiveRegistration(null);
-                sendStart(chatId, update.getMessage().getChat().getFirstName());
-                userRepository.save(user);
-            }
-            case "/help" -> {
-                user.setActiveRegistration(null);
-                sendMessage(chatId, HELP_MESSAGE);
-                userRepository.save(user);
+    private void replyDefault(Update update, long chatId, String messageText, ChatSession session) {
+        sendMessage(chatId, DEFAULT_MESSAGE);
+    }
 
+    private void clearActiveRegistration(ChatSession session) {
+        if (session.getActiveRegistration() != null) {
+            RegistrationState state = session.getActiveRegistration().getState();
+            // A completed registration stays active until the next command; clearing it abandons nothing.
+            if (state != RegistrationState.COMPLETED_REGISTRATION) {
+                updateMetrics.registrationAbandoned(state);
             }
-            case "/events" -> {
-                user.setActiveRegistration(null);
-                sendEvents(chatId);
-                userRepository.save(user);
-            }
+            session.getUser().setActiveRegistration(null);
+            session.markUserDirty();
         }
     }
 
-    private void sendEvents(long chatId) {
-        List<Event> events = eventRepository.findAllByOrderByIdAsc();
-        String eventsMessage = buildEventsMessage(events);
-        sendMessage(chatId, eventsMessage, createInlineKeyboardMarkupForEvents(events));
+    /**
+     * {@code /events} lists all events, {@code /events <words>} searches them.
+     */
+    private void sendEvents(long chatId, String messageText, ChatSession session) {
+        EventQuery query = EventQuery.ALL.withText(String.join(" ", ChatCommand.arguments(messageText)));
+        session.setEventQuery(query);
+        RenderedView eventList = eventViews.eventPage(query, CallbackCodec.NO_ID, CallbackCodec.NO_ID);
+        sendMessage(chatId, eventList.text(), eventList.keyboard());
+    }
+
+    private void editToEvents(long chatId, int messageId, EventQuery query, long afterId, long beforeId) {
+        RenderedView eventList = eventViews.eventPage(query, afterId, beforeId);
+        editMessage(chatId, eventList.text(), messageId, eventList.keyboard());
+    }
+
+    private void editEventDetails(long chatId, long eventId, int messageId) {
+        eventViews.eventDetails(eventId).ifPresentOrElse(
+                details -> showEventDetails(chatId, eventId, messageId, details),
+                () -> editMessage(chatId, EVENT_NOT_FOUND, messageId, null));
     }
 
-    private void editToEvents(long chatId, int messageId) {
-        List<Event> events = eventRepository.findAllByOrderByIdAsc();
-        String eventsMessage = buildEventsMessage(events);
-        editMessage(chatId, eventsMessage, messageId, createInlineKeyboardMarkupForEvents(events));
+    /**
+     * A card with a poster replaces the list with a photo message, since a text message cannot be
+     * edited into one. The list is deleted only once the photo is delivered; without a readable poster,
+     * or when the photo cannot be sent, the list is edited into the text card instead.
+     */
+    private void showEventDetails(long chatId, long eventId, int messageId, RenderedView details) {
+        Optional<PosterStore.Poster> poster = details.posterCaption()
+                ? eventCatalog.findById(eventId).flatMap(posterStore::poster)
+                : Optional.empty();
+        if (poster.isEmpty()) {
+            editMessage(chatId, details.text(), messageId, details.keyboard());
+            return;
+        }
+        SendPhoto photo = new SendPhoto(String.valueOf(chatId), poster.get().input());
+        photo.setCaption(details.text());
+        photo.setReplyMarkup(details.keyboard());
+        outboundSender.enqueue(chatId, photo).thenAccept(message -> {
+            posterStore.sent(poster.get(), message);
+            if (message != null) {
+                deleteMessage(chatId, messageId);
+            } else {
+                editMessage(chatId, details.text(), messageId, details.keyboard());
+            }
+        });
     }
 
-    private void editEventDetails(long chatId, String callbackData, int messageId) {
-        long eventId = Long.parseLong(callbackData.split("_")[1]);
-        eventRepository.findById(eventId).ifPresentOrElse(event -> {
-            String text = EmojiParser.parseToUnicode(String.format(
-                    """
-                            *%s*
-                            
-                            📅 Date: %s
-                            📍 Location: %s
-                            📝 %s
-                            """,
-                    event.getTitle(),
-                    event.getDate(),
-                    event.getLocation(),
-                    event.getDescription()
-            ));
-            editMessage(chatId, text, messageId, createInlineKeyboardMarkupForRegistration(eventId));
-        }, () -> editMessage(chatId, "Event not found.", messageId, null));
+    private boolean isAdmin(long chatId) {
+        return botConfig.getAdminChatIds().contains(chatId);
+    }
+
+    private void exportRegistrations(long chatId, String messageText) {
+        if (!isAdmin(chatId)) {
+            sendMessage(chatId, DEFAULT_MESSAGE);
+            return;
+        }
+        String[] arguments = ChatCommand.arguments(messageText);
+        ExportFormat format = arguments.length > 1 ? ExportFormat.of(arguments[1]) : ExportFormat.CSV;
+        long eventId;
+        try {
+            eventId = Long.parseLong(arguments[0]);
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            sendMessage(chatId, EXPORT_USAGE);
+            return;
+        }
+        Optional<EventSnapshot> event = eventCatalog.findById(eventId);
+        if (format == null || event.isEmpty()) {
+            sendMessage(chatId, format == null ? EXPORT_USAGE : EVENT_NOT_FOUND);
+            return;
+        }
+
+        RegistrationExport export;
+        try {
+            export = registrationExporter.exportToFile(eventId, format);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to export registrations of event {}: {}", eventId, e.getMessage());
+            sendMessage(chatId, EXPORT_FAILED);
+            return;
+        }
+        SendDocument document = new SendDocument(String.valueOf(chatId),
+                new InputFile(export.file().toFile(), "event-" + eventId + "-registrations." + format.extension()));
+        document.setCaption(exportCaption(event.get().title(), export.teams()));
+        outboundSender.enqueue(chatId, document).whenComplete((result, error) -> {
+            try {
+                Files.deleteIfExists(export.file());
+            } catch (IOException e) {
+                log.warn("Failed to delete export file {}: {}", export.file(), e.getMessage());
+            }
+        });
+    }
+
+    private void startBroadcast(Update update, long chatId, String messageText) {
+        if (!isAdmin(chatId)) {
+            sendMessage(chatId, DEFAULT_MESSAGE);
+            return;
+        }
+        String[] arguments = ChatCommand.arguments(messageText, 2);
+        long eventId;
+        try {
+            eventId = Long.parseLong(arguments[0]);
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            sendMessage(chatId, BROADCAST_USAGE);
+            return;
+        }
+        if (arguments.length < 2 || arguments[1].isBlank()) {
+            sendMessage(chatId, BROADCAST_USAGE);
+            return;
+        }
+        Optional<EventSnapshot> event = eventCatalog.findById(eventId);
+        if (event.isEmpty()) {
+            sendMessage(chatId, EVENT_NOT_FOUND);
+            return;
+        }
+        BroadcastService.Started started = broadcastService.start(eventId,
+                broadcastMessage(event.get().title(), arguments[1]), chatId, update.getUpdateId());
+        sendMessage(chatId, broadcastStarted(started.id(), started.recipients()));
+    }
+
+    /**
+     * {@code /stats} summarizes every event, {@code /stats <event id>} shows one and
+     * {@code /stats rebuild} recounts all of them from the registrations.
+     */
+    private void sendStats(long chatId, String messageText) {
+        if (!isAdmin(chatId)) {
+            sendMessage(chatId, DEFAULT_MESSAGE);
+            return;
+        }
+        String[] arguments = ChatCommand.arguments(messageText);
+        if (arguments.length == 0) {
+            List<EventSnapshot> events = eventCatalog.current().events();
+            List<String> lines = new ArrayList<>(Math.min(events.size(), STATS_MAX_EVENTS));
+            for (EventSnapshot event : events.subList(0, Math.min(events.size(), STATS_MAX_EVENTS))) {
+                lines.add(statsLine(event.id(), event.title(), registrationStats.counts(event.id())));
+            }
+            sendMessage(chatId, statsMessage(lines, events.size() - lines.size()));
+            return;
+        }
+        if (arguments[0].equals("rebuild")) {
+            registrationStats.requestRebuild();
+            sendMessage(chatId, STATS_REBUILD_STARTED);
+            return;
+        }
+        long eventId;
+        try {
+            eventId = Long.parseLong(arguments[0]);
+        } catch (NumberFormatException e) {
+            sendMessage(chatId, STATS_USAGE);
+            return;
+        }
+        eventCatalog.findById(eventId).ifPresentOrElse(
+                event -> sendMessage(chatId, statsMessage(
+                        List.of(statsLine(event.id(), event.title(), registrationStats.counts(eventId))), 0)),
+                () -> sendMessage(chatId, EVENT_NOT_FOUND));
     }
 
     private User registerUser(Message message) {
         long chatId = message.getChatId();
         String firstName = message.getChat().getFirstName();
         String lastName = message.getChat().getLastName();
-        String userName = message.getChat().getUserName();
-        User existingUser = userRepository.findById(chatId).orElse(null);
-        if (existingUser == null) {
-            User user = new User();
-            user.setChatId(chatId);
-            user.setFirstName(firstName);
-            user.setLastName(lastName);
-            user.setUserName(userName);
-            user.setRegisteredAt(new Timestamp(System.currentTimeMillis()));
-            userRepository.save(user);
-            log.info("New user registered: {}", firstName + " " + lastName);
-            return user;
-        } else {
-            log.info("User already registered: {}", firstName + " " + lastName);
-            return existingUser;
-        }
+        User user = User.newUser(chatId);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setUserName(message.getChat().getUserName());
+        user.setRegisteredAt(new Timestamp(System.currentTimeMillis()));
+        userRepository.save(user);
+        log.debug("New user registered: {}", firstName + " " + lastName);
+        return user;
     }
 
     @Override
@@ -235,10 +544,7 @@ public class TelegramBotService extends TelegramLongPollingBot {
     }
 
     private void sendStart(long chatId, String name) {
-
-        String answer = EmojiParser.parseToUnicode(
-                "Hello, " + name + "! How can I assist you today? :wave:");
-        sendMessage(chatId, answer);
+        sendMessage(chatId, startMessage(name));
     }
 
     private void editMessage(long chatId, String text, int messageId,
@@ -249,25 +555,20 @@ public class TelegramBotService extends TelegramLongPollingBot {
         message.setMessageId(messageId);
         message.setReplyMarkup(inlineKeyboardMarkup);
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            log.error("Failed to edit message: {}", e.getMessage());
-        }
+        outboundSender.enqueue(chatId, message);
     }
 
+    private void deleteMessage(long chatId, int messageId) {
+        outboundSender.enqueue(chatId, new DeleteMessage(String.valueOf(chatId), messageId));
+    }
 
     private void sendMessage(long chatId, String text) {
         SendMessage message = new SendMessage();
         message.setChatId(chatId);
         message.setText(text);
-        message.setReplyMarkup(createKeyboardMarkup());
+        message.setReplyMarkup(MAIN_MENU);
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            log.error("Failed to send message: {}", e.getMessage());
-        }
+        outboundSender.enqueue(chatId, message);
     }
 
     private void sendMessage(long chatId, String text, ReplyKeyboard replyMarkup) {
@@ -276,103 +577,28 @@ public class TelegramBotService extends TelegramLongPollingBot {
         message.setText(text);
         message.setReplyMarkup(replyMarkup);
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            log.error("Failed to send message: {}", e.getMessage());
-        }
-    }
-
-    private InlineKeyboardMarkup createInlineKeyboardMarkupForEvents(List<Event> events) {
-        InlineKeyboardMarkup inlineKeyboardMarkup = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
-        List<InlineKeyboardButton> row = new ArrayList<>();
-
-        for (int i = 0; i < events.size(); i++) {
-            Event event = events.get(i);
-            InlineKeyboardButton button = new InlineKeyboardButton();
-            button.setText(String.valueOf(i + 1));
-            button.setCallbackData("event_" + event.getId());
-            row.add(button);
-        }
-
-        rows.add(row);
-        inlineKeyboardMarkup.setKeyboard(rows);
-        return inlineKeyboardMarkup;
+        outboundSender.enqueue(chatId, message);
     }
 
-    private InlineKeyboardMarkup createInlineKeyboardMarkupForRegistration(long eventId) {
-        InlineKeyboardMarkup inlineKeyboardMarkup = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
-        List<InlineKeyboardButton> row = new ArrayList<>();
-
-        InlineKeyboardButton RegisterButton = new InlineKeyboardButton();
-        RegisterButton.setText("Register");
-        RegisterButton.setCallbackData("register_event_" + eventId);
-        row.add(RegisterButton);
-
-        InlineKeyboardButton BackButton = new InlineKeyboardButton();
-        BackButton.setText("Back");
-        BackButton.setCallbackData("back_to_events");
-        row.add(BackButton);
-
-        rows.add(row);
-        inlineKeyboardMarkup.setKeyboard(rows);
-        return inlineKeyboardMarkup;
-    }
-
-    private ReplyKeyboardMarkup createKeyboardMarkup() {
-        ReplyKeyboardMarkup keyboardMarkup = new ReplyKeyboardMarkup();
-        List<KeyboardRow> keyboard = new ArrayList<>();
-        KeyboardRow row1 = new KeyboardRow();
-
-        row1.addAll(List.of("/events", "/help", "/start"));
-        keyboard.add(row1);
-//        KeyboardRow row2 = new KeyboardRow();
-//        row2.addAll(List.of("Option 3", "Option 4", "Option 5"));
-//        keyboard.add(row2);
-        keyboardMarkup.setKeyboard(keyboard);
-
-        keyboardMarkup.setResizeKeyboard(true);
-        return keyboardMarkup;
-    }
-
-    private String buildEventsMessage(List<Event> events) {
-        StringBuilder sb = new StringBuilder("Here are the upcoming events:\n");
-        int count = 1;
-        for (Event event : events) {
-            sb.append(":").append(numberToEmoji(count)).append(": ")
-                    .append(event.getTitle()).append("\n");
-            count++;
-        }
-        return EmojiParser.parseToUnicode(sb.toString());
-    }
-
-    private String numberToEmoji(int number) {
-        return switch (number) {
-            case 1 -> "one";
-            case 2 -> "two";
-            case 3 -> "three";
-            case 4 -> "four";
-            case 5 -> "five";
-            default -> "hash";
-        };
-    }
-
-    public void handleTeamMembersInput(long chatId, String messageText, UserEvent userEvent) {
+    public void handleTeamMembersInput(long chatId, String messageText, ChatSession session) {
+        UserEvent userEvent = session.getActiveRegistration();
         String[] members = messageText.split("\n");
         if (members.length < 2 || members.length > 6) {
             sendMessage(chatId, "❌ Please enter between 2 and 6 team members, one per line.");
             return;
         }
-        userEvent.setTeamMembers(Arrays.stream(members).toList());
+        userEvent.setTeamMembers(new ArrayList<>(Arrays.asList(members)));
         userEvent.setState(RegistrationState.AWAITING_TEAM_NAME);
-        userEventRepository.save(userEvent);
+        updateMetrics.registrationEntered(RegistrationState.AWAITING_TEAM_NAME);
+        registrationStats.registrationMoved(userEvent.getEvent().getId(),
+                RegistrationState.AWAITING_TEAM_MEMBERS, RegistrationState.AWAITING_TEAM_NAME);
+        session.markRegistrationDirty(userEvent);
         sendMessage(chatId, "✅ Team registered with " + members.length + " members.");
         sendMessage(chatId, "Please enter the team name (1-40 characters):");
     }
 
-    private void handleTeamNameInput(long chatId, String messageText, UserEvent userEvent) {
+    private void handleTeamNameInput(long chatId, String messageText, ChatSession session) {
+        UserEvent userEvent = session.getActiveRegistration();
         String teamName = messageText.trim();
         if (teamName.isBlank() || teamName.length() > 40) {
             sendMessage(chatId, "❌ Team name must be between 1 and 40 characters long.");
@@ -380,21 +606,39 @@ public class TelegramBotService extends TelegramLongPollingBot {
         }
         userEvent.setTeamName(teamName);
         userEvent.setState(RegistrationState.AWAITING_CONTACT_PHONE);
-        userEventRepository.save(userEvent);
+        updateMetrics.registrationEntered(RegistrationState.AWAITING_CONTACT_PHONE);
+        registrationStats.registrationMoved(userEvent.getEvent().getId(),
+                RegistrationState.AWAITING_TEAM_NAME, RegistrationState.AWAITING_CONTACT_PHONE);
+        session.markRegistrationDirty(userEvent);
         sendMessage(chatId, "✅ Team name set to: " + teamName + ".");
         sendMessage(chatId, "Please enter your contact phone number (9-15 digits, optional +):");
     }
 
-    private void handleContactPhoneInput(long chatId, String messageText, UserEvent userEvent) {
+    private void handleContactPhoneInput(long chatId, String messageText, ChatSession session) {
+        UserEvent userEvent = session.getActiveRegistration();
         String phoneNumber = messageText.trim();
-        if (!phoneNumber.matches("^\\+?[0-9]{9,15}$")) {
+        if (!PHONE_NUMBER.matcher(phoneNumber).matches()) {
             sendMessage(chatId, "❌ Please enter a valid phone number (10-15 digits, optional +).");
             return;
         }
         userEvent.setContactPhone(phoneNumber);
         userEvent.setRegistrationDate(new Timestamp(System.currentTimeMillis()));
-        sendMessage(chatId, EmojiParser.parseToUnicode("✅ Registration completed successfully! :tada:"));
         userEvent.setState(RegistrationState.COMPLETED_REGISTRATION);
-        userEventRepository.save(userEvent);
+        session.markRegistrationDirty(userEvent);
+        SeatStatus seatStatus;
+        try {
+            // The seat and the completed registration are committed together, not write-behind.
+            seatStatus = sessionStore.writeThrough(session, () -> seatAllocator.claim(userEvent));
+        } catch (RuntimeException e) {
+            log.error("Failed to complete registration for chat ID: {}: {}", chatId, e.getMessage());
+            userEvent.setState(RegistrationState.AWAITING_CONTACT_PHONE);
+            sendMessage(chatId, "❌ Something went wrong, please send your phone number again.");
+            return;
+        }
+        updateMetrics.registrationEntered(RegistrationState.COMPLETED_REGISTRATION);
+        registrationStats.registrationMoved(userEvent.getEvent().getId(),
+                RegistrationState.AWAITING_CONTACT_PHONE, RegistrationState.COMPLETED_REGISTRATION);
+        reminderScheduler.registrationCompleted(userEvent.getId(), chatId, userEvent.getEvent().getId());
+        sendMessage(chatId, seatStatus == SeatStatus.CONFIRMED ? REGISTRATION_COMPLETED : REGISTRATION_WAITLISTED);
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.example.demotelegrambot1.service;
+
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Resolves which chat an update belongs to; the chat ID is the unit of ordering and ownership.
+ */
+public final class UpdateChats {
+
+    private UpdateChats() {
+    }
+
+    /**
+     * @return the chat ID, or {@code null} for update types the bot does not handle
+     */
+    public static Long chatIdOf(Update update) {
+        if (update.hasMessage()) {
+            return update.getMessage().getChatId();
+        }
+        if (update.hasCallbackQuery() && update.getCallbackQuery().getMessage() != null) {
+            return update.getCallbackQuery().getMessage().getChatId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.demotelegrambot1.service.admission;
+
+import com.example.demotelegrambot1.config.AdmissionConfig;
+import com.example.demotelegrambot1.service.dispatch.UpdateDispatcher;
+import com.example.demotelegrambot1.service.routing.CallbackAction;
+import com.example.demotelegrambot1.service.routing.CallbackCodec;
+import com.example.demotelegrambot1.service.routing.ChatCommand;
+import com.example.demotelegrambot1.service.sender.OutboundMessageSender;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Decides which updates reach the handlers, so one flooding chat cannot use up the database and the
+ * Telegram rate budget of everyone else.
+ * <p>
+ * Under overload, measured as updates queued for handlers plus outbound calls pending, navigation is
+ * shed first and other commands next. Otherwise every chat has a token bucket for commands and
+ * navigation, and a callback repeating the chat's last one on the same message within the debounce
+ * window is dropped, e.g. a button tapped several times while the reply is on its way. Registration
+ * input is neither shed nor rate limited, only debounced: a chat answering its registration steps
+ * faster than the bucket allows, such as a backlog delivered at once after a restart, loses nothing.
+ */
+@Component
+@Slf4j
+public class AdmissionControl {
+
+    /**
+     * Update classes in the order they are kept under overload.
+     */
+    private enum Priority {
+        REGISTRATION, COMMAND, NAVIGATION
+    }
+
+    private enum Reason {
+        OVERLOAD, RATE_LIMITED, DEBOUNCED
+    }
+
+    private final AdmissionConfig config;
+    private final UpdateDispatcher updateDispatcher;
+    private final OutboundMessageSender outboundSender;
+    private final ChatAdmissionTable chats;
+
+    /** Indexed by reason, then priority. */
+    private final Counter[][] shed = new Counter[Reason.values().length][Priority.values().length];
+
+    public AdmissionControl(AdmissionConfig config, UpdateDispatcher updateDispatcher,
+                            OutboundMessageSender outboundSender, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.updateDispatcher = updateDispatcher;
+        this.outboundSender = outboundSender;
+        this.chats = new ChatAdmissionTable(config.getInitialChats(), config.getChatRatePerSecond(),
+                config.getChatBurst(), config.getDebounce().toNanos());
+        for (Reason reason : Reason.values()) {
+            for (Priority priority : Priority.values()) {
+                shed[reason.ordinal()][priority.ordinal()] = Counter.builder("bot.admission.shed")
+                        .description("Updates dropped before reaching a handler")
+                        .tag("reason", reason.name().toLowerCase())
+                        .tag("priority", priority.name().toLowerCase())
+                        .register(meterRegistry);
+            }
+        }
+        Gauge.builder("bot.admission.chats", this, AdmissionControl::trackedChats)
+                .description("Chats tracked for rate limiting")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return whether the update should be handled; a dropped update is counted here
+     */
+    public boolean admit(long chatId, Update update) {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        Priority priority = priorityOf(update);
+        if (priority != Priority.REGISTRATION) {
+            int load = updateDispatcher.queuedUpdates() + outboundSender.pendingCalls();
+            int limit = priority == Priority.NAVIGATION ? config.getShedNavigationAbove() : config.getShedCommandsAbove();
+            if (load > limit) {
+                return drop(Reason.OVERLOAD, priority, chatId);
+            }
+        }
+        ChatAdmissionTable.Verdict verdict;
+        synchronized (chats) {
+            verdict = chats.admit(chatId, callbackKey(update), priority != Priority.REGISTRATION, System.nanoTime());
+        }
+        return switch (verdict) {
+            case ADMITTED -> true;
+            case RATE_LIMITED -> drop(Reason.RATE_LIMITED, priority, chatId);
+            case DEBOUNCED -> drop(Reason.DEBOUNCED, priority, chatId);
+        };
+    }
+
+    private boolean drop(Reason reason, Priority priority, long chatId) {
+        shed[reason.ordinal()][priority.ordinal()].increment();
+        log.debug("Dropped {} update for chat ID: {}, {}", priority, chatId, reason);
+        return false;
+    }
+
+    /**
+     * Free text counts as registration input, since that is the only text the bot reads.
+     */
+    private static Priority priorityOf(Update update) {
+        if (update.hasCallbackQuery()) {
+            return CallbackCodec.action(update.getCallbackQuery().getData()) == CallbackAction.REGISTER
+                    ? Priority.REGISTRATION : Priority.NAVIGATION;
+        }
+        if (update.hasMessage() && update.getMessage().hasText()) {
+            ChatCommand command = ChatCommand.of(update.getMessage().getText());
+            if (command == null) {
+                return Priority.REGISTRATION;
+            }
+            return command == ChatCommand.EVENTS ? Priority.NAVIGATION : Priority.COMMAND;
+        }
+        return Priority.NAVIGATION;
+    }
+
+    /**
+     * @return a hash of the callback's data and message, never {@code 0}; {@code 0} for other updates
+     */
+    private static int callbackKey(Update update) {
+        if (!update.hasCallbackQuery()) {
+            return 0;
+        }
+        CallbackQuery query = update.getCallbackQuery();
+        int key = 31 * String.valueOf(query.getData()).hashCode() + query.getMessage().getMessageId();
+        return key == 0 ? 1 : key;
+    }
+
+    private int trackedChats() {
+        synchronized (chats) {
+            return chats.size();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.demotelegrambot1.service.admission;
+
+import java.util.Arrays;
+
+/**
+ * Per-chat token buckets and last callbacks, in parallel primitive arrays keyed by chat ID with
+ * open addressing, so tracking a chat costs a few array slots instead of a map entry, a boxed key
+ * and a bucket object.
+ * <p>
+ * A chat whose bucket has filled up again and whose last callback is out of the debounce window is
+ * in the same state as a chat never seen, so its slot is expired: when the table fills up it is
+ * rebuilt without expired slots before it grows. Callers synchronize.
+ */
+final class ChatAdmissionTable {
+
+    enum Verdict {
+        ADMITTED, DEBOUNCED, RATE_LIMITED
+    }
+
+    /** Not a valid chat ID; group chats are negative, but far from this. */
+    private static final long FREE = Long.MIN_VALUE;
+
+    private final int minCapacity;
+    private final double burst;
+    private final double tokensPerNano;
+    private final long debounceNanos;
+    /** How long an untouched slot takes to expire: to refill from empty, or to leave the debounce window. */
+    private final long expiryNanos;
+
+    private long[] chatIds;
+    private double[] tokens;
+    private long[] refilledAt;
+    private int[] lastCallbacks;
+    private long[] lastCallbackAt;
+    private int size;
+
+    /**
+     * @param capacity initial number of slots, rounded up to a power of two; the table never shrinks below it
+     */
+    ChatAdmissionTable(int capacity, double ratePerSecond, double burst, long debounceNanos) {
+        this.minCapacity = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+        this.burst = burst;
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.debounceNanos = debounceNanos;
+        this.expiryNanos = Math.max((long) Math.ceil(burst / tokensPerNano), debounceNanos);
+        allocate(minCapacity);
+    }
+
+    /**
+     * Takes a token from the chat's bucket unless the update repeats the chat's last admitted callback
+     * within the debounce window.
+     *
+     * @param callback identifies a callback, e.g. its data and message; {@code 0} for other updates
+     * @param limited  whether the update needs a token; one that does not is only debounced
+     */
+    Verdict admit(long chatId, int callback, boolean limited, long now) {
+        int slot = slot(chatId, now);
+        if (callback != 0 && lastCallbacks[slot] == callback && now - lastCallbackAt[slot] < debounceNanos) {
+            return Verdict.DEBOUNCED;
+        }
+        if (limited) {
+            double available = Math.min(burst, tokens[slot] + (now - refilledAt[slot]) * tokensPerNano);
+            refilledAt[slot] = now;
+            if (available < 1) {
+                tokens[slot] = available;
+                return Verdict.RATE_LIMITED;
+            }
+            tokens[slot] = available - 1;
+        }
+        if (callback != 0) {
+            lastCallbacks[slot] = callback;
+            lastCallbackAt[slot] = now;
+        }
+        return Verdict.ADMITTED;
+    }
+
+    /**
+     * Number of chats tracked, expired ones included until the next rebuild.
+     */
+    int size() {
+        return size;
+    }
+
+    private int slot(long chatId, long now) {
+        int slot = find(chatIds, chatId);
+        if (chatIds[slot] == chatId) {
+            return slot;
+        }
+        if ((size + 1) * 4 > chatIds.length * 3) {
+            rebuild(now);
+            slot = find(chatIds, chatId);
+        }
+        chatIds[slot] = chatId;
+        tokens[slot] = burst;
+        refilledAt[slot] = now;
+        lastCallbacks[slot] = 0;
+        lastCallbackAt[slot] = now - debounceNanos;
+        size++;
+        return slot;
+    }
+
+    /**
+     * @return the chat's slot, or the free slot where it belongs
+     */
+    private static int find(long[] chatIds, long chatId) {
+        int mask = chatIds.length - 1;
+        int slot = (int) mix(chatId) & mask;
+        while (chatIds[slot] != FREE && chatIds[slot] != chatId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Drops expired slots, then sizes the table so the live ones fill at most half of it.
+     */
+    private void rebuild(long now) {
+        long[] oldChatIds = chatIds;
+        double[] oldTokens = tokens;
+        long[] oldRefilledAt = refilledAt;
+        int[] oldLastCallbacks = lastCallbacks;
+        long[] oldLastCallbackAt = lastCallbackAt;
+        int live = 0;
+        for (int i = 0; i < oldChatIds.length; i++) {
+            if (oldChatIds[i] != FREE && !expired(oldRefilledAt[i], oldLastCallbackAt[i], now)) {
+                live++;
+            }
+        }
+        int capacity = minCapacity;
+        while (capacity < live * 2 + 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+        for (int i = 0; i < oldChatIds.length; i++) {
+            if (oldChatIds[i] != FREE && !expired(oldRefilledAt[i], oldLastCallbackAt[i], now)) {
+                int slot = find(chatIds, oldChatIds[i]);
+                chatIds[slot] = oldChatIds[i];
+                tokens[slot] = oldTokens[i];
+                refilledAt[slot] = oldRefilledAt[i];
+                lastCallbacks[slot] = oldLastCallbacks[i];
+                lastCallbackAt[slot] = oldLastCallbackAt[i];
+            }
+        }
+        size = live;
+    }
+
+    private boolean expired(long refilledAt, long lastCallbackAt, long now) {
+        return now - refilledAt >= expiryNanos && now - lastCallbackAt >= debounceNanos;
+    }
+
+    private void allocate(int capacity) {
+        chatIds = new long[capacity];
+        Arrays.fill(chatIds, FREE);
+        tokens = new double[capacity];
+        refilledAt = new long[capacity];
+        lastCallbacks = new int[capacity];
+        lastCallbackAt = new long[capacity];
+        size = 0;
+    }
+
+    /**
+     * Spreads sequential chat IDs over the table (MurmurHash3's 64-bit finalizer).
+     */
+    private static long mix(long key) {
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.demotelegrambot1.service.broadcast;
+
+import com.example.demotelegrambot1.config.BroadcastConfig;
+import com.example.demotelegrambot1.enums.RegistrationState;
+import com.example.demotelegrambot1.service.sender.OutboundMessageSender;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.demotelegrambot1.service.render.MessageTemplates.broadcastReport;
+
+/**
+ * Sends an announcement to every team registered for an event without getting in the way of
+ * interactive traffic.
+ * <p>
+ * A single worker pages through recipients by keyset on {@code user_event (event_id, user_id)} and
+ * hands messages to the {@link OutboundMessageSender} at {@code bot.broadcast.rate-per-second},
+ * shared by all running broadcasts and below Telegram's global limit, pausing while the sender has
+ * a backlog. Before a message is queued its recipient gets a {@code broadcast_delivery} row, and the
+ * keyset position moves in the same transaction; a broadcast interrupted by a restart resumes after
+ * the last recipient and never messages anyone twice. Recipients whose message was queued but not
+ * confirmed before the restart stay in status 0 and are not retried.
+ */
+@Component
+@Slf4j
+public class BroadcastService {
+
+    private static final int RUNNING = 0;
+    private static final int COMPLETED = 1;
+    private static final int DELIVERED = 1;
+    private static final int FAILED = 2;
+
+    private static final String NEXT_RECIPIENTS = "SELECT user_id FROM user_event "
+            + "WHERE event_id = ? AND registration_state = ? AND user_id > ? ORDER BY user_id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboundMessageSender outboundSender;
+    private final BroadcastConfig config;
+    private final ScheduledExecutorService worker;
+
+    private final Map<Long, Job> running = new ConcurrentHashMap<>();
+    /** Messages the broadcasts may still queue; refilled every tick, touched by the worker only. */
+    private double allowance;
+    private long lastRefill = System.nanoTime();
+
+    private final Counter delivered;
+    private final Counter failed;
+
+    public BroadcastService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            OutboundMessageSender outboundSender, BroadcastConfig config, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.outboundSender = outboundSender;
+        this.config = config;
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "broadcast-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getTickInterval().toMillis();
+        worker.scheduleWithFixedDelay(this::safeTick, interval, interval, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("bot.broadcast.running", running, Map::size)
+                .register(meterRegistry);
+        this.delivered = Counter.builder("bot.broadcast.messages")
+                .tag("result", "delivered")
+                .register(meterRegistry);
+        this.failed = Counter.builder("bot.broadcast.messages")
+                .tag("result", "failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts broadcasting {@code text} to every team that completed its registration for the event,
+     * confirmed or waitlisted.
+     *
+     * @param createdBy chat that gets the delivery report once the broadcast is done
+     * @param updateId  update carrying the command; a replayed update returns the broadcast it already
+     *                  started instead of starting another one
+     * @return the broadcast's ID and its number of recipients
+     */
+    public Started start(long eventId, String text, long createdBy, int updateId) {
+        List<Long> inserted = jdbcTemplate.queryForList(
+                "INSERT INTO broadcast (event_id, text, created_by, update_id) VALUES (?, ?, ?, ?) "
+                        + "ON CONFLICT (update_id) DO NOTHING RETURNING id",
+                Long.class, eventId, text, createdBy, updateId);
+        Integer recipients = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_event WHERE event_id = ? AND registration_state = ?",
+                Integer.class, eventId, RegistrationState.COMPLETED_REGISTRATION.ordinal());
+        if (inserted.isEmpty()) {
+            Long id = jdbcTemplate.queryForObject("SELECT id FROM broadcast WHERE update_id = ?", Long.class, updateId);
+            log.info("Broadcast {} was already started by update {}", id, updateId);
+            return new Started(id, recipients == null ? 0 : recipients);
+        }
+        long id = inserted.get(0);
+        running.put(id, new Job(id, eventId, text, createdBy, 0));
+        log.info("Broadcast {} to {} recipients of event {} started", id, recipients, eventId);
+        return new Started(id, recipients == null ? 0 : recipients);
+    }
+
+    public record Started(long id, int recipients) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        if (!config.isResumeOnStartup()) {
+            return;
+        }
+        List<Job> unfinished = jdbcTemplate.query(
+                "SELECT id, event_id, text, created_by, last_user_id FROM broadcast WHERE status = ?",
+                (rs, row) -> new Job(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getLong(4), rs.getLong(5)),
+                RUNNING);
+        for (Job job : unfinished) {
+            log.info("Resuming broadcast {} after user {}", job.id, job.lastUserId);
+            running.putIfAbsent(job.id, job);
+        }
+    }
+
+    private void safeTick() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            log.error("Broadcast tick failed: {}", e.getMessage());
+        }
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        allowance = Math.min(config.getRatePerSecond(),
+                allowance + (now - lastRefill) / 1_000_000_000d * config.getRatePerSecond());
+        lastRefill = now;
+
+        for (Job job : running.values()) {
+            recordOutcomes(job);
+            if (job.exhausted) {
+                if (job.inFlight == 0) {
+                    finish(job);
+                }
+                continue;
+            }
+            if (outboundSender.pendingCalls() > config.getMaxPendingOutbound()) {
+                continue;
+            }
+            int budget = (int) Math.min(allowance, config.getPageSize());
+            if (budget > 0) {
+                allowance -= sendPage(job, budget);
+            }
+        }
+    }
+
+    /**
+     * Claims and queues up to {@code limit} recipients after the job's keyset position.
+     *
+     * @return number of messages queued
+     */
+    private int sendPage(Job job, int limit) {
+        Page page = transactionTemplate.execute(status -> {
+            List<Long> recipients = jdbcTemplate.queryForList(NEXT_RECIPIENTS, Long.class,
+                    job.eventId, RegistrationState.COMPLETED_REGISTRATION.ordinal(), job.lastUserId, limit);
+            if (recipients.isEmpty()) {
+                return new Page(List.of(), job.lastUserId, true);
+            }
+            int[] inserted = jdbcTemplate.batchUpdate(
+                    "INSERT INTO broadcast_delivery (broadcast_id, chat_id) VALUES (?, ?) ON CONFLICT DO NOTHING",
+                    recipients, recipients.size(), (statement, chatId) -> {
+                        statement.setLong(1, job.id);
+                        statement.setLong(2, chatId);
+                    })[0];
+            long last = recipients.get(recipients.size() - 1);
+            jdbcTemplate.update("UPDATE broadcast SET last_user_id = ? WHERE id = ?", last, job.id);
+            List<Long> claimed = new ArrayList<>(recipients.size());
+            for (int i = 0; i < recipients.size(); i++) {
+                // Another node resuming the same broadcast may have claimed the recipient already.
+                if (inserted[i] != 0) {
+                    claimed.add(recipients.get(i));
+                }
+            }
+            return new Page(claimed, last, recipients.size() < limit);
+        });
+        job.lastUserId = page.lastUserId();
+        job.exhausted = page.last();
+        List<Long> claimed = page.claimed();
+        for (Long chatId : claimed) {
+            SendMessage message = new SendMessage();
+            message.setChatId(chatId);
+            message.setText(job.text);
+            job.inFlight++;
+            outboundSender.enqueueTracked(chatId, message)
+                    .whenComplete((ok, error) -> job.outcomes.add(new Outcome(chatId, Boolean.TRUE.equals(ok))));
+        }
+        return claimed.size();
+    }
+
+    private void recordOutcomes(Job job) {
+        List<Outcome> outcomes = new ArrayList<>();
+        for (Outcome outcome = job.outcomes.poll(); outcome != null; outcome = job.outcomes.poll()) {
+            outcomes.add(outcome);
+        }
+        if (outcomes.isEmpty()) {
+            return;
+        }
+        int deliveredCount = (int) outcomes.stream().filter(Outcome::delivered).count();
+        int failedCount = outcomes.size() - deliveredCount;
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("UPDATE broadcast_delivery SET status = ? WHERE broadcast_id = ? AND chat_id = ?",
+                    outcomes, outcomes.size(), (statement, outcome) -> {
+                        statement.setInt(1, outcome.delivered() ? DELIVERED : FAILED);
+                        statement.setLong(2, job.id);
+                        statement.setLong(3, outcome.chatId());
+                    });
+            jdbcTemplate.update("UPDATE broadcast SET delivered = delivered + ?, failed = failed + ? WHERE id = ?",
+                    deliveredCount, failedCount, job.id);
+        });
+        job.inFlight -= outcomes.size();
+        delivered.increment(deliveredCount);
+        failed.increment(failedCount);
+    }
+
+    private void finish(Job job) {
+        int[] totals = jdbcTemplate.queryForObject(
+                "UPDATE broadcast SET status = ?, finished_at = now() WHERE id = ? RETURNING delivered, failed",
+                (rs, row) -> new int[]{rs.getInt(1), rs.getInt(2)}, COMPLETED, job.id);
+        running.remove(job.id);
+        log.info("Broadcast {} finished: {} delivered, {} failed", job.id, totals[0], totals[1]);
+        SendMessage report = new SendMessage();
+        report.setChatId(job.createdBy);
+        report.setText(broadcastReport(job.id, totals[0], totals[1]));
+        outboundSender.enqueue(job.createdBy, report);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private record Page(List<Long> claimed, long lastUserId, boolean last) {
+    }
+
+    private record Outcome(long chatId, boolean delivered) {
+    }
+
+    private static final class Job {
+        final long id;
+        final long eventId;
+        final String text;
+        final long createdBy;
+        final ConcurrentLinkedQueue<Outcome> outcomes = new ConcurrentLinkedQueue<>();
+        long lastUserId;
+        int inFlight;
+        boolean exhausted;
+
+        Job(long id, long eventId, String text, long createdBy, long lastUserId) {
+            this.id = id;
+            this.eventId = eventId;
+            this.text = text;
+            this.createdBy = createdBy;
+            this.lastUserId = lastUserId;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demotelegrambot1.service.capacity;
+
+import com.example.demotelegrambot1.enums.SeatStatus;
+import com.example.demotelegrambot1.persistence.entity.UserEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out event seats without overselling and without any lock wider than one event row.
+ * <p>
+ * A seat is taken with a single conditional {@code UPDATE} on the event's {@code seats_taken} counter,
+ * which Postgres applies atomically per row: concurrent claims for the same event queue on that row
+ * for the length of one statement, claims for different events don't interact at all, and the
+ * counter can never pass {@code capacity}. Registrations that find the event full are waitlisted
+ * and promoted in order of completion when capacity is raised.
+ */
+@Component
+public class SeatAllocator {
+
+    private static final String TAKE_SEAT = "UPDATE event SET seats_taken = seats_taken + 1 "
+            + "WHERE id = ? AND (capacity IS NULL OR seats_taken < capacity)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter confirmed;
+    private final Counter waitlisted;
+    private final Counter promoted;
+
+    public SeatAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Promotions are triggered after other transactions commit and must not join them.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.confirmed = Counter.builder("bot.seats.allocations")
+                .tag("result", "confirmed")
+                .register(meterRegistry);
+        this.waitlisted = Counter.builder("bot.seats.allocations")
+                .tag("result", "waitlisted")
+                .register(meterRegistry);
+        this.promoted = Counter.builder("bot.seats.allocations")
+                .tag("result", "promoted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a seat for a completed registration, or puts it on the waitlist if the event is full.
+     * Must run inside the transaction that writes the registration, after the registration row exists,
+     * so the seat is never taken without the registration being saved.
+     */
+    public SeatStatus claim(UserEvent registration) {
+        SeatStatus status = jdbcTemplate.update(TAKE_SEAT, registration.getEvent().getId()) == 1
+                ? SeatStatus.CONFIRMED
+                : SeatStatus.WAITLISTED;
+        jdbcTemplate.update("UPDATE user_event SET seat_status = ? WHERE id = ?", status.ordinal(), registration.getId());
+        registration.setSeatStatus(status);
+        (status == SeatStatus.CONFIRMED ? confirmed : waitlisted).increment();
+        return status;
+    }
+
+    /**
+     * Cheap pre-check for the registration flow; the authoritative answer comes from {@link #claim}.
+     */
+    public boolean isFull(long eventId) {
+        Boolean full = jdbcTemplate.query("SELECT capacity IS NOT NULL AND seats_taken >= capacity FROM event WHERE id = ?",
+                rs -> rs.next() ? rs.getBoolean(1) : Boolean.FALSE, eventId);
+        return Boolean.TRUE.equals(full);
+    }
+
+    /**
+     * Moves waitlisted registrations onto free seats, oldest first.
+     *
+     * @return chat IDs of the promoted users
+     */
+    public List<Long> promoteWaitlisted(long eventId) {
+        List<Long> promotedChats = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            // Taking the seat first locks the event row, so concurrent promoters of one event run one after another.
+            while (jdbcTemplate.update(TAKE_SEAT, eventId) == 1) {
+                List<Long[]> next = jdbcTemplate.query(
+                        "SELECT id, user_id FROM user_event WHERE event_id = ? AND seat_status = ? "
+                                + "ORDER BY registration_date, id LIMIT 1",
+                        (rs, row) -> new Long[]{rs.getLong(1), rs.getLong(2)},
+                        eventId, SeatStatus.WAITLISTED.ordinal());
+                if (next.isEmpty()) {
+                    jdbcTemplate.update("UPDATE event SET seats_taken = seats_taken - 1 WHERE id = ?", eventId);
+                    return;
+                }
+                jdbcTemplate.update("UPDATE user_event SET seat_status = ? WHERE id = ?",
+                        SeatStatus.CONFIRMED.ordinal(), next.get(0)[0]);
+                promotedChats.add(next.get(0)[1]);
+            }
+        });
+        promoted.increment(promotedChats.size());
+        return promotedChats;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demotelegrambot1.service.capacity;
+
+import com.example.demotelegrambot1.persistence.listener.EventChangedEvent;
+import com.example.demotelegrambot1.service.catalog.EventCatalog;
+import com.example.demotelegrambot1.service.catalog.EventSnapshot;
+import com.example.demotelegrambot1.service.sender.OutboundMessageSender;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+
+import java.util.List;
+
+import static com.example.demotelegrambot1.service.render.MessageTemplates.seatConfirmedMessage;
+
+/**
+ * Gives freed seats to waitlisted teams once an event change, such as a raised capacity, is committed.
+ */
+@Component
+@Slf4j
+public class WaitlistPromoter {
+
+    private final SeatAllocator seatAllocator;
+    private final EventCatalog eventCatalog;
+    private final OutboundMessageSender outboundSender;
+
+    public WaitlistPromoter(SeatAllocator seatAllocator, EventCatalog eventCatalog, OutboundMessageSender outboundSender) {
+        this.seatAllocator = seatAllocator;
+        this.eventCatalog = eventCatalog;
+        this.outboundSender = outboundSender;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent event) {
+        List<Long> promoted = seatAllocator.promoteWaitlisted(event.eventId());
+        if (promoted.isEmpty()) {
+            return;
+        }
+        log.info("Promoted {} waitlisted registrations for event {}", promoted.size(), event.eventId());
+        String title = eventCatalog.findById(event.eventId()).map(EventSnapshot::title).orElse("the event");
+        for (Long chatId : promoted) {
+            SendMessage message = new SendMessage();
+            message.setChatId(chatId);
+            message.setText(seatConfirmedMessage(title));
+            outboundSender.enqueue(chatId, message);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demotelegrambot1.service.catalog;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * One consistent version of the event catalog, ordered by event ID, with its search index.
+ */
+public final class CatalogSnapshot {
+
+    private final long version;
+    private final long loadedAt;
+    private final List<EventSnapshot> events;
+    private final Map<Long, EventSnapshot> byId;
+    private final EventSearchIndex index;
+    private final List<String> categories;
+
+    CatalogSnapshot(long version, long loadedAt, List<EventSnapshot> events) {
+        this.version = version;
+        this.loadedAt = loadedAt;
+        this.events = List.copyOf(events);
+        Map<Long, EventSnapshot> index = new LinkedHashMap<>();
+        for (EventSnapshot event : events) {
+            index.put(event.id(), event);
+        }
+        this.byId = Map.copyOf(index);
+        this.index = new EventSearchIndex(this.events);
+        TreeSet<String> categories = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (EventSnapshot event : events) {
+            if (event.category() != null && !event.category().isBlank()) {
+                categories.add(event.category());
+            }
+        }
+        this.categories = List.copyOf(categories);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    long loadedAt() {
+        return loadedAt;
+    }
+
+    public List<EventSnapshot> events() {
+        return events;
+    }
+
+    public Optional<EventSnapshot> find(long eventId) {
+        return Optional.ofNullable(byId.get(eventId));
+    }
+
+    /**
+     * Distinct event categories, sorted ignoring case.
+     */
+    public List<String> categories() {
+        return categories;
+    }
+
+    /**
+     * @return the events matching {@code query}, ordered by event ID
+     */
+    public List<EventSnapshot> search(EventQuery query, Instant now) {
+        if (query.isAll()) {
+            return events;
+        }
+        BitSet positions = index.search(query.text());
+        List<EventSnapshot> matches = new ArrayList<>();
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            EventSnapshot event = events.get(i);
+            if (query.matches(event, now)) {
+                matches.add(event);
+            }
+        }
+        return matches;
+    }
+}
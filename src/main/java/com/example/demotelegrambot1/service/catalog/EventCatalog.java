@@ -0,0 +1,107 @@
+package com.example.demotelegrambot1.service.catalog;
+
+import com.example.demotelegrambot1.config.CatalogConfig;
+import com.example.demotelegrambot1.persistence.listener.EventChangedEvent;
+import com.example.demotelegrambot1.persistence.repository.EventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+
+/**
+ * Read-through cache of the event list in front of {@link EventRepository}.
+ * <p>
+ * Readers get an immutable {@link CatalogSnapshot}. The snapshot is reloaded when an event written
+ * through JPA is committed, when {@link #invalidate()} is called, or when the TTL expires.
+ */
+@Component
+@Slf4j
+public class EventCatalog {
+
+    private final EventRepository eventRepository;
+    private final CatalogConfig config;
+
+    private volatile CatalogSnapshot snapshot;
+    private volatile boolean stale = true;
+    private long nextVersion = 1;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public EventCatalog(EventRepository eventRepository, CatalogConfig config, MeterRegistry meterRegistry) {
+        this.eventRepository = eventRepository;
+        this.config = config;
+        this.hits = Counter.builder("bot.catalog.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("bot.catalog.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the current catalog, loading it from the database if it is missing, invalidated or expired.
+     */
+    public CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot;
+        if (current != null && !stale && !isExpired(current)) {
+            hits.increment();
+            return current;
+        }
+        return reload();
+    }
+
+    public Optional<EventSnapshot> findById(long eventId) {
+        return current().find(eventId);
+    }
+
+    /**
+     * Marks the catalog stale; the next read reloads it.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Reloads the catalog right away.
+     */
+    public CatalogSnapshot refresh() {
+        invalidate();
+        return reload();
+    }
+
+    /**
+     * Runs after the commit: a reload between the flush and the commit would read the old rows and
+     * keep them until the TTL expires.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent event) {
+        log.debug("Event {} changed, invalidating catalog", event.eventId());
+        invalidate();
+    }
+
+    private synchronized CatalogSnapshot reload() {
+        CatalogSnapshot current = snapshot;
+        if (current != null && !stale && !isExpired(current)) {
+            // Another worker reloaded while we waited for the lock.
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        stale = false;
+        CatalogSnapshot loaded = new CatalogSnapshot(
+                nextVersion++,
+                System.nanoTime(),
+                eventRepository.findAllByOrderByIdAsc().stream().map(EventSnapshot::from).toList()
+        );
+        snapshot = loaded;
+        return loaded;
+    }
+
+    private boolean isExpired(CatalogSnapshot current) {
+        return System.nanoTime() - current.loadedAt() > config.getTtl().toNanos();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demotelegrambot1.service.catalog;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * What a chat is browsing: free-text search words, a category and a start date window, each
+ * optional. {@link #ALL} lists every event.
+ */
+public record EventQuery(String text, String category, Dates dates) {
+
+    public static final EventQuery ALL = new EventQuery(null, null, Dates.ANY);
+
+    public enum Dates {
+        ANY(null),
+        NEXT_7_DAYS(Duration.ofDays(7)),
+        NEXT_30_DAYS(Duration.ofDays(30));
+
+        private final Duration window;
+
+        Dates(Duration window) {
+            this.window = window;
+        }
+
+        /**
+         * Events without a start time only match {@link #ANY}; past events match nothing else.
+         */
+        boolean matches(Instant startsAt, Instant now) {
+            return window == null
+                    || startsAt != null && !startsAt.isBefore(now) && startsAt.isBefore(now.plus(window));
+        }
+    }
+
+    public boolean isAll() {
+        return text == null && category == null && dates == Dates.ANY;
+    }
+
+    /**
+     * @param text search words; blank text searches nothing
+     */
+    public EventQuery withText(String text) {
+        return new EventQuery(text == null || text.isBlank() ? null : text.strip(), category, dates);
+    }
+
+    public EventQuery withCategory(String category) {
+        return new EventQuery(text, category, dates);
+    }
+
+    public EventQuery withDates(Dates dates) {
+        return new EventQuery(text, category, dates);
+    }
+
+    boolean matches(EventSnapshot event, Instant now) {
+        return (category == null || category.equalsIgnoreCase(event.category()))
+                && dates.matches(event.startsAt(), now);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demotelegrambot1.service.catalog;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over the title, description, location and category of one catalog version.
+ * <p>
+ * Every word maps to the sorted positions of the events containing it. A search word matches every
+ * indexed word it is a prefix of, and an event matches a search when it matches all of its words;
+ * the cost depends on the number of matching postings, not on the length of the descriptions.
+ */
+final class EventSearchIndex {
+
+    private final int size;
+    private final NavigableMap<String, int[]> postings;
+
+    EventSearchIndex(List<EventSnapshot> events) {
+        this.size = events.size();
+        Map<String, BitSet> words = new TreeMap<>();
+        for (int position = 0; position < events.size(); position++) {
+            EventSnapshot event = events.get(position);
+            for (String field : new String[]{event.title(), event.description(), event.location(), event.category()}) {
+                for (String word : words(field)) {
+                    words.computeIfAbsent(word, key -> new BitSet(size)).set(position);
+                }
+            }
+        }
+        TreeMap<String, int[]> index = new TreeMap<>();
+        words.forEach((word, positions) -> index.put(word, positions.stream().toArray()));
+        this.postings = index;
+    }
+
+    /**
+     * @return positions of the events matching every word of {@code text}; all events if it has none
+     */
+    BitSet search(String text) {
+        BitSet result = new BitSet(size);
+        result.set(0, size);
+        for (String word : words(text)) {
+            BitSet matches = new BitSet(size);
+            for (int[] positions : postings.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                for (int position : positions) {
+                    matches.set(position);
+                }
+            }
+            result.and(matches);
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lowercase runs of letters and digits.
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
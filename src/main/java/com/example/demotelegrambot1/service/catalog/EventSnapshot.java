@@ -0,0 +1,29 @@
+package com.example.demotelegrambot1.service.catalog;
+
+import com.example.demotelegrambot1.persistence.entity.Event;
+
+import java.time.Instant;
+
+/**
+ * Immutable copy of an {@link Event} row, safe to share between update workers.
+ */
+public record EventSnapshot(long id, String title, String date, String location, String description,
+                            Integer capacity, Instant startsAt, String category,
+                            String posterPath, String posterFileId, String posterSource) {
+
+    public static EventSnapshot from(Event event) {
+        return new EventSnapshot(
+                event.getId(),
+                event.getTitle(),
+                event.getDate(),
+                event.getLocation(),
+                event.getDescription(),
+                event.getCapacity(),
+                event.getStartsAt(),
+                event.getCategory(),
+                event.getPosterPath(),
+                event.getPosterFileId(),
+                event.getPosterSource()
+        );
+    }
+}
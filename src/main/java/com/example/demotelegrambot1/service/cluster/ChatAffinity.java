@@ -0,0 +1,26 @@
+package com.example.demotelegrambot1.service.cluster;
+
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Decides which node handles a chat.
+ */
+public interface ChatAffinity {
+
+    /**
+     * Whether this node may run handlers for the chat right now. Checked before every handler runs,
+     * so a node that lost a chat stops touching its state.
+     */
+    boolean mayProcess(long chatId);
+
+    /**
+     * Hands the updates of chats owned by this node to {@code localHandler} and forwards the rest
+     * to their owners.
+     *
+     * @return {@code false} if some updates could not be delivered and the sender should retry
+     */
+    boolean route(List<Update> updates, Consumer<List<Update>> localHandler);
+}
@@ -0,0 +1,21 @@
+package com.example.demotelegrambot1.service.cluster;
+
+/**
+ * Maps chat IDs onto a fixed number of partitions.
+ */
+public final class ChatPartitioner {
+
+    private ChatPartitioner() {
+    }
+
+    public static int partitionOf(long chatId, int partitions) {
+        // Chat IDs are far from uniform (groups are negative, users cluster in ranges), so mix first.
+        long h = chatId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) Math.floorMod(h, (long) partitions);
+    }
+}
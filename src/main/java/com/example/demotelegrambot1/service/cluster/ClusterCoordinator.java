@@ -0,0 +1,385 @@
+package com.example.demotelegrambot1.service.cluster;
+
+import com.example.demotelegrambot1.config.BotConfig;
+import com.example.demotelegrambot1.config.ClusterConfig;
+import com.example.demotelegrambot1.enums.BotMode;
+import com.example.demotelegrambot1.service.UpdateChats;
+import com.example.demotelegrambot1.service.dispatch.UpdateDispatcher;
+import com.example.demotelegrambot1.service.session.SessionStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Splits chats between several bot nodes using leases on a fixed set of partitions in Postgres.
+ * <p>
+ * Every node heartbeats into {@code cluster_node} and owns about {@code partitions / liveNodes}
+ * rows of {@code chat_partition_lease}. A node renews its leases well before they run out; when a
+ * node dies its leases expire and the survivors pick them up. A node only runs handlers for a chat
+ * while its local copy of the lease is valid, measured on the monotonic clock from before the renewal
+ * query, so it stops before anyone else may start. Partitions are handed over gracefully when a node
+ * joins or shuts down: the owner stops accepting, waits for queued updates of the partition to finish,
+ * flushes its sessions and only then releases the lease.
+ * <p>
+ * Updates arriving at a node that does not own their chat are forwarded over HTTP to the owner.
+ * Since a chat has exactly one owner at a time and the owner's dispatcher keeps per-chat order,
+ * updates of one chat are still handled in order.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.cluster.enabled", havingValue = "true")
+@Slf4j
+public class ClusterCoordinator implements ChatAffinity {
+
+    public static final String FORWARD_PATH = "/internal/cluster/updates";
+    public static final String TOKEN_HEADER = "X-Cluster-Token";
+
+    private final ClusterConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final UpdateDispatcher updateDispatcher;
+    private final SessionStore sessionStore;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService ticker;
+
+    private final int partitions;
+    /** Monotonic deadline up to which this node owns a partition; 0 if it does not. */
+    private final AtomicLongArray ownedUntil;
+    private final Set<Integer> releasing = ConcurrentHashMap.newKeySet();
+    private volatile String[] owners;
+
+    private final Counter forwarded;
+    private final Counter forwardFailures;
+    private final Counter unroutable;
+
+    public ClusterCoordinator(ClusterConfig config, BotConfig botConfig, JdbcTemplate jdbcTemplate,
+                              UpdateDispatcher updateDispatcher, SessionStore sessionStore,
+                              ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        if (botConfig.getMode() != BotMode.WEBHOOK) {
+            throw new IllegalStateException("bot.cluster.enabled requires bot.mode=webhook");
+        }
+        if (config.getAdvertisedUrl() == null || config.getAdvertisedUrl().isBlank()) {
+            throw new IllegalStateException("bot.cluster.advertised-url must be set when clustering is enabled");
+        }
+        if (config.getSecret() == null || config.getSecret().isBlank()) {
+            throw new IllegalStateException("bot.cluster.secret must be set when clustering is enabled");
+        }
+        this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+        this.updateDispatcher = updateDispatcher;
+        this.sessionStore = sessionStore;
+        this.objectMapper = objectMapper;
+        this.partitions = config.getPartitions();
+        this.ownedUntil = new AtomicLongArray(partitions);
+        this.owners = new String[partitions];
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(config.getForwardTimeout())
+                .build();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("bot.cluster.partitions.owned", this, ClusterCoordinator::ownedPartitions)
+                .register(meterRegistry);
+        this.forwarded = Counter.builder("bot.cluster.forwarded")
+                .tag("result", "ok")
+                .register(meterRegistry);
+        this.forwardFailures = Counter.builder("bot.cluster.forwarded")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.unroutable = Counter.builder("bot.cluster.unroutable")
+                .description("Updates refused because their partition had no owner or was being handed over")
+                .register(meterRegistry);
+
+        createPartitions();
+        tick();
+        long interval = config.getRenewInterval().toMillis();
+        ticker.scheduleWithFixedDelay(this::safeTick, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Cluster node {} started at {}, owning {} of {} partitions",
+                config.getNodeId(), config.getAdvertisedUrl(), ownedPartitions(), partitions);
+    }
+
+    @Override
+    public boolean mayProcess(long chatId) {
+        return owns(ChatPartitioner.partitionOf(chatId, partitions));
+    }
+
+    /**
+     * Whether this node takes new updates for the chat: it owns the chat and is not handing it over.
+     */
+    public boolean accepts(long chatId) {
+        int partition = ChatPartitioner.partitionOf(chatId, partitions);
+        return owns(partition) && !releasing.contains(partition);
+    }
+
+    @Override
+    public boolean route(List<Update> updates, Consumer<List<Update>> localHandler) {
+        List<Update> local = new ArrayList<>();
+        Map<String, List<Update>> remote = new HashMap<>();
+        String[] currentOwners = owners;
+        for (Update update : updates) {
+            Long chatId = UpdateChats.chatIdOf(update);
+            if (chatId == null || accepts(chatId)) {
+                local.add(update);
+                continue;
+            }
+            String owner = currentOwners[ChatPartitioner.partitionOf(chatId, partitions)];
+            if (owner == null || owner.equals(config.getAdvertisedUrl())) {
+                unroutable.increment();
+                log.warn("No node accepts chat ID: {} right now, asking the sender to retry", chatId);
+                return false;
+            }
+            remote.computeIfAbsent(owner, url -> new ArrayList<>()).add(update);
+        }
+
+        // Forward first: if any owner is unreachable the whole batch is retried, and nothing was handled here yet.
+        List<CompletableFuture<Boolean>> forwards = new ArrayList<>();
+        remote.forEach((url, batch) -> forwards.add(forward(url, batch)));
+        boolean delivered = true;
+        for (CompletableFuture<Boolean> forward : forwards) {
+            delivered &= forward.join();
+        }
+        if (!delivered) {
+            return false;
+        }
+        if (!local.isEmpty()) {
+            localHandler.accept(local);
+        }
+        return true;
+    }
+
+    /**
+     * Checks the token other nodes attach to forwarded updates.
+     */
+    public boolean isClusterToken(String token) {
+        return token != null && MessageDigest.isEqual(
+                config.getSecret().getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CompletableFuture<Boolean> forward(String url, List<Update> batch) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(batch);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize updates for {}: {}", url, e.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + FORWARD_PATH))
+                .timeout(config.getForwardTimeout())
+                .header("Content-Type", "application/json")
+                .header(TOKEN_HEADER, config.getSecret())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    if (error == null && response.statusCode() / 100 == 2) {
+                        forwarded.increment(batch.size());
+                        return true;
+                    }
+                    forwardFailures.increment(batch.size());
+                    log.warn("Failed to forward {} updates to {}: {}", batch.size(), url,
+                            error != null ? error.getMessage() : "HTTP " + response.statusCode());
+                    return false;
+                });
+    }
+
+    private boolean owns(int partition) {
+        return ownedUntil.get(partition) - System.nanoTime() > 0;
+    }
+
+    private int ownedPartitions() {
+        int owned = 0;
+        for (int partition = 0; partition < partitions; partition++) {
+            if (owns(partition)) {
+                owned++;
+            }
+        }
+        return owned;
+    }
+
+    private void createPartitions() {
+        Integer mismatched = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM chat_partition_lease WHERE partition_id >= ?", Integer.class, partitions);
+        if (mismatched != null && mismatched > 0) {
+            throw new IllegalStateException("chat_partition_lease has more partitions than bot.cluster.partitions="
+                    + partitions + ", all nodes must use the same partition count");
+        }
+        jdbcTemplate.update("INSERT INTO chat_partition_lease (partition_id, lease_until) "
+                + "SELECT p, '-infinity' FROM generate_series(0, ? - 1) p ON CONFLICT DO NOTHING", partitions);
+    }
+
+    private void safeTick() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            // Leases keep running out on their own; mayProcess turns false before anyone else can take over.
+            log.error("Cluster coordination failed: {}", e.getMessage());
+        }
+    }
+
+    private void tick() {
+        long leaseSeconds = config.getLeaseDuration().toSeconds();
+        jdbcTemplate.update("INSERT INTO cluster_node (node_id, base_url, heartbeat_at) VALUES (?, ?, now()) "
+                        + "ON CONFLICT (node_id) DO UPDATE SET base_url = excluded.base_url, heartbeat_at = now()",
+                config.getNodeId(), config.getAdvertisedUrl());
+
+        long renewedAt = System.nanoTime();
+        long validUntil = renewedAt + config.getLeaseDuration().toNanos();
+        Set<Integer> renewed = new HashSet<>(jdbcTemplate.queryForList(
+                "UPDATE chat_partition_lease SET lease_until = now() + make_interval(secs => ?) "
+                        + "WHERE owner_node = ? AND lease_until > now() RETURNING partition_id",
+                Integer.class, leaseSeconds, config.getNodeId()));
+        for (int partition = 0; partition < partitions; partition++) {
+            if (renewed.contains(partition)) {
+                ownedUntil.set(partition, validUntil);
+            } else if (ownedUntil.get(partition) != 0) {
+                lose(partition);
+            }
+        }
+
+        Integer live = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM cluster_node WHERE heartbeat_at > now() - make_interval(secs => ?)",
+                Integer.class, leaseSeconds);
+        int liveNodes = live == null ? 1 : Math.max(1, live);
+        int target = (partitions + liveNodes - 1) / liveNodes;
+        int owned = renewed.size();
+
+        if (owned < target) {
+            acquire(target - owned, leaseSeconds);
+        } else if (owned > target) {
+            int surplus = owned - target - releasing.size();
+            for (int partition = partitions - 1; partition >= 0 && surplus > 0; partition--) {
+                if (renewed.contains(partition) && releasing.add(partition)) {
+                    log.info("Handing over partition {}", partition);
+                    surplus--;
+                }
+            }
+        }
+        for (Integer partition : List.copyOf(releasing)) {
+            tryRelease(partition);
+        }
+
+        jdbcTemplate.update("DELETE FROM cluster_node WHERE heartbeat_at < now() - make_interval(secs => ?)",
+                leaseSeconds * 4);
+        String[] routes = new String[partitions];
+        jdbcTemplate.query("SELECT partition_id, owner_url FROM chat_partition_lease WHERE lease_until > now()",
+                rs -> {
+                    int partition = rs.getInt(1);
+                    if (partition < partitions) {
+                        routes[partition] = rs.getString(2);
+                    }
+                });
+        owners = routes;
+    }
+
+    private void acquire(int count, long leaseSeconds) {
+        long acquiredAt = System.nanoTime();
+        List<Integer> acquired = jdbcTemplate.queryForList(
+                "UPDATE chat_partition_lease SET owner_node = ?, owner_url = ?, lease_until = now() + make_interval(secs => ?) "
+                        + "WHERE partition_id IN (SELECT partition_id FROM chat_partition_lease WHERE lease_until <= now() "
+                        + "ORDER BY partition_id LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING partition_id",
+                Integer.class, config.getNodeId(), config.getAdvertisedUrl(), leaseSeconds, count);
+        for (Integer partition : acquired) {
+            // Anything cached from an earlier term may be stale by now.
+            sessionStore.discardMatching(inPartition(partition));
+            ownedUntil.set(partition, acquiredAt + config.getLeaseDuration().toNanos());
+            log.info("Acquired partition {}", partition);
+        }
+    }
+
+    private void tryRelease(int partition) {
+        if (!owns(partition)) {
+            releasing.remove(partition);
+            return;
+        }
+        LongPredicate filter = inPartition(partition);
+        if (!updateDispatcher.isIdle(filter)) {
+            return;
+        }
+        sessionStore.evictMatching(filter);
+        ownedUntil.set(partition, 0);
+        jdbcTemplate.update("UPDATE chat_partition_lease SET owner_node = NULL, owner_url = NULL, lease_until = '-infinity' "
+                + "WHERE partition_id = ? AND owner_node = ?", partition, config.getNodeId());
+        releasing.remove(partition);
+        log.info("Released partition {}", partition);
+    }
+
+    /**
+     * A lease that ran out after a short stall usually still names this node, since nobody has taken
+     * the partition yet; the cached sessions are then written before they are dropped.
+     */
+    private void lose(int partition) {
+        log.warn("Lost the lease on partition {}, dropping its cached sessions", partition);
+        ownedUntil.set(partition, 0);
+        releasing.remove(partition);
+        sessionStore.discardMatching(inPartition(partition), () -> stillNamed(partition));
+    }
+
+    /**
+     * Locks the partition's lease row if it still names this node, so no node can acquire the
+     * partition before the caller's transaction ends.
+     */
+    private boolean stillNamed(int partition) {
+        return !jdbcTemplate.queryForList("SELECT partition_id FROM chat_partition_lease "
+                        + "WHERE partition_id = ? AND owner_node = ? FOR UPDATE",
+                Integer.class, partition, config.getNodeId()).isEmpty();
+    }
+
+    private LongPredicate inPartition(int partition) {
+        return chatId -> ChatPartitioner.partitionOf(chatId, partitions) == partition;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        ticker.shutdownNow();
+        ticker.awaitTermination(5, TimeUnit.SECONDS);
+        for (int partition = 0; partition < partitions; partition++) {
+            if (owns(partition)) {
+                releasing.add(partition);
+            }
+        }
+        long deadline = System.nanoTime() + config.getDrainTimeout().toNanos();
+        while (!releasing.isEmpty() && System.nanoTime() < deadline) {
+            for (Integer partition : List.copyOf(releasing)) {
+                tryRelease(partition);
+            }
+            if (!releasing.isEmpty()) {
+                Thread.sleep(50);
+            }
+        }
+        if (!releasing.isEmpty()) {
+            log.warn("Partitions {} still busy at shutdown, leaving their leases to expire", releasing);
+        }
+        jdbcTemplate.update("DELETE FROM cluster_node WHERE node_id = ?", config.getNodeId());
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demotelegrambot1.service.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The only node owns every chat.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.cluster.enabled", havingValue = "false", matchIfMissing = true)
+public class SingleNodeAffinity implements ChatAffinity {
+
+    @Override
+    public boolean mayProcess(long chatId) {
+        return true;
+    }
+
+    @Override
+    public boolean route(List<Update> updates, Consumer<List<Update>> localHandler) {
+        localHandler.accept(updates);
+        return true;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demotelegrambot1.service.dispatch;
+
+import com.example.demotelegrambot1.config.DispatcherConfig;
+import com.example.demotelegrambot1.enums.BackpressurePolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+/**
+ * Runs update handlers on a worker pool, sharded by chat ID.
+ * <p>
+ * Every chat gets its own bounded FIFO lane and at most one worker drains a lane at a time,
+ * so updates of one chat are handled strictly in order while different chats run in parallel.
+ */
+@Component
+@Slf4j
+public class UpdateDispatcher {
+
+    private final DispatcherConfig config;
+    private final ConcurrentHashMap<Long, ChatLane> lanes = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor workers;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final DistributionSummary queueDepth;
+    private final Counter droppedOldest;
+    private final Counter rejected;
+
+    public UpdateDispatcher(DispatcherConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                config.getWorkerThreads(), config.getWorkerThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "update-worker-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("bot.dispatcher.queued", queued, AtomicInteger::get)
+                .description("Updates waiting in per-chat lanes")
+                .register(meterRegistry);
+        Gauge.builder("bot.dispatcher.active.chats", lanes, ConcurrentHashMap::size)
+                .description("Chats with queued or running updates")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("bot.dispatcher.wait")
+                .description("Time an update spent queued before its handler started")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queueDepth = DistributionSummary.builder("bot.dispatcher.chat.queue.depth")
+                .description("Per-chat lane depth observed when an update is enqueued")
+                .register(meterRegistry);
+        this.droppedOldest = Counter.builder("bot.dispatcher.rejected")
+                .tag("reason", "dropped_oldest")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("bot.dispatcher.rejected")
+                .tag("reason", "rejected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a task behind every earlier task of the same chat.
+     *
+     * @param dropped run instead of {@code task} if the task is evicted by {@link BackpressurePolicy#DROP_OLDEST}
+     * @return {@code false} if the task was rejected by the backpressure policy
+     */
+    public boolean dispatch(long chatId, Runnable task, Runnable dropped) {
+        QueuedTask evicted = null;
+        while (true) {
+            ChatLane lane = lanes.computeIfAbsent(chatId, ChatLane::new);
+            synchronized (lane) {
+                if (lane.retired) {
+                    continue;
+                }
+                if (lane.queue.size() >= config.getChatQueueCapacity()) {
+                    if (config.getBackpressurePolicy() != BackpressurePolicy.DROP_OLDEST) {
+                        rejected.increment();
+                        log.warn("Rejected update for chat ID: {}, lane is full", chatId);
+                        return false;
+                    }
+                    evicted = lane.queue.poll();
+                    queued.decrementAndGet();
+                    droppedOldest.increment();
+                    log.warn("Dropped oldest queued update for chat ID: {}", chatId);
+                }
+                lane.queue.add(new QueuedTask(task, dropped, System.nanoTime()));
+                queued.incrementAndGet();
+                queueDepth.record(lane.queue.size());
+                if (!lane.scheduled) {
+                    lane.scheduled = true;
+                    workers.execute(() -> drain(lane));
+                }
+                break;
+            }
+        }
+        if (evicted != null) {
+            evicted.dropped().run();
+        }
+        return true;
+    }
+
+    /**
+     * Number of updates currently waiting across all chats.
+     */
+    public int queuedUpdates() {
+        return queued.get();
+    }
+
+    /**
+     * Whether no update of a matching chat is queued or running.
+     */
+    public boolean isIdle(LongPredicate chatFilter) {
+        for (Long chatId : lanes.keySet()) {
+            if (chatFilter.test(chatId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void drain(ChatLane lane) {
+        for (int i = 0; i < config.getDrainBatchSize(); i++) {
+            QueuedTask next;
+            synchronized (lane) {
+                next = lane.queue.poll();
+                if (next == null) {
+                    lane.scheduled = false;
+                    lane.retired = true;
+                    lanes.remove(lane.chatId, lane);
+                    return;
+                }
+            }
+            queued.decrementAndGet();
+            waitTimer.record(System.nanoTime() - next.enqueuedAt(), TimeUnit.NANOSECONDS);
+            try {
+                next.task().run();
+            } catch (RuntimeException e) {
+                log.error("Update handler failed for chat ID: {}", lane.chatId, e);
+            }
+        }
+        // Yield so a single busy chat cannot monopolize a worker.
+        workers.execute(() -> drain(lane));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Update workers did not finish in time, {} updates left queued", queued.get());
+            workers.shutdownNow();
+        }
+    }
+
+    private static final class ChatLane {
+        final long chatId;
+        final ArrayDeque<QueuedTask> queue = new ArrayDeque<>();
+        boolean scheduled;
+        boolean retired;
+
+        ChatLane(long chatId) {
+            this.chatId = chatId;
+        }
+    }
+
+    private record QueuedTask(Runnable task, Runnable dropped, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demotelegrambot1.service.export;
+
+public enum ExportFormat {
+    CSV("csv"),
+    JSON("json");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * @return the format with the given extension, ignoring case, or {@code null}
+     */
+    public static ExportFormat of(String extension) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
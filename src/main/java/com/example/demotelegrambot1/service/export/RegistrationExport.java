@@ -0,0 +1,9 @@
+package com.example.demotelegrambot1.service.export;
+
+import java.nio.file.Path;
+
+/**
+ * An export written to a temporary file.
+ */
+public record RegistrationExport(Path file, int teams) {
+}
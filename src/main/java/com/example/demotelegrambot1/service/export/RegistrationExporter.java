@@ -0,0 +1,183 @@
+package com.example.demotelegrambot1.service.export;
+
+import com.example.demotelegrambot1.persistence.projection.RegistrationExportRow;
+import com.example.demotelegrambot1.persistence.repository.UserEventRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Writes the completed registrations of an event as CSV or JSON, one team per record.
+ * <p>
+ * Rows are streamed from a database cursor and written as they arrive; only the members of the
+ * team being written are held in memory.
+ */
+@Component
+public class RegistrationExporter {
+
+    private static final String MEMBER_SEPARATOR = "; ";
+
+    private static final Pattern SIGNED_NUMBER = Pattern.compile("[+-][0-9]+");
+
+    private final UserEventRepository userEventRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public RegistrationExporter(UserEventRepository userEventRepository, ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.userEventRepository = userEventRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Writes the export to {@code out}, which is flushed but left open.
+     *
+     * @return number of teams written
+     */
+    public int export(long eventId, ExportFormat format, OutputStream out) throws IOException {
+        try {
+            Integer teams = transactionTemplate.execute(status -> {
+                try (Stream<RegistrationExportRow> rows = userEventRepository.streamCompletedRegistrations(eventId)) {
+                    return format == ExportFormat.CSV ? writeCsv(rows, out) : writeJson(rows, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return teams == null ? 0 : teams;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the export to a new temporary file, which the caller deletes.
+     */
+    public RegistrationExport exportToFile(long eventId, ExportFormat format) throws IOException {
+        Path file = Files.createTempFile("registrations-" + eventId + "-", "." + format.extension());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            return new RegistrationExport(file, export(eventId, format, out));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    private int writeCsv(Stream<RegistrationExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("team_name,members,contact_phone,seat_status,registered_at,chat_id,username\r\n");
+        int teams = forEachTeam(rows, (team, members) -> {
+            writeCsvField(writer, team.teamName());
+            writer.write(',');
+            writeCsvField(writer, String.join(MEMBER_SEPARATOR, members));
+            writer.write(',');
+            writeCsvField(writer, team.contactPhone());
+            writer.write(',');
+            writeCsvField(writer, team.seatStatus() == null ? null : team.seatStatus().name());
+            writer.write(',');
+            writeCsvField(writer, team.registrationDate() == null ? null : team.registrationDate().toInstant().toString());
+            writer.write(',');
+            writer.write(String.valueOf(team.chatId()));
+            writer.write(',');
+            writeCsvField(writer, team.userName());
+            writer.write("\r\n");
+        });
+        writer.flush();
+        return teams;
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        // A spreadsheet runs a cell starting with one of these as a formula; a leading quote makes it
+        // text. Plain numbers such as phone numbers are left alone, they evaluate to themselves.
+        boolean formula = !value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0
+                && !SIGNED_NUMBER.matcher(value).matches();
+        boolean quote = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        if (formula) {
+            writer.write('\'');
+        }
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private int writeJson(Stream<RegistrationExportRow> rows, OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.writeStartArray();
+        int teams = forEachTeam(rows, (team, members) -> {
+            json.writeStartObject();
+            json.writeStringField("teamName", team.teamName());
+            json.writeArrayFieldStart("members");
+            for (String member : members) {
+                json.writeString(member);
+            }
+            json.writeEndArray();
+            json.writeStringField("contactPhone", team.contactPhone());
+            json.writeStringField("seatStatus", team.seatStatus() == null ? null : team.seatStatus().name());
+            json.writeStringField("registeredAt",
+                    team.registrationDate() == null ? null : team.registrationDate().toInstant().toString());
+            json.writeNumberField("chatId", team.chatId());
+            json.writeStringField("username", team.userName());
+            json.writeEndObject();
+        });
+        json.writeEndArray();
+        json.close();
+        return teams;
+    }
+
+    /**
+     * Folds the consecutive member rows of each registration into one team.
+     */
+    private static int forEachTeam(Stream<RegistrationExportRow> rows, TeamWriter writer) throws IOException {
+        int teams = 0;
+        RegistrationExportRow current = null;
+        List<String> members = new ArrayList<>();
+        for (RegistrationExportRow row : (Iterable<RegistrationExportRow>) rows::iterator) {
+            if (current != null && !Objects.equals(current.registrationId(), row.registrationId())) {
+                writer.write(current, members);
+                teams++;
+                members.clear();
+            }
+            current = row;
+            if (row.memberName() != null) {
+                members.add(row.memberName());
+            }
+        }
+        if (current != null) {
+            writer.write(current, members);
+            teams++;
+        }
+        return teams;
+    }
+
+    @FunctionalInterface
+    private interface TeamWriter {
+        void write(RegistrationExportRow team, List<String> members) throws IOException;
+    }
+}
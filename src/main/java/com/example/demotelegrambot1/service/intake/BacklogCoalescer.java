@@ -0,0 +1,173 @@
+package com.example.demotelegrambot1.service.intake;
+
+import com.example.demotelegrambot1.config.IntakeConfig;
+import com.example.demotelegrambot1.service.UpdateChats;
+import com.example.demotelegrambot1.service.routing.CallbackAction;
+import com.example.demotelegrambot1.service.routing.CallbackCodec;
+import com.example.demotelegrambot1.service.routing.ChatCommand;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Catch-up mode: after downtime, drops the navigation in a batch of updates that later updates of the
+ * same chat make pointless, instead of rendering every stale screen in turn.
+ * <p>
+ * A batch is a backlog when one of its messages is older than {@code bot.intake.catch-up-age}, or when
+ * it is a full getUpdates batch, so more are waiting; the bot catches up until a batch is neither.
+ * Updates replayed from the journal are always a backlog. Within a chat, a run of navigation updates
+ * keeps only the last view of each message and the last {@code /events} list; anything else, such as
+ * registration input, ends the run and is always handled, in order. Filter taps are kept too, since
+ * they change the chat's event query.
+ */
+@Component
+@Slf4j
+public class BacklogCoalescer {
+
+    private final UpdateIntake updateIntake;
+    private final IntakeConfig config;
+
+    private volatile boolean catchingUp;
+
+    private final Counter coalesced;
+
+    public BacklogCoalescer(UpdateIntake updateIntake, IntakeConfig config, MeterRegistry meterRegistry) {
+        this.updateIntake = updateIntake;
+        this.config = config;
+        this.coalesced = Counter.builder("bot.updates.coalesced")
+                .description("Stale navigation updates dropped while catching up on a backlog")
+                .register(meterRegistry);
+        Gauge.builder("bot.updates.catching.up", this, coalescer -> coalescer.catchingUp ? 1 : 0)
+                .description("1 while batches of updates are a backlog")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the admitted updates still worth handling, in order; the others are completed here
+     */
+    public List<Update> received(List<Update> updates) {
+        if (config.getCatchUpAge().isZero() || updates.isEmpty()) {
+            return updates;
+        }
+        boolean backlog = updates.size() >= config.getPollLimit() || oldestMessageAge(updates) > config.getCatchUpAge().toSeconds();
+        if (backlog != catchingUp) {
+            catchingUp = backlog;
+            log.info(backlog ? "Catching up on a backlog of updates" : "Caught up with updates");
+        }
+        return backlog ? coalesce(updates) : updates;
+    }
+
+    /**
+     * @return the updates replayed from the journal still worth handling, in order
+     */
+    public List<Update> replayed(List<Update> updates) {
+        return config.getCatchUpAge().isZero() ? updates : coalesce(updates);
+    }
+
+    private List<Update> coalesce(List<Update> updates) {
+        List<Update> superseded = new ArrayList<>();
+        List<Update> kept = collapse(updates, superseded);
+        if (!superseded.isEmpty()) {
+            superseded.forEach(updateIntake::completed);
+            coalesced.increment(superseded.size());
+            log.debug("Dropped {} superseded navigation updates of {}", superseded.size(), updates.size());
+        }
+        return kept;
+    }
+
+    private static long oldestMessageAge(List<Update> updates) {
+        long now = System.currentTimeMillis() / 1000;
+        long oldest = now;
+        for (Update update : updates) {
+            // A callback carries the date of the message its button is on, not of the tap.
+            if (update.hasMessage() && update.getMessage().getDate() != null) {
+                oldest = Math.min(oldest, update.getMessage().getDate());
+            }
+        }
+        return now - oldest;
+    }
+
+    /**
+     * Walks the batch from the newest update back, per chat.
+     *
+     * @param superseded receives the dropped updates
+     * @return the updates to handle, in their original order
+     */
+    static List<Update> collapse(List<Update> updates, List<Update> superseded) {
+        boolean[] dropped = new boolean[updates.size()];
+        Map<Long, Run> runs = new HashMap<>();
+        for (int i = updates.size() - 1; i >= 0; i--) {
+            Update update = updates.get(i);
+            Long chatId = UpdateChats.chatIdOf(update);
+            if (chatId != null) {
+                dropped[i] = runs.computeIfAbsent(chatId, id -> new Run()).supersedes(update);
+            }
+        }
+        List<Update> kept = new ArrayList<>(updates.size());
+        for (int i = 0; i < updates.size(); i++) {
+            (dropped[i] ? superseded : kept).add(updates.get(i));
+        }
+        return kept;
+    }
+
+    /**
+     * What the newer navigation updates of a chat, back to its last other update, will show anyway.
+     */
+    private static final class Run {
+
+        /** Messages a newer update renders again. */
+        final Set<Integer> rendered = new HashSet<>();
+        /** Whether a newer {@code /events} sends a fresh list. */
+        boolean listed;
+        /** Whether a kept update between here and that list reads the event query this one would set. */
+        boolean queryRead;
+
+        boolean supersedes(Update update) {
+            if (update.hasMessage()) {
+                Message message = update.getMessage();
+                if (message.hasText() && ChatCommand.of(message.getText()) == ChatCommand.EVENTS) {
+                    if (listed && !queryRead) {
+                        return true;
+                    }
+                    listed = true;
+                    queryRead = false;
+                    return false;
+                }
+            } else if (update.hasCallbackQuery()) {
+                CallbackAction action = CallbackCodec.action(update.getCallbackQuery().getData());
+                int messageId = update.getCallbackQuery().getMessage().getMessageId();
+                if (action == CallbackAction.SHOW_EVENT) {
+                    return !rendered.add(messageId);
+                }
+                if (action == CallbackAction.BACK_TO_EVENTS || action == CallbackAction.EVENTS_AFTER
+                        || action == CallbackAction.EVENTS_BEFORE) {
+                    if (!rendered.add(messageId)) {
+                        return true;
+                    }
+                    queryRead = true;
+                    return false;
+                }
+                if (action == CallbackAction.FILTER_EVENTS) {
+                    rendered.add(messageId);
+                    queryRead = true;
+                    return false;
+                }
+            }
+            rendered.clear();
+            listed = false;
+            queryRead = false;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.demotelegrambot1.service.intake;
+
+import com.example.demotelegrambot1.config.ClusterConfig;
+import com.example.demotelegrambot1.config.IntakeConfig;
+import com.example.demotelegrambot1.service.session.SessionStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission of incoming updates: drops redeliveries, journals new updates before they are
+ * acknowledged, and checkpoints how far they have been handled.
+ * <p>
+ * Every update ID goes through an {@link UpdateLedger}, so an update Telegram delivers twice is
+ * handled once. With the journal on, admitted updates are written to {@code update_journal} in one
+ * batch before the caller acknowledges them to Telegram. A checkpoint thread regularly takes the
+ * ledger's watermark, flushes the session store so every change up to it is written, and commits it
+ * to {@code update_checkpoint}, pruning the journal below it. After a crash the journaled updates
+ * above the checkpoint are {@link #unfinished() replayed}; a chat's changes carry the ID of the update
+ * that made them, so a replayed update whose changes were already written is skipped by the handler.
+ */
+@Component
+@Slf4j
+public class UpdateIntake {
+
+    private static final String INSERT = "INSERT INTO update_journal (update_id, payload) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SessionStore sessionStore;
+    private final ObjectMapper objectMapper;
+    private final boolean journal;
+    private final UpdateLedger ledger;
+    private final ScheduledExecutorService checkpointer;
+
+    /** Touched by the checkpoint thread only, read by the lag gauge. */
+    private volatile long checkpoint;
+
+    private final Counter duplicates;
+
+    public UpdateIntake(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, SessionStore sessionStore,
+                        ObjectMapper objectMapper, IntakeConfig config, ClusterConfig clusterConfig,
+                        MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sessionStore = sessionStore;
+        this.objectMapper = objectMapper;
+        this.journal = config.isJournal() && !clusterConfig.isEnabled();
+        this.checkpoint = journal ? loadCheckpoint() : -1;
+        this.ledger = new UpdateLedger(config.getDedupWindow(), checkpoint);
+        this.checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "update-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (journal) {
+            long interval = config.getCheckpointInterval().toMillis();
+            checkpointer.scheduleWithFixedDelay(this::safeCheckpoint, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            log.info("Update journal is off, updates in flight are lost on a crash");
+        }
+
+        this.duplicates = Counter.builder("bot.updates.duplicates")
+                .description("Updates dropped because they were delivered before")
+                .register(meterRegistry);
+        Gauge.builder("bot.updates.checkpoint.lag", this, intake -> intake.ledger.highest() - intake.checkpoint)
+                .description("Update IDs admitted but not yet checkpointed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits new updates and journals them; call before acknowledging them to Telegram.
+     *
+     * @return the updates not seen before, in order; each must be {@link #completed} once handled
+     * @throws RuntimeException if the journal write fails, in which case nothing is admitted and the
+     *                          updates should be delivered again
+     */
+    public List<Update> admit(List<Update> updates) {
+        List<Update> admitted = new ArrayList<>(updates.size());
+        for (Update update : updates) {
+            if (ledger.admit(update.getUpdateId())) {
+                admitted.add(update);
+            } else {
+                duplicates.increment();
+                log.debug("Dropped duplicate update {}", update.getUpdateId());
+            }
+        }
+        if (!journal || admitted.isEmpty()) {
+            return admitted;
+        }
+        int[] inserted;
+        try {
+            inserted = jdbcTemplate.batchUpdate(INSERT, admitted, admitted.size(),
+                    (statement, update) -> {
+                        statement.setLong(1, update.getUpdateId());
+                        statement.setString(2, toJson(update));
+                    })[0];
+        } catch (RuntimeException e) {
+            admitted.forEach(update -> ledger.forget(update.getUpdateId()));
+            throw e;
+        }
+        List<Update> fresh = new ArrayList<>(admitted.size());
+        for (int i = 0; i < admitted.size(); i++) {
+            if (inserted[i] != 0) {
+                fresh.add(admitted.get(i));
+            } else {
+                // Journaled by a previous run and replayed from there.
+                ledger.complete(admitted.get(i).getUpdateId());
+                duplicates.increment();
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Admits updates read back from the journal, without writing them again.
+     */
+    public List<Update> readmit(List<Update> updates) {
+        return updates.stream().filter(update -> ledger.admit(update.getUpdateId())).toList();
+    }
+
+    /**
+     * Marks an admitted update as handled, or as dropped for good.
+     */
+    public void completed(Update update) {
+        ledger.complete(update.getUpdateId());
+    }
+
+    /**
+     * @return journaled updates above the last checkpoint, oldest first; empty with the journal off
+     */
+    public List<Update> unfinished() {
+        if (!journal) {
+            return List.of();
+        }
+        return jdbcTemplate.query("SELECT payload FROM update_journal WHERE update_id > ? ORDER BY update_id",
+                (rs, row) -> fromJson(rs.getString(1)), checkpoint);
+    }
+
+    /**
+     * @return the offset to resume long polling from: after the last journaled or checkpointed
+     * update, or 0 to let Telegram start with its oldest pending update
+     */
+    public long resumeOffset() {
+        if (!journal) {
+            return 0;
+        }
+        Long last = jdbcTemplate.queryForObject("SELECT max(update_id) FROM update_journal", Long.class);
+        long resumeAfter = Math.max(last == null ? -1 : last, checkpoint);
+        return resumeAfter < 0 ? 0 : resumeAfter + 1;
+    }
+
+    private long loadCheckpoint() {
+        List<Long> rows = jdbcTemplate.queryForList("SELECT last_update_id FROM update_checkpoint WHERE id = 1", Long.class);
+        return rows.isEmpty() ? -1 : rows.get(0);
+    }
+
+    private void safeCheckpoint() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            log.error("Update checkpoint failed: {}", e.getMessage());
+        }
+    }
+
+    private void checkpoint() {
+        long watermark = ledger.watermark();
+        if (watermark <= checkpoint) {
+            return;
+        }
+        // Every update up to the watermark has completed, so its changes are in the sessions now.
+        if (!sessionStore.flushAll()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO update_checkpoint (id, last_update_id) VALUES (1, ?) "
+                    + "ON CONFLICT (id) DO UPDATE SET last_update_id = excluded.last_update_id, updated_at = now()", watermark);
+            jdbcTemplate.update("DELETE FROM update_journal WHERE update_id <= ?", watermark);
+        });
+        checkpoint = watermark;
+    }
+
+    private String toJson(Update update) {
+        try {
+            return objectMapper.writeValueAsString(update);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize update " + update.getUpdateId(), e);
+        }
+    }
+
+    private Update fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, Update.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read a journaled update", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpointer.shutdownNow();
+        if (journal) {
+            safeCheckpoint();
+        }
+    }
+}
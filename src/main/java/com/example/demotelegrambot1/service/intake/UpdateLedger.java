@@ -0,0 +1,138 @@
+package com.example.demotelegrambot1.service.intake;
+
+import java.util.Arrays;
+
+/**
+ * Remembers which of the most recent update IDs were admitted and which of those are still being
+ * handled, in two ring bitmaps of {@code window} bits each.
+ * <p>
+ * Telegram numbers updates sequentially, so a sliding window over the latest IDs is enough to drop
+ * redeliveries: an ID already in the window, or below it, is a duplicate. The same bitmaps give the
+ * watermark, the highest ID up to which every admitted update has completed. Synchronized; every
+ * operation is a few bit operations except {@link #watermark()}, which scans the window.
+ */
+final class UpdateLedger {
+
+    private final long[] seen;
+    private final long[] inFlight;
+    private final int window;
+    /** IDs up to the floor are no longer tracked and count as duplicates. */
+    private long floor;
+    private long highest;
+    private int inFlightCount;
+
+    /**
+     * @param window number of IDs tracked, a power of two
+     * @param floor  highest ID already handled, e.g. the last checkpoint; {@code -1} if none
+     */
+    UpdateLedger(int window, long floor) {
+        if (Integer.bitCount(window) != 1 || window < 64) {
+            throw new IllegalArgumentException("The window must be a power of two of at least 64: " + window);
+        }
+        this.window = window;
+        this.seen = new long[window / 64];
+        this.inFlight = new long[window / 64];
+        this.floor = floor;
+        this.highest = floor;
+    }
+
+    /**
+     * Marks the update as being handled.
+     *
+     * @return {@code false} if it was admitted before or is older than the window
+     */
+    synchronized boolean admit(long updateId) {
+        if (updateId <= floor) {
+            return false;
+        }
+        if (updateId - floor > window) {
+            slide(updateId - window);
+        }
+        if (test(seen, updateId)) {
+            return false;
+        }
+        set(seen, updateId);
+        set(inFlight, updateId);
+        inFlightCount++;
+        highest = Math.max(highest, updateId);
+        return true;
+    }
+
+    synchronized void complete(long updateId) {
+        if (updateId > floor && test(inFlight, updateId)) {
+            clear(inFlight, updateId);
+            inFlightCount--;
+        }
+    }
+
+    /**
+     * Undoes {@link #admit} for an update that could not be accepted, so its redelivery is taken.
+     */
+    synchronized void forget(long updateId) {
+        complete(updateId);
+        if (updateId > floor) {
+            clear(seen, updateId);
+        }
+    }
+
+    /**
+     * @return the highest ID such that every admitted update up to it has completed
+     */
+    synchronized long watermark() {
+        if (inFlightCount == 0) {
+            return highest;
+        }
+        for (long id = floor + 1; id <= highest; id++) {
+            if (test(inFlight, id)) {
+                return id - 1;
+            }
+        }
+        return highest;
+    }
+
+    synchronized long highest() {
+        return highest;
+    }
+
+    /**
+     * Moves the floor up to {@code newFloor}, forgetting the IDs it passes. Updates still in flight
+     * below it stop holding back the watermark; that takes a gap of a whole window between the
+     * oldest unfinished update and the newest one.
+     */
+    private void slide(long newFloor) {
+        if (newFloor - floor >= window) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(inFlight, 0);
+            inFlightCount = 0;
+        } else {
+            for (long id = floor + 1; id <= newFloor; id++) {
+                if (test(inFlight, id)) {
+                    inFlightCount--;
+                }
+                clear(seen, id);
+                clear(inFlight, id);
+            }
+        }
+        floor = newFloor;
+        highest = Math.max(highest, floor);
+    }
+
+    private int bit(long updateId) {
+        return (int) (updateId & (window - 1));
+    }
+
+    private boolean test(long[] bits, long updateId) {
+        int bit = bit(updateId);
+        return (bits[bit >>> 6] & 1L << bit) != 0;
+    }
+
+    private void set(long[] bits, long updateId) {
+        int bit = bit(updateId);
+        bits[bit >>> 6] |= 1L << bit;
+    }
+
+    private void clear(long[] bits, long updateId) {
+        int bit = bit(updateId);
+        bits[bit >>> 6] &= ~(1L << bit);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demotelegrambot1.service.intake;
+
+import com.example.demotelegrambot1.config.IntakeConfig;
+import com.example.demotelegrambot1.service.TelegramBotService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.updates.GetUpdates;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.util.List;
+
+/**
+ * Long polling loop for {@code bot.mode=polling}, in place of the library's {@code DefaultBotSession}.
+ * <p>
+ * Telegram drops updates once a getUpdates call asks for a higher offset, and the library's session
+ * asks for it as soon as a batch is read. This loop moves the offset past a batch only after
+ * {@link TelegramBotService#onUpdatesReceived} has journaled it, and asks for the same batch again
+ * if that failed.
+ */
+@Component
+@Slf4j
+public class UpdatePoller {
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final TelegramBotService bot;
+    private final UpdateIntake updateIntake;
+    private final IntakeConfig config;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public UpdatePoller(TelegramBotService bot, UpdateIntake updateIntake, IntakeConfig config) {
+        this.bot = bot;
+        this.updateIntake = updateIntake;
+        this.config = config;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (bot.getBotToken() == null || bot.getBotToken().isBlank()) {
+            log.warn("No bot token configured, not polling for updates");
+            return;
+        }
+        running = true;
+        thread = new Thread(this::poll, "update-poller");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void poll() {
+        try {
+            bot.clearWebhook();
+        } catch (TelegramApiException e) {
+            log.warn("Failed to remove the webhook: {}", e.getMessage());
+        }
+        long offset = updateIntake.resumeOffset();
+        log.info("Polling for updates from offset {}", offset);
+        long backoff = 0;
+        while (running) {
+            try {
+                GetUpdates getUpdates = GetUpdates.builder()
+                        .offset((int) offset)
+                        .limit(config.getPollLimit())
+                        .timeout((int) config.getPollTimeout().toSeconds())
+                        .allowedUpdates(List.of("message", "callback_query"))
+                        .build();
+                List<Update> updates = bot.execute(getUpdates);
+                if (!updates.isEmpty()) {
+                    bot.onUpdatesReceived(updates);
+                    offset = updates.get(updates.size() - 1).getUpdateId() + 1L;
+                }
+                backoff = 0;
+            } catch (TelegramApiException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                backoff = Math.min(MAX_BACKOFF_MILLIS, Math.max(500, backoff * 2));
+                log.error("Polling for updates failed, retrying in {} ms: {}", backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
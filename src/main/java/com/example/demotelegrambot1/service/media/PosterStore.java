@@ -0,0 +1,157 @@
+package com.example.demotelegrambot1.service.media;
+
+import com.example.demotelegrambot1.config.PosterConfig;
+import com.example.demotelegrambot1.service.catalog.EventSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.PhotoSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Event posters and the Telegram file_ids they were uploaded as.
+ * <p>
+ * The first time a poster is sent, its file is uploaded; Telegram answers with a file_id, which every
+ * later send passes instead of the bytes. The file_id is kept in memory and in
+ * {@code event.poster_file_id}, next to the fingerprint of the file it was uploaded from: path, size and
+ * modification time. When the fingerprint no longer matches, because the event points to another file
+ * or the file was replaced, the poster is uploaded again. Two chats opening a new poster at the same
+ * time may both upload it; the last file_id wins.
+ */
+@Component
+@Slf4j
+public class PosterStore {
+
+    private static final String SAVE = "UPDATE event SET poster_file_id = ?, poster_source = ? WHERE id = ? AND poster_path = ?";
+
+    /** Marks a file_id Telegram refused, so the one loaded with the catalog is not used either. */
+    private static final Uploaded REFUSED = new Uploaded("", "");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PosterConfig config;
+    private final ExecutorService writer;
+
+    private final Map<Long, Uploaded> uploaded = new ConcurrentHashMap<>();
+
+    private final Counter uploads;
+    private final Counter reuses;
+
+    public PosterStore(JdbcTemplate jdbcTemplate, PosterConfig config, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "poster-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.uploads = Counter.builder("bot.posters.sent")
+                .tag("source", "upload")
+                .register(meterRegistry);
+        this.reuses = Counter.builder("bot.posters.sent")
+                .tag("source", "file_id")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the event's poster to send: its file_id if the file is unchanged since it was uploaded,
+     * otherwise the file itself; empty for events without a readable poster
+     */
+    public Optional<Poster> poster(EventSnapshot event) {
+        if (event.posterPath() == null) {
+            return Optional.empty();
+        }
+        Uploaded known = uploaded.get(event.id());
+        if (known == null && event.posterFileId() != null && event.posterSource() != null) {
+            known = new Uploaded(event.posterSource(), event.posterFileId());
+        }
+        Path file = config.getDirectory().resolve(event.posterPath());
+        String source;
+        try {
+            source = fingerprint(event.posterPath(), file);
+        } catch (IOException e) {
+            if (known != null && known.source().startsWith(event.posterPath() + "|")) {
+                // Telegram still has the last upload of this path.
+                return Optional.of(new Poster(event.id(), event.posterPath(), known.source(), new InputFile(known.fileId()), false));
+            }
+            log.warn("Poster {} of event {} is not readable: {}", file, event.id(), e.getMessage());
+            return Optional.empty();
+        }
+        if (known != null && known.source().equals(source)) {
+            return Optional.of(new Poster(event.id(), event.posterPath(), source, new InputFile(known.fileId()), false));
+        }
+        // Streamed from disk by the HTTP client and opened again for a retry, never read into memory.
+        return Optional.of(new Poster(event.id(), event.posterPath(), source,
+                new InputFile(file.toFile(), file.getFileName().toString()), true));
+    }
+
+    /**
+     * Records how sending a poster went; called with the sent message, or {@code null} once given up on.
+     */
+    public void sent(Poster poster, Message message) {
+        if (message == null) {
+            if (!poster.upload()) {
+                log.warn("Telegram refused the cached poster of event {}, uploading it again next time", poster.eventId());
+                uploaded.put(poster.eventId(), REFUSED);
+            }
+            return;
+        }
+        if (!poster.upload()) {
+            reuses.increment();
+            return;
+        }
+        uploads.increment();
+        List<PhotoSize> sizes = message.getPhoto();
+        if (sizes == null || sizes.isEmpty()) {
+            return;
+        }
+        String fileId = sizes.get(sizes.size() - 1).getFileId();
+        uploaded.put(poster.eventId(), new Uploaded(poster.source(), fileId));
+        writer.execute(() -> {
+            try {
+                jdbcTemplate.update(SAVE, fileId, poster.source(), poster.eventId(), poster.path());
+            } catch (RuntimeException e) {
+                log.error("Failed to store the poster file_id of event {}: {}", poster.eventId(), e.getMessage());
+            }
+        });
+    }
+
+    private static String fingerprint(String path, Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (!attributes.isRegularFile()) {
+            throw new IOException("not a regular file");
+        }
+        return path + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    /**
+     * A poster ready to send.
+     *
+     * @param source the fingerprint of the file behind {@code input}
+     * @param upload whether {@code input} is the file rather than a file_id
+     */
+    public record Poster(long eventId, String path, String source, InputFile input, boolean upload) {
+    }
+
+    private record Uploaded(String source, String fileId) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.demotelegrambot1.service.metrics;
+
+import com.example.demotelegrambot1.enums.RegistrationState;
+import com.example.demotelegrambot1.service.routing.CallbackAction;
+import com.example.demotelegrambot1.service.routing.ChatCommand;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for update intake, handler latency and the registration funnel.
+ * <p>
+ * Every meter is registered up front and looked up through enum-keyed maps, so recording on the
+ * update path never builds tags or touches the registry.
+ */
+@Component
+@Slf4j
+public class UpdateMetrics {
+
+    private final Counter messages;
+    private final Counter callbacks;
+    private final Counter unsupported;
+
+    private final Map<ChatCommand, Timer> commandTimers = new EnumMap<>(ChatCommand.class);
+    private final Map<RegistrationState, Timer> stepTimers = new EnumMap<>(RegistrationState.class);
+    private final Map<CallbackAction, Timer> callbackTimers = new EnumMap<>(CallbackAction.class);
+
+    private final Map<RegistrationState, Counter> entered = new EnumMap<>(RegistrationState.class);
+    private final Map<RegistrationState, Counter> abandoned = new EnumMap<>(RegistrationState.class);
+
+    /** Milliseconds from JVM start until the first update was handled; -1 until then. */
+    private volatile long firstUpdateMillis = -1;
+
+    public UpdateMetrics(MeterRegistry meterRegistry) {
+        this.messages = received(meterRegistry, "message");
+        this.callbacks = received(meterRegistry, "callback");
+        this.unsupported = received(meterRegistry, "unsupported");
+
+        for (ChatCommand command : ChatCommand.values()) {
+            commandTimers.put(command, handlerTimer(meterRegistry, "command", command.name()));
+        }
+        for (RegistrationState state : RegistrationState.values()) {
+            stepTimers.put(state, handlerTimer(meterRegistry, "step", state.name()));
+            entered.put(state, Counter.builder("bot.registration.funnel")
+                    .description("Registrations that reached a state")
+                    .tag("state", state.name().toLowerCase())
+                    .register(meterRegistry));
+            abandoned.put(state, Counter.builder("bot.registration.abandoned")
+                    .description("Registrations left unfinished in a state by another command")
+                    .tag("state", state.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        for (CallbackAction action : CallbackAction.values()) {
+            callbackTimers.put(action, handlerTimer(meterRegistry, "callback", action.name()));
+        }
+        // Next to Spring's application.ready.time: how long until the bot actually answered someone.
+        TimeGauge.builder("bot.startup.first.update", this, TimeUnit.MILLISECONDS, metrics -> metrics.firstUpdateMillis)
+                .description("Time from JVM start until the first update was handled; -1 before that")
+                .register(meterRegistry);
+    }
+
+    private static Counter received(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("bot.updates.received")
+                .description("Updates taken in from Telegram, before dispatch")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private static Timer handlerTimer(MeterRegistry meterRegistry, String kind, String handler) {
+        return Timer.builder("bot.handler.latency")
+                .description("Time spent in a handler once the chat's session is loaded")
+                .tag("kind", kind)
+                .tag("handler", handler.toLowerCase())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public void messageReceived() {
+        messages.increment();
+    }
+
+    public void callbackReceived() {
+        callbacks.increment();
+    }
+
+    public void unsupportedReceived() {
+        unsupported.increment();
+    }
+
+    /**
+     * Called after every handled update; records the first one.
+     */
+    public void updateHandled() {
+        if (firstUpdateMillis >= 0) {
+            return;
+        }
+        synchronized (this) {
+            if (firstUpdateMillis < 0) {
+                firstUpdateMillis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+                log.info("Handled the first update {} ms after JVM start", firstUpdateMillis);
+            }
+        }
+    }
+
+    public Timer command(ChatCommand command) {
+        return commandTimers.get(command);
+    }
+
+    public Timer step(RegistrationState state) {
+        return stepTimers.get(state);
+    }
+
+    public Timer callback(CallbackAction action) {
+        return callbackTimers.get(action);
+    }
+
+    /**
+     * Counts a registration moving into {@code state}; only actual changes are counted, so a
+     * rejected input that keeps the state is not.
+     */
+    public void registrationEntered(RegistrationState state) {
+        entered.get(state).increment();
+    }
+
+    public void registrationAbandoned(RegistrationState state) {
+        abandoned.get(state).increment();
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.demotelegrambot1.service.reminder;
+
+import com.example.demotelegrambot1.config.ReminderConfig;
+import com.example.demotelegrambot1.enums.RegistrationState;
+import com.example.demotelegrambot1.persistence.listener.EventChangedEvent;
+import com.example.demotelegrambot1.service.catalog.EventCatalog;
+import com.example.demotelegrambot1.service.catalog.EventSnapshot;
+import com.example.demotelegrambot1.service.sender.OutboundMessageSender;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.demotelegrambot1.service.render.MessageTemplates.reminderMessage;
+
+/**
+ * Reminds every team with a completed registration {@code bot.reminders.lead-time} before its event
+ * starts.
+ * <p>
+ * Pending reminders live in a {@link TimingWheel} owned by a single worker thread, so tens of
+ * thousands of them cost one slot visit per tick rather than a timer or a query each. The wheel only
+ * holds reminders due within {@code bot.reminders.load-horizon}: every {@code load-interval} the
+ * worker reads the registrations of events starting within the window by keyset and adds those not
+ * scheduled yet, so rows written outside the bot are picked up too. Completed registrations and
+ * events rescheduled through JPA are added right away.
+ * <p>
+ * A reminder is claimed by setting {@code user_event.reminder_sent_at} with a conditional update that
+ * also checks the event still starts when the reminder was scheduled for, and only then queued. After
+ * a restart the first load picks up every unclaimed reminder of events that have not started yet, so
+ * reminders that fell due while the bot was down go out late instead of never, and none goes out twice.
+ */
+@Component
+@Slf4j
+public class ReminderScheduler {
+
+    private static final String DUE_REGISTRATIONS = "SELECT ue.id, ue.user_id, e.id, e.starts_at "
+            + "FROM event e JOIN user_event ue ON ue.event_id = e.id "
+            + "WHERE e.starts_at > ? AND e.starts_at <= ? AND ue.registration_state = ? "
+            + "AND ue.reminder_sent_at IS NULL AND ue.id > ? ";
+
+    /** Reminders carry the start in milliseconds, the column has microseconds: it must fall into that millisecond. */
+    private static final String CLAIM = "UPDATE user_event SET reminder_sent_at = CURRENT_TIMESTAMP "
+            + "WHERE id = ? AND reminder_sent_at IS NULL AND registration_state = ? "
+            + "AND EXISTS (SELECT 1 FROM event e WHERE e.id = user_event.event_id AND e.starts_at >= ? AND e.starts_at < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EventCatalog eventCatalog;
+    private final OutboundMessageSender outboundSender;
+    private final ReminderConfig config;
+    private final ScheduledExecutorService worker;
+
+    // Touched by the worker only.
+    private final TimingWheel<Reminder> wheel;
+    private final ArrayDeque<Reminder> due = new ArrayDeque<>();
+    /**
+     * Event start per registration in the wheel or due, until claimed; wheel entries for an older
+     * start are dropped when they expire.
+     */
+    private final Map<Long, Long> scheduled = new HashMap<>();
+    /** Events starting up to this epoch millisecond are loaded; 0 before the first load. */
+    private long loadedUntil;
+    private double allowance;
+    private long lastRefill = System.nanoTime();
+
+    private volatile int pending;
+    private final Counter sent;
+    private final Counter skipped;
+
+    public ReminderScheduler(JdbcTemplate jdbcTemplate, EventCatalog eventCatalog, OutboundMessageSender outboundSender,
+                             ReminderConfig config, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventCatalog = eventCatalog;
+        this.outboundSender = outboundSender;
+        this.config = config;
+        this.wheel = new TimingWheel<>(config.getTick().toMillis(), config.getWheelSize(), System.currentTimeMillis());
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminder-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("bot.reminders.pending", this, scheduler -> scheduler.pending)
+                .description("Reminders loaded into the wheel or due and waiting for the sender")
+                .register(meterRegistry);
+        this.sent = Counter.builder("bot.reminders.processed")
+                .tag("result", "sent")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("bot.reminders.processed")
+                .description("Reminders dropped at claim time: already sent, registration changed or event rescheduled")
+                .tag("result", "skipped")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long tick = config.getTick().toMillis();
+        long loadInterval = config.getLoadInterval().toMillis();
+        worker.scheduleWithFixedDelay(() -> safely("load", this::loadWindow), 0, loadInterval, TimeUnit.MILLISECONDS);
+        worker.scheduleWithFixedDelay(() -> safely("tick", this::tick), tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds the reminder of a just completed registration if its event falls into the loaded window;
+     * later ones are picked up by a future load.
+     */
+    public void registrationCompleted(long registrationId, long chatId, long eventId) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        worker.execute(() -> safely("schedule", () -> {
+            Optional<EventSnapshot> event = eventCatalog.findById(eventId);
+            if (event.isEmpty() || event.get().startsAt() == null) {
+                return;
+            }
+            long startsAt = event.get().startsAt().toEpochMilli();
+            if (startsAt > System.currentTimeMillis() && startsAt <= loadedUntil) {
+                schedule(new Reminder(registrationId, chatId, eventId, startsAt));
+            }
+        }));
+    }
+
+    /**
+     * Reloads an event's registrations after a committed change, which may have moved its start
+     * into the loaded window.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent event) {
+        if (!config.isEnabled() || event.eventId() == null) {
+            return;
+        }
+        worker.execute(() -> safely("reload", () -> reloadEvent(event.eventId())));
+    }
+
+    private void loadWindow() {
+        long now = System.currentTimeMillis();
+        long until = now + config.getLeadTime().toMillis() + config.getLoadHorizon().toMillis();
+        int loaded = load("", List.of(), now, until);
+        loadedUntil = until;
+        if (loaded > 0) {
+            log.info("Loaded {} reminders for events starting until {}", loaded, Instant.ofEpochMilli(until));
+        }
+        pending = scheduled.size() + due.size();
+    }
+
+    private void reloadEvent(long eventId) {
+        long now = System.currentTimeMillis();
+        if (loadedUntil <= now) {
+            return;
+        }
+        int loaded = load("AND e.id = ? ", List.of(eventId), now, loadedUntil);
+        if (loaded > 0) {
+            log.info("Event {} changed, loaded {} reminders", eventId, loaded);
+        }
+    }
+
+    /**
+     * Schedules the unclaimed reminders of events starting in {@code (from, until]} that are not in
+     * the wheel yet, reading registrations in keyset pages.
+     *
+     * @return number of reminders newly scheduled
+     */
+    private int load(String filter, List<Object> filterArgs, long from, long until) {
+        String sql = DUE_REGISTRATIONS + filter + "ORDER BY ue.id LIMIT ?";
+        int loaded = 0;
+        long lastId = 0;
+        while (true) {
+            List<Object> args = new ArrayList<>(List.of(new Timestamp(from), new Timestamp(until),
+                    RegistrationState.COMPLETED_REGISTRATION.ordinal(), lastId));
+            args.addAll(filterArgs);
+            args.add(config.getPageSize());
+            List<Reminder> page = jdbcTemplate.query(sql,
+                    (rs, row) -> new Reminder(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getTimestamp(4).getTime()),
+                    args.toArray());
+            for (Reminder reminder : page) {
+                if (schedule(reminder)) {
+                    loaded++;
+                }
+            }
+            if (page.size() < config.getPageSize()) {
+                return loaded;
+            }
+            lastId = page.get(page.size() - 1).registrationId();
+        }
+    }
+
+    /**
+     * @return {@code false} if the reminder is already scheduled for the same start
+     */
+    private boolean schedule(Reminder reminder) {
+        Long previous = scheduled.put(reminder.registrationId(), reminder.startsAt());
+        if (previous != null && previous == reminder.startsAt()) {
+            return false;
+        }
+        wheel.schedule(reminder.startsAt() - config.getLeadTime().toMillis(), reminder);
+        return true;
+    }
+
+    private void expired(Reminder reminder) {
+        // A reminder rescheduled for another start left its old entry behind in the wheel.
+        if (Long.valueOf(reminder.startsAt()).equals(scheduled.get(reminder.registrationId()))) {
+            due.add(reminder);
+        }
+    }
+
+    private void tick() {
+        wheel.advance(System.currentTimeMillis(), this::expired);
+
+        long now = System.nanoTime();
+        allowance = Math.min(config.getRatePerSecond(),
+                allowance + (now - lastRefill) / 1_000_000_000d * config.getRatePerSecond());
+        lastRefill = now;
+        int budget = (int) Math.min(allowance, due.size());
+        if (budget > 0 && outboundSender.pendingCalls() <= config.getMaxPendingOutbound()) {
+            List<Reminder> batch = new ArrayList<>(budget);
+            for (int i = 0; i < budget; i++) {
+                batch.add(due.poll());
+            }
+            allowance -= send(batch);
+        }
+        pending = scheduled.size() + due.size();
+    }
+
+    /**
+     * Claims the reminders and queues a message for each one claimed.
+     *
+     * @return number of messages queued
+     */
+    private int send(List<Reminder> batch) {
+        int[] claimed;
+        try {
+            claimed = jdbcTemplate.batchUpdate(CLAIM, batch, batch.size(), (statement, reminder) -> {
+                statement.setLong(1, reminder.registrationId());
+                statement.setInt(2, RegistrationState.COMPLETED_REGISTRATION.ordinal());
+                statement.setTimestamp(3, new Timestamp(reminder.startsAt()));
+                statement.setTimestamp(4, new Timestamp(reminder.startsAt() + 1));
+            })[0];
+        } catch (RuntimeException e) {
+            // The batch is still in scheduled, so no load would add it again: the next tick retries it.
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                due.addFirst(batch.get(i));
+            }
+            throw e;
+        }
+        int queued = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Reminder reminder = batch.get(i);
+            scheduled.remove(reminder.registrationId(), reminder.startsAt());
+            Optional<EventSnapshot> event = eventCatalog.findById(reminder.eventId());
+            if (claimed[i] == 0 || event.isEmpty()) {
+                skipped.increment();
+                continue;
+            }
+            SendMessage message = new SendMessage();
+            message.setChatId(reminder.chatId());
+            // Reminders that fell due while the bot was down go out late; tell the actual time left.
+            Duration startsIn = Duration.ofMillis(Math.max(0, reminder.startsAt() - System.currentTimeMillis()));
+            message.setText(reminderMessage(event.get().title(), startsIn, event.get().date(), event.get().location()));
+            outboundSender.enqueue(reminder.chatId(), message);
+            sent.increment();
+            queued++;
+        }
+        return queued;
+    }
+
+    private void safely(String task, Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (RuntimeException e) {
+            log.error("Reminder {} failed: {}", task, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private record Reminder(long registrationId, long chatId, long eventId, long startsAt) {
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demotelegrambot1.service.reminder;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: each level is a ring of slots {@code tick} wide, and a timer too far out
+ * for a level goes to the next, {@code size} times coarser one. When a level wraps around, the
+ * coarser level's current slot is cascaded down, so every timer is moved at most once per level.
+ * Scheduling is O(1) and advancing costs one slot visit per elapsed tick, however many timers are
+ * pending.
+ * <p>
+ * Times are plain {@code long}s in any unit, e.g. epoch milliseconds. Not thread-safe: the owner
+ * schedules and advances from a single thread.
+ */
+final class TimingWheel<T> {
+
+    private final long tick;
+    private final int size;
+    private final ArrayDeque<Timer<T>>[] slots;
+    /** Start of the current slot, a multiple of {@link #tick}. */
+    private long time;
+    private TimingWheel<T> overflow;
+    private int pending;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tick, int size, long now) {
+        if (tick <= 0 || size < 2) {
+            throw new IllegalArgumentException("tick must be positive and size at least 2");
+        }
+        this.tick = tick;
+        this.size = size;
+        this.slots = new ArrayDeque[size];
+        this.time = now - Math.floorMod(now, tick);
+    }
+
+    /**
+     * Schedules {@code item} to expire at {@code deadline}. A deadline in the past expires on the
+     * next {@link #advance(long, Consumer)}.
+     */
+    void schedule(long deadline, T item) {
+        place(new Timer<>(deadline, item));
+        pending++;
+    }
+
+    /**
+     * Moves the wheel to {@code now} and hands every timer whose deadline is not after {@code now}
+     * to {@code expired}, roughly in deadline order (timers within one tick in no particular order).
+     */
+    void advance(long now, Consumer<T> expired) {
+        drainCurrent(now, expired);
+        while (time + tick <= now) {
+            time += tick;
+            if (index(time) == 0 && overflow != null) {
+                overflow.cascade(time, this);
+            }
+            drainCurrent(now, expired);
+        }
+    }
+
+    /**
+     * Number of timers not yet expired, on all levels.
+     */
+    int pending() {
+        return pending;
+    }
+
+    private void drainCurrent(long now, Consumer<T> expired) {
+        ArrayDeque<Timer<T>> slot = slots[index(time)];
+        if (slot == null || slot.isEmpty()) {
+            return;
+        }
+        // Timers of the current slot that are due later in the tick stay for the next call.
+        for (int n = slot.size(); n > 0; n--) {
+            Timer<T> timer = slot.poll();
+            if (timer.deadline <= now) {
+                pending--;
+                expired.accept(timer.item);
+            } else {
+                slot.add(timer);
+            }
+        }
+    }
+
+    private void place(Timer<T> timer) {
+        if (timer.deadline < time + tick) {
+            slot(index(time)).add(timer);
+        } else if (timer.deadline - time < tick * size) {
+            slot(index(timer.deadline)).add(timer);
+        } else {
+            overflow().place(timer);
+        }
+    }
+
+    /**
+     * Moves this level to {@code at}, the start of the finer level's new round, and hands the
+     * timers of the slot now current to {@code finer}.
+     */
+    private void cascade(long at, TimingWheel<T> finer) {
+        time = at;
+        if (index(time) == 0 && overflow != null) {
+            overflow.cascade(time, this);
+        }
+        ArrayDeque<Timer<T>> slot = slots[index(time)];
+        if (slot == null) {
+            return;
+        }
+        for (Timer<T> timer = slot.poll(); timer != null; timer = slot.poll()) {
+            finer.place(timer);
+        }
+    }
+
+    private TimingWheel<T> overflow() {
+        if (overflow == null) {
+            overflow = new TimingWheel<>(tick * size, size, time);
+        }
+        return overflow;
+    }
+
+    private ArrayDeque<Timer<T>> slot(int index) {
+        ArrayDeque<Timer<T>> slot = slots[index];
+        if (slot == null) {
+            slot = new ArrayDeque<>();
+            slots[index] = slot;
+        }
+        return slot;
+    }
+
+    private int index(long at) {
+        return (int) Math.floorMod(Math.floorDiv(at, tick), (long) size);
+    }
+
+    private record Timer<T>(long deadline, T item) {
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.demotelegrambot1.service.render;
+
+import com.example.demotelegrambot1.config.CatalogConfig;
+import com.example.demotelegrambot1.service.catalog.CatalogSnapshot;
+import com.example.demotelegrambot1.service.catalog.EventCatalog;
+import com.example.demotelegrambot1.service.catalog.EventQuery;
+import com.example.demotelegrambot1.service.catalog.EventSnapshot;
+import com.example.demotelegrambot1.service.routing.CallbackAction;
+import com.example.demotelegrambot1.service.routing.CallbackCodec;
+import com.vdurmont.emoji.EmojiParser;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.example.demotelegrambot1.service.routing.CallbackCodec.NO_ID;
+
+/**
+ * Renders event list pages and detail cards. Detail cards and the first page of all events are
+ * rendered once per catalog version and handed out from the cache; filtered pages are rendered on
+ * demand from the catalog's in-memory search, without a database query.
+ * <p>
+ * Pages are keyset-paginated by event ID, so a page stays stable while events are added or removed
+ * elsewhere in the list.
+ */
+@Component
+public class EventViewRenderer {
+
+    /**
+     * IDs of {@link CallbackAction#FILTER_EVENTS} buttons. Category buttons carry
+     * {@code CATEGORY_FILTER} plus a hash of the category, not its position in
+     * {@link CatalogSnapshot#categories()}, so a button sent earlier still means its category after
+     * others were added or removed.
+     */
+    private static final long CLEAR_FILTERS = 0;
+    private static final long NEXT_7_DAYS = 1;
+    private static final long NEXT_30_DAYS = 2;
+    private static final long CATEGORY_FILTER = 16;
+    private static final int CATEGORY_HASH_MASK = 0x3fffffff;
+
+    /** Telegram's limit for photo captions; longer cards are sent as text without the poster. */
+    private static final int MAX_CAPTION_LENGTH = 1024;
+
+    private static final int BUTTONS_PER_ROW = 5;
+    private static final int CATEGORIES_PER_ROW = 3;
+
+    private final EventCatalog eventCatalog;
+    private final CatalogConfig config;
+
+    private volatile RenderedCatalog rendered;
+
+    public EventViewRenderer(EventCatalog eventCatalog, CatalogConfig config) {
+        this.eventCatalog = eventCatalog;
+        this.config = config;
+    }
+
+    /**
+     * First page of all events.
+     */
+    public RenderedView eventList() {
+        return current().eventList();
+    }
+
+    /**
+     * Renders the page of events matching {@code query} that starts after {@code afterId} or ends
+     * before {@code beforeId}; the first page if both are {@link CallbackCodec#NO_ID}.
+     */
+    public RenderedView eventPage(EventQuery query, long afterId, long beforeId) {
+        if (query.isAll() && afterId == NO_ID && beforeId == NO_ID) {
+            return eventList();
+        }
+        return renderPage(eventCatalog.current(), query, afterId, beforeId);
+    }
+
+    /**
+     * Applies the filter of a {@link CallbackAction#FILTER_EVENTS} button: a second tap on an active
+     * filter switches it off again.
+     */
+    public EventQuery applyFilter(EventQuery query, long filterId) {
+        if (filterId == CLEAR_FILTERS) {
+            return EventQuery.ALL;
+        }
+        if (filterId == NEXT_7_DAYS || filterId == NEXT_30_DAYS) {
+            EventQuery.Dates dates = filterId == NEXT_7_DAYS ? EventQuery.Dates.NEXT_7_DAYS : EventQuery.Dates.NEXT_30_DAYS;
+            return query.withDates(query.dates() == dates ? EventQuery.Dates.ANY : dates);
+        }
+        for (String category : eventCatalog.current().categories()) {
+            if (categoryFilter(category) == filterId) {
+                return query.withCategory(category.equalsIgnoreCase(query.category()) ? null : category);
+            }
+        }
+        // The category is gone since the button was sent; the list is shown again with current buttons.
+        return query;
+    }
+
+    public Optional<RenderedView> eventDetails(long eventId) {
+        return current().details(eventId);
+    }
+
+    public RenderedCatalog current() {
+        CatalogSnapshot snapshot = eventCatalog.current();
+        RenderedCatalog current = rendered;
+        if (current == null || current.version() != snapshot.version()) {
+            // Concurrent renders of the same version are harmless, the last one wins.
+            current = render(snapshot);
+            rendered = current;
+        }
+        return current;
+    }
+
+    private RenderedCatalog render(CatalogSnapshot snapshot) {
+        List<EventSnapshot> events = snapshot.events();
+        Map<Long, RenderedView> details = new HashMap<>();
+        for (EventSnapshot event : events) {
+            String text = buildEventDetails(event);
+            boolean posterCaption = event.posterPath() != null && text.length() <= MAX_CAPTION_LENGTH;
+            details.put(event.id(), new RenderedView(text, createInlineKeyboardMarkupForRegistration(event.id(), posterCaption), posterCaption));
+        }
+        RenderedView eventList = renderPage(snapshot, EventQuery.ALL, NO_ID, NO_ID);
+        return new RenderedCatalog(snapshot.version(), eventList, Map.copyOf(details));
+    }
+
+    private RenderedView renderPage(CatalogSnapshot snapshot, EventQuery query, long afterId, long beforeId) {
+        List<EventSnapshot> matches = snapshot.search(query, Instant.now());
+        int pageSize = config.getPageSize();
+        int from = 0;
+        if (afterId != NO_ID) {
+            from = firstAfter(matches, afterId);
+        } else if (beforeId != NO_ID) {
+            from = Math.max(0, firstAfter(matches, beforeId - 1) - pageSize);
+        }
+        if (from >= matches.size()) {
+            // The page's events were removed in the meantime.
+            from = Math.max(0, matches.size() - pageSize);
+        }
+        List<EventSnapshot> page = matches.subList(from, Math.min(matches.size(), from + pageSize));
+        return new RenderedView(buildEventsMessage(query, page, from, matches.size()),
+                createInlineKeyboardMarkupForEvents(snapshot, query, page, from, matches.size()));
+    }
+
+    /**
+     * @return index of the first event with an ID above {@code eventId}; events are ordered by ID
+     */
+    private static int firstAfter(List<EventSnapshot> events, long eventId) {
+        int low = 0;
+        int high = events.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (events.get(middle).id() <= eventId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private String buildEventsMessage(EventQuery query, List<EventSnapshot> page, int from, int total) {
+        if (total == 0) {
+            return query.isAll() ? "There are no upcoming events yet."
+                    : "No events found" + describe(query) + ". Send /events to see them all.";
+        }
+        StringBuilder sb = new StringBuilder(query.isAll() ? "Here are the upcoming events" : "Events" + describe(query))
+                .append(":\n");
+        int number = from + 1;
+        for (EventSnapshot event : page) {
+            sb.append(number++).append(". ").append(event.title());
+            if (event.date() != null) {
+                sb.append(" — ").append(event.date());
+            }
+            sb.append("\n");
+        }
+        if (page.size() < total) {
+            sb.append("\nShowing ").append(from + 1).append("–").append(from + page.size())
+                    .append(" of ").append(total).append(".\n");
+        }
+        return sb.toString();
+    }
+
+    private static String describe(EventQuery query) {
+        StringBuilder sb = new StringBuilder();
+        if (query.text() != null) {
+            sb.append(" matching “").append(query.text()).append("”");
+        }
+        if (query.category() != null) {
+            sb.append(" in category ").append(query.category());
+        }
+        switch (query.dates()) {
+            case NEXT_7_DAYS -> sb.append(" in the next 7 days");
+            case NEXT_30_DAYS -> sb.append(" in the next 30 days");
+            default -> {
+            }
+        }
+        return sb.toString();
+    }
+
+    private String buildEventDetails(EventSnapshot event) {
+        String details = EmojiParser.parseToUnicode(String.format(
+                """
+                        *%s*
+
+                        📅 Date: %s
+                        📍 Location: %s
+                        📝 %s
+                        """,
+                event.title(),
+                event.date(),
+                event.location(),
+                event.description()
+        ));
+        if (event.capacity() != null) {
+            details += "👥 Seats: " + event.capacity() + "\n";
+        }
+        return details;
+    }
+
+    private InlineKeyboardMarkup createInlineKeyboardMarkupForEvents(CatalogSnapshot snapshot, EventQuery query,
+                                                                    List<EventSnapshot> page, int from, int total) {
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
+        List<InlineKeyboardButton> row = new ArrayList<>();
+        for (int i = 0; i < page.size(); i++) {
+            if (row.size() == BUTTONS_PER_ROW) {
+                rows.add(List.copyOf(row));
+                row.clear();
+            }
+            row.add(button(String.valueOf(from + i + 1), CallbackCodec.encode(CallbackAction.SHOW_EVENT, page.get(i).id())));
+        }
+        addRow(rows, row);
+
+        if (from > 0) {
+            row.add(button("◀ Previous", CallbackCodec.encode(CallbackAction.EVENTS_BEFORE, page.get(0).id())));
+        }
+        if (from + page.size() < total) {
+            row.add(button("Next ▶", CallbackCodec.encode(CallbackAction.EVENTS_AFTER, page.get(page.size() - 1).id())));
+        }
+        addRow(rows, row);
+
+        row.add(filterButton("Next 7 days", query.dates() == EventQuery.Dates.NEXT_7_DAYS, NEXT_7_DAYS));
+        row.add(filterButton("Next 30 days", query.dates() == EventQuery.Dates.NEXT_30_DAYS, NEXT_30_DAYS));
+        addRow(rows, row);
+
+        List<String> categories = snapshot.categories();
+        for (int i = 0; i < Math.min(categories.size(), config.getCategoryButtons()); i++) {
+            if (row.size() == CATEGORIES_PER_ROW) {
+                addRow(rows, row);
+            }
+            String category = categories.get(i);
+            row.add(filterButton(category, category.equalsIgnoreCase(query.category()), categoryFilter(category)));
+        }
+        addRow(rows, row);
+
+        if (!query.isAll()) {
+            row.add(button("Show all events", CallbackCodec.encode(CallbackAction.FILTER_EVENTS, CLEAR_FILTERS)));
+            addRow(rows, row);
+        }
+        return new InlineKeyboardMarkup(List.copyOf(rows));
+    }
+
+    private static void addRow(List<List<InlineKeyboardButton>> rows, List<InlineKeyboardButton> row) {
+        if (!row.isEmpty()) {
+            rows.add(List.copyOf(row));
+            row.clear();
+        }
+    }
+
+    /**
+     * Hashes the category ignoring case, like {@link CatalogSnapshot#categories()} tells them apart. Should
+     * two categories share one of the 2^30 hashes, a tap on either applies the first.
+     */
+    private static long categoryFilter(String category) {
+        return CATEGORY_FILTER + (category.toLowerCase(Locale.ROOT).hashCode() & CATEGORY_HASH_MASK);
+    }
+
+    private InlineKeyboardButton filterButton(String text, boolean active, long filterId) {
+        return button(active ? "✓ " + text : text, CallbackCodec.encode(CallbackAction.FILTER_EVENTS, filterId));
+    }
+
+    private InlineKeyboardMarkup createInlineKeyboardMarkupForRegistration(long eventId, boolean posterCaption) {
+        return new InlineKeyboardMarkup(List.of(List.of(
+                button("Register", CallbackCodec.encode(CallbackAction.REGISTER, eventId)),
+                button("Back", CallbackCodec.encode(posterCaption ? CallbackAction.CLOSE_POSTER : CallbackAction.BACK_TO_EVENTS))
+        )));
+    }
+
+    private InlineKeyboardButton button(String text, String callbackData) {
+        InlineKeyboardButton button = new InlineKeyboardButton();
+        button.setText(text);
+        button.setCallbackData(callbackData);
+        return button;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.demotelegrambot1.service.render;
+
+import com.example.demotelegrambot1.enums.RegistrationState;
+import com.vdurmont.emoji.EmojiParser;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardRow;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Static bot texts and keyboards, emoji-parsed once at class initialization.
+ */
+public final class MessageTemplates {
+
+    public static final String HELP_MESSAGE = EmojiParser.parseToUnicode(
+            """
+                    Welcome to the Telegram Bot! :robot_face:
+                    
+                    Here are some commands you can use:
+                    /start - Start the bot
+                    /events - List current events
+                    /events <words> - Search events by name, place or description
+                    /help - Show this help message
+                    
+                    Feel free to ask me anything! :smiley:
+                    """
+    );
+
+    public static final String DEFAULT_MESSAGE = EmojiParser.parseToUnicode(
+            "Sorry, I didn't understand that command :confused:. Type /help for assistance.");
+
+    public static final String REGISTRATION_COMPLETED = EmojiParser.parseToUnicode(
+            "✅ Registration completed successfully! :tada:");
+
+    public static final String REGISTRATION_WAITLISTED = EmojiParser.parseToUnicode(
+            "🕒 The event is full, so your team is on the waitlist. We'll message you as soon as a seat opens up.");
+
+    public static final String EVENT_FULL_NOTICE =
+            "This event is currently full. You can still register and your team will join the waitlist.";
+
+    public static final String EVENT_NOT_FOUND = "Event not found.";
+
+    public static final String EXPORT_USAGE = "Usage: /export <event id> [csv|json]";
+
+    public static final String EXPORT_FAILED = "❌ The export failed, please try again later.";
+
+    public static final String BROADCAST_USAGE = "Usage: /broadcast <event id> <message to every registered team>";
+
+    public static final String STATS_USAGE = "Usage: /stats [event id|rebuild]";
+
+    public static final String STATS_REBUILD_STARTED = "📊 Recounting registrations, /stats shows the new numbers in a moment.";
+
+    private static final String START_SUFFIX = EmojiParser.parseToUnicode("! How can I assist you today? :wave:");
+
+    public static final ReplyKeyboardMarkup MAIN_MENU = createMainMenu();
+
+    private MessageTemplates() {
+    }
+
+    public static String startMessage(String name) {
+        return "Hello, " + name + START_SUFFIX;
+    }
+
+    public static String seatConfirmedMessage(String eventTitle) {
+        return EmojiParser.parseToUnicode("🎉 A seat opened up for " + eventTitle + ", your registration is now confirmed!");
+    }
+
+    public static String exportCaption(String eventTitle, int teams) {
+        return "📄 " + eventTitle + ": " + teams + (teams == 1 ? " registered team" : " registered teams");
+    }
+
+    public static String broadcastMessage(String eventTitle, String text) {
+        return "📣 " + eventTitle + "\n\n" + text;
+    }
+
+    public static String broadcastStarted(long broadcastId, int recipients) {
+        return "📣 Broadcast #" + broadcastId + " to " + recipients
+                + (recipients == 1 ? " team" : " teams") + " started. I'll report back once it's done.";
+    }
+
+    public static String broadcastReport(long broadcastId, int delivered, int failed) {
+        return "📣 Broadcast #" + broadcastId + " finished: " + delivered + " delivered, " + failed + " failed.";
+    }
+
+    /**
+     * @param byState registrations per {@link RegistrationState}, indexed by ordinal
+     */
+    public static String statsLine(long eventId, String eventTitle, long[] byState) {
+        return "#" + eventId + " " + eventTitle + ": "
+                + byState[RegistrationState.COMPLETED_REGISTRATION.ordinal()] + " completed, "
+                + byState[RegistrationState.AWAITING_CONTACT_PHONE.ordinal()] + " at phone, "
+                + byState[RegistrationState.AWAITING_TEAM_NAME.ordinal()] + " at team name, "
+                + byState[RegistrationState.AWAITING_TEAM_MEMBERS.ordinal()] + " at members";
+    }
+
+    /**
+     * @param omitted events left out of the list
+     */
+    public static String statsMessage(List<String> lines, int omitted) {
+        if (lines.isEmpty()) {
+            return "📊 No events yet.";
+        }
+        StringBuilder text = new StringBuilder("📊 Registrations\n");
+        lines.forEach(line -> text.append('\n').append(line));
+        if (omitted > 0) {
+            text.append("\n\n…and ").append(omitted).append(" more, see /stats <event id>");
+        }
+        return text.toString();
+    }
+
+    /**
+     * @param startsIn time left until the event, shown in whole hours from two hours up and in
+     *                 minutes below
+     */
+    public static String reminderMessage(String eventTitle, Duration startsIn, String date, String location) {
+        long minutes = startsIn.plusSeconds(30).toMinutes();
+        String in = minutes >= 120
+                ? (minutes + 30) / 60 + " hours"
+                : minutes + (minutes == 1 ? " minute" : " minutes");
+        StringBuilder text = new StringBuilder("⏰ Reminder: ").append(eventTitle).append(" starts in ").append(in).append('.');
+        if (date != null) {
+            text.append("\n📅 ").append(date);
+        }
+        if (location != null) {
+            text.append("\n📍 ").append(location);
+        }
+        return text.toString();
+    }
+
+    private static ReplyKeyboardMarkup createMainMenu() {
+        KeyboardRow row = new KeyboardRow();
+        row.addAll(List.of("/events", "/help", "/start"));
+
+        ReplyKeyboardMarkup keyboardMarkup = new ReplyKeyboardMarkup();
+        keyboardMarkup.setKeyboard(List.of(row));
+        keyboardMarkup.setResizeKeyboard(true);
+        return keyboardMarkup;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demotelegrambot1.service.render;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * All catalog views rendered for one catalog version.
+ */
+public record RenderedCatalog(long version, RenderedView eventList, Map<Long, RenderedView> eventDetails) {
+
+    public Optional<RenderedView> details(long eventId) {
+        return Optional.ofNullable(eventDetails.get(eventId));
+    }
+}
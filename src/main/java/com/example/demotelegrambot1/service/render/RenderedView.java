@@ -0,0 +1,17 @@
+package com.example.demotelegrambot1.service.render;
+
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+
+/**
+ * Pre-rendered message text with its inline keyboard.
+ * <p>
+ * Views are shared between chats and outbound calls, so the keyboard must never be mutated.
+ *
+ * @param posterCaption whether the text is the caption of the event's poster rather than a message
+ */
+public record RenderedView(String text, InlineKeyboardMarkup keyboard, boolean posterCaption) {
+
+    public RenderedView(String text, InlineKeyboardMarkup keyboard) {
+        this(text, keyboard, false);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demotelegrambot1.service.routing;
+
+/**
+ * Inline button actions. The prefix is the first character of the encoded callback data and must
+ * not be a lowercase letter, which is how legacy callback data starts.
+ */
+public enum CallbackAction {
+    SHOW_EVENT('E', true),
+    REGISTER('R', true),
+    BACK_TO_EVENTS('B', false),
+    /**
+     * Next page of the chat's event query, after the event with the given ID.
+     */
+    EVENTS_AFTER('N', true),
+    /**
+     * Previous page of the chat's event query, before the event with the given ID.
+     */
+    EVENTS_BEFORE('P', true),
+    /**
+     * Toggles a filter of the chat's event query, see {@link com.example.demotelegrambot1.service.render.EventViewRenderer}.
+     */
+    FILTER_EVENTS('F', true),
+    /**
+     * Back from a poster card. A photo message cannot be edited into the text list, so the card is
+     * deleted and the list sent again.
+     */
+    CLOSE_POSTER('C', false);
+
+    private final char prefix;
+    private final boolean hasId;
+
+    CallbackAction(char prefix, boolean hasId) {
+        this.prefix = prefix;
+        this.hasId = hasId;
+    }
+
+    public char prefix() {
+        return prefix;
+    }
+
+    public boolean hasId() {
+        return hasId;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demotelegrambot1.service.routing;
+
+import java.util.Arrays;
+
+/**
+ * Compact callback data: one prefix character naming the {@link CallbackAction}, followed by the ID
+ * as a varint of 5 bits per character. Event 1234 encodes to {@code "EOC1"} instead of
+ * {@code "register_event_1234"}, and decoding is a table lookup per character with no regex, split
+ * or substring.
+ * <p>
+ * Buttons on messages sent before the switch still carry the legacy {@code event_N},
+ * {@code register_event_N} and {@code back_to_events} data, so those are decoded too.
+ */
+public final class CallbackCodec {
+
+    /**
+     * Digit values 0-31 mean "last digit", 32-63 mean "more digits follow". All characters are URL-safe.
+     */
+    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ-_";
+    private static final byte[] DIGITS = new byte[128];
+    private static final CallbackAction[] ACTIONS = new CallbackAction[128];
+
+    private static final String LEGACY_SHOW_EVENT = "event_";
+    private static final String LEGACY_REGISTER = "register_event_";
+    private static final String LEGACY_BACK = "back_to_events";
+
+    public static final long NO_ID = -1;
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            DIGITS[ALPHABET.charAt(i)] = (byte) i;
+        }
+        for (CallbackAction action : CallbackAction.values()) {
+            ACTIONS[action.prefix()] = action;
+        }
+    }
+
+    private CallbackCodec() {
+    }
+
+    public static String encode(CallbackAction action) {
+        return String.valueOf(action.prefix());
+    }
+
+    public static String encode(CallbackAction action, long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Callback IDs must not be negative: " + id);
+        }
+        char[] buffer = new char[14];
+        buffer[0] = action.prefix();
+        int length = 1;
+        long remaining = id;
+        do {
+            int digit = (int) (remaining & 31);
+            remaining >>>= 5;
+            buffer[length++] = ALPHABET.charAt(remaining != 0 ? digit | 32 : digit);
+        } while (remaining != 0);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * @return the action, or {@code null} if the data is not recognized
+     */
+    public static CallbackAction action(String data) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        char first = data.charAt(0);
+        if (first < ACTIONS.length && ACTIONS[first] != null) {
+            return ACTIONS[first];
+        }
+        if (data.startsWith(LEGACY_REGISTER)) {
+            return CallbackAction.REGISTER;
+        }
+        if (data.startsWith(LEGACY_SHOW_EVENT)) {
+            return CallbackAction.SHOW_EVENT;
+        }
+        if (data.equals(LEGACY_BACK)) {
+            return CallbackAction.BACK_TO_EVENTS;
+        }
+        return null;
+    }
+
+    /**
+     * Decodes the ID of data whose {@link #action} has one.
+     *
+     * @return the ID, or {@link #NO_ID} if it is missing or malformed
+     */
+    public static long id(String data, CallbackAction action) {
+        if (data.charAt(0) == action.prefix()) {
+            return decodeVarint(data);
+        }
+        int start = action == CallbackAction.REGISTER ? LEGACY_REGISTER.length() : LEGACY_SHOW_EVENT.length();
+        return parseDecimal(data, start);
+    }
+
+    private static long decodeVarint(String data) {
+        long value = 0;
+        int shift = 0;
+        for (int i = 1; i < data.length() && shift < 64; i++, shift += 5) {
+            char c = data.charAt(i);
+            int digit = c < DIGITS.length ? DIGITS[c] : -1;
+            if (digit < 0) {
+                return NO_ID;
+            }
+            value |= (long) (digit & 31) << shift;
+            if (digit < 32) {
+                return i == data.length() - 1 ? value : NO_ID;
+            }
+        }
+        return NO_ID;
+    }
+
+    private static long parseDecimal(String data, int start) {
+        if (start >= data.length() || data.length() - start > 18) {
+            return NO_ID;
+        }
+        long value = 0;
+        for (int i = start; i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_ID;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demotelegrambot1.service.routing;
+
+import com.example.demotelegrambot1.service.session.ChatSession;
+
+@FunctionalInterface
+public interface CallbackHandler {
+
+    /**
+     * @param id decoded ID of the callback data, or {@link CallbackCodec#NO_ID} for actions without one
+     */
+    void handle(long chatId, long id, int messageId, ChatSession session);
+}
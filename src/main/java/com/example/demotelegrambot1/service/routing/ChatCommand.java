@@ -0,0 +1,85 @@
+package com.example.demotelegrambot1.service.routing;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Slash commands the bot understands.
+ */
+public enum ChatCommand {
+    START("/start"),
+    HELP("/help"),
+    /**
+     * {@code /events [search words]}.
+     */
+    EVENTS("/events"),
+    /**
+     * Organizers only: {@code /export <event id> [csv|json]}.
+     */
+    EXPORT("/export"),
+    /**
+     * Organizers only: {@code /broadcast <event id> <text>}.
+     */
+    BROADCAST("/broadcast"),
+    /**
+     * Organizers only: {@code /stats [event id|rebuild]}.
+     */
+    STATS("/stats");
+
+    private static final Map<String, ChatCommand> BY_TEXT = new HashMap<>();
+
+    static {
+        for (ChatCommand command : values()) {
+            BY_TEXT.put(command.text, command);
+        }
+    }
+
+    private final String text;
+
+    ChatCommand(String text) {
+        this.text = text;
+    }
+
+    public String text() {
+        return text;
+    }
+
+    /**
+     * @return the command the message starts with, followed by nothing or by whitespace-separated
+     * arguments, or {@code null} for any other text
+     */
+    public static ChatCommand of(String messageText) {
+        // Cheap reject before hashing free-form input such as team member lists.
+        if (messageText.isEmpty() || messageText.charAt(0) != '/') {
+            return null;
+        }
+        int end = firstWhitespace(messageText);
+        return BY_TEXT.get(end < 0 ? messageText : messageText.substring(0, end));
+    }
+
+    /**
+     * @return the whitespace-separated words after the command, at most {@code limit} of them; the
+     * last one keeps the rest of the message as is, line breaks included
+     */
+    public static String[] arguments(String messageText, int limit) {
+        int end = firstWhitespace(messageText);
+        String rest = end < 0 ? "" : messageText.substring(end + 1).strip();
+        return rest.isEmpty() ? new String[0] : rest.split("\\s+", limit);
+    }
+
+    /**
+     * @return the whitespace-separated words after the command
+     */
+    public static String[] arguments(String messageText) {
+        return arguments(messageText, 0);
+    }
+
+    private static int firstWhitespace(String messageText) {
+        for (int i = 0; i < messageText.length(); i++) {
+            if (Character.isWhitespace(messageText.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demotelegrambot1.service.routing;
+
+import com.example.demotelegrambot1.service.session.ChatSession;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+@FunctionalInterface
+public interface MessageHandler {
+
+    void handle(Update update, long chatId, String messageText, ChatSession session);
+}
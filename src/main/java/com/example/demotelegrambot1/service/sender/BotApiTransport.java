@@ -0,0 +1,67 @@
+package com.example.demotelegrambot1.service.sender;
+
+import com.example.demotelegrambot1.config.BotConfig;
+import com.example.demotelegrambot1.config.SenderConfig;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link TelegramTransport} backed by the telegrambots HTTP client, with its own thread pool so
+ * outbound calls never run on update workers.
+ */
+@Component
+public class BotApiTransport implements TelegramTransport {
+
+    private final ApiSender sender;
+
+    public BotApiTransport(BotConfig botConfig, SenderConfig senderConfig) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setMaxThreads(senderConfig.getHttpThreads());
+        this.sender = new ApiSender(options, botConfig.getBotToken());
+    }
+
+    @Override
+    public <T extends Serializable, M extends BotApiMethod<T>> CompletableFuture<T> send(M method) {
+        try {
+            return sender.executeAsync(method);
+        } catch (TelegramApiException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Message> send(SendDocument document) {
+        return sender.executeAsync(document);
+    }
+
+    @Override
+    public CompletableFuture<Message> send(SendPhoto photo) {
+        return sender.executeAsync(photo);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
+    }
+
+    private static final class ApiSender extends DefaultAbsSender {
+
+        ApiSender(DefaultBotOptions options, String botToken) {
+            super(options, botToken);
+        }
+
+        void shutdown() {
+            exe.shutdown();
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.demotelegrambot1.service.sender;
+
+import com.example.demotelegrambot1.config.SenderConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.PartialBotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queues outbound Bot API calls and sends them asynchronously within Telegram's rate limits.
+ * <p>
+ * Callers only enqueue; a single sender thread owns the global and per-chat token buckets and
+ * keeps at most one call per chat in flight, so messages to one chat arrive in the order they
+ * were queued. A 429 response puts the message back at the head of its chat queue until
+ * {@code retry_after} has passed.
+ */
+@Component
+@Slf4j
+public class OutboundMessageSender {
+
+    private static final int MAX_MESSAGE_LENGTH = 4096;
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final TelegramTransport transport;
+    private final SenderConfig config;
+    private final ConcurrentHashMap<Long, ChatOutbox> outboxes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final TokenBucket globalBucket;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter merged;
+    private final Counter throttled;
+    private final Counter failures;
+
+    public OutboundMessageSender(TelegramTransport transport, SenderConfig config, MeterRegistry meterRegistry) {
+        this.transport = transport;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "outbound-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+        this.globalBucket = new TokenBucket(config.getGlobalRatePerSecond(), config.getGlobalBurst(), System.nanoTime());
+
+        Gauge.builder("bot.outbound.pending", pending, AtomicInteger::get)
+                .description("Outbound calls queued or in flight")
+                .register(meterRegistry);
+        this.merged = Counter.builder("bot.outbound.merged")
+                .description("Texts folded into an already queued message")
+                .register(meterRegistry);
+        this.throttled = Counter.builder("bot.outbound.throttled")
+                .description("Calls rejected by Telegram with 429 Too Many Requests")
+                .register(meterRegistry);
+        this.failures = Counter.builder("bot.outbound.failures")
+                .description("Calls dropped after a non-retryable error or too many attempts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a call for the given chat. Never blocks on network I/O.
+     */
+    public void enqueue(long chatId, BotApiMethod<? extends Serializable> method) {
+        enqueue(chatId, new Outgoing(method, null));
+    }
+
+    /**
+     * Like {@link #enqueue(long, BotApiMethod)}, but reports the outcome. The message is never merged
+     * with others, so the outcome is its own.
+     *
+     * @return completes with {@code true} once delivered, or {@code false} once given up on
+     */
+    public CompletableFuture<Boolean> enqueueTracked(long chatId, BotApiMethod<? extends Serializable> method) {
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+        enqueue(chatId, new Outgoing(method, done));
+        return done;
+    }
+
+    /**
+     * Queues a file upload for the given chat, behind the messages already queued for it.
+     *
+     * @return completes with {@code true} once delivered, or {@code false} once given up on, e.g. to
+     * delete a temporary file
+     */
+    public CompletableFuture<Boolean> enqueue(long chatId, SendDocument document) {
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+        enqueue(chatId, new Outgoing(document, done));
+        return done;
+    }
+
+    /**
+     * Queues a photo for the given chat, behind the messages already queued for it.
+     *
+     * @return completes with the sent message, e.g. to keep the file_id of an upload, or with
+     * {@code null} once given up on
+     */
+    public CompletableFuture<Message> enqueue(long chatId, SendPhoto photo) {
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+        Outgoing outgoing = new Outgoing(photo, done);
+        enqueue(chatId, outgoing);
+        return done.thenApply(delivered -> delivered ? (Message) outgoing.result : null);
+    }
+
+    private void enqueue(long chatId, Outgoing outgoing) {
+        while (true) {
+            ChatOutbox outbox = outboxes.computeIfAbsent(chatId, ChatOutbox::new);
+            synchronized (outbox) {
+                if (outbox.retired) {
+                    continue;
+                }
+                if (outgoing.done == null && tryMerge(outbox, outgoing.method)) {
+                    merged.increment();
+                    return;
+                }
+                outbox.queue.addLast(outgoing);
+                pending.incrementAndGet();
+                if (!outbox.active) {
+                    outbox.active = true;
+                    scheduler.execute(() -> pump(outbox));
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Number of calls queued or in flight.
+     */
+    public int pendingCalls() {
+        return pending.get();
+    }
+
+    private boolean tryMerge(ChatOutbox outbox, PartialBotApiMethod<? extends Serializable> method) {
+        if (!config.isMergeTexts() || !(method instanceof SendMessage next)) {
+            return false;
+        }
+        Outgoing last = outbox.queue.peekLast();
+        if (last == null || last.attempts > 0 || last.done != null || !(last.method instanceof SendMessage previous)) {
+            return false;
+        }
+        if (!Objects.equals(previous.getParseMode(), next.getParseMode())
+                || previous.getReplyMarkup() != null && !previous.getReplyMarkup().equals(next.getReplyMarkup())
+                || previous.getText().length() + next.getText().length() + 2 > MAX_MESSAGE_LENGTH) {
+            return false;
+        }
+        previous.setText(previous.getText() + "\n\n" + next.getText());
+        previous.setReplyMarkup(next.getReplyMarkup());
+        return true;
+    }
+
+    private void pump(ChatOutbox outbox) {
+        Outgoing next;
+        synchronized (outbox) {
+            next = outbox.queue.peekFirst();
+            if (next == null) {
+                outbox.active = false;
+                long idle = outbox.bucket.nanosUntilFull(System.nanoTime());
+                scheduler.schedule(() -> retireIfIdle(outbox), idle, TimeUnit.NANOSECONDS);
+                return;
+            }
+        }
+
+        long now = System.nanoTime();
+        long wait = Math.max(outbox.bucket.nanosUntilAvailable(now), globalBucket.nanosUntilAvailable(now));
+        if (wait > 0) {
+            scheduler.schedule(() -> pump(outbox), wait, TimeUnit.NANOSECONDS);
+            return;
+        }
+        outbox.bucket.consume(now);
+        globalBucket.consume(now);
+
+        synchronized (outbox) {
+            outbox.queue.pollFirst();
+        }
+        next.attempts++;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        send(next.method).whenComplete((result, error) -> {
+            sample.stop(meterRegistry.timer("bot.outbound.latency",
+                    "method", methodName(next.method), "outcome", error == null ? "success" : "error"));
+            scheduler.execute(() -> onComplete(outbox, next, result, error));
+        });
+    }
+
+    private CompletableFuture<? extends Serializable> send(PartialBotApiMethod<? extends Serializable> method) {
+        if (method instanceof SendDocument document) {
+            return transport.send(document);
+        }
+        if (method instanceof SendPhoto photo) {
+            return transport.send(photo);
+        }
+        return transport.send((BotApiMethod<? extends Serializable>) method);
+    }
+
+    private static String methodName(PartialBotApiMethod<? extends Serializable> method) {
+        return method.getMethod();
+    }
+
+    private void onComplete(ChatOutbox outbox, Outgoing sent, Serializable result, Throwable error) {
+        if (error == null) {
+            pending.decrementAndGet();
+            sent.result = result;
+            sent.finished(true);
+            pump(outbox);
+            return;
+        }
+
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        Integer retryAfter = retryAfterSeconds(cause);
+        if (retryAfter != null && sent.attempts < config.getMaxAttempts()) {
+            throttled.increment();
+            log.warn("Rate limited by Telegram for chat ID: {}, retrying in {}s", outbox.chatId, retryAfter);
+            synchronized (outbox) {
+                outbox.queue.addFirst(sent);
+            }
+            scheduler.schedule(() -> pump(outbox), retryAfter, TimeUnit.SECONDS);
+            return;
+        }
+
+        pending.decrementAndGet();
+        failures.increment();
+        sent.finished(false);
+        log.error("Failed to execute {} for chat ID: {}: {}", methodName(sent.method), outbox.chatId, cause.getMessage());
+        pump(outbox);
+    }
+
+    private Integer retryAfterSeconds(Throwable error) {
+        if (error instanceof TelegramApiRequestException requestException
+                && Objects.equals(requestException.getErrorCode(), TOO_MANY_REQUESTS)) {
+            if (requestException.getParameters() != null && requestException.getParameters().getRetryAfter() != null) {
+                return requestException.getParameters().getRetryAfter();
+            }
+            return 1;
+        }
+        return null;
+    }
+
+    private void retireIfIdle(ChatOutbox outbox) {
+        synchronized (outbox) {
+            if (!outbox.active && outbox.queue.isEmpty()) {
+                outbox.retired = true;
+                outboxes.remove(outbox.chatId, outbox);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + config.getShutdownTimeoutMillis();
+        while (pending.get() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        if (pending.get() > 0) {
+            log.warn("Shutting down with {} outbound calls still queued", pending.get());
+        }
+        scheduler.shutdownNow();
+    }
+
+    private final class ChatOutbox {
+        final long chatId;
+        final ArrayDeque<Outgoing> queue = new ArrayDeque<>();
+        final TokenBucket bucket = new TokenBucket(config.getChatRatePerSecond(), config.getChatBurst(), System.nanoTime());
+        boolean active;
+        boolean retired;
+
+        ChatOutbox(long chatId) {
+            this.chatId = chatId;
+        }
+    }
+
+    private static final class Outgoing {
+        final PartialBotApiMethod<? extends Serializable> method;
+        final CompletableFuture<Boolean> done;
+        int attempts;
+        /** What Telegram answered, set before {@link #done} completes. */
+        Serializable result;
+
+        Outgoing(PartialBotApiMethod<? extends Serializable> method, CompletableFuture<Boolean> done) {
+            this.method = method;
+            this.done = done;
+        }
+
+        void finished(boolean delivered) {
+            if (done != null) {
+                done.complete(delivered);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demotelegrambot1.service.sender;
+
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking channel to the Telegram Bot API.
+ */
+public interface TelegramTransport {
+
+    <T extends Serializable, M extends BotApiMethod<T>> CompletableFuture<T> send(M method);
+
+    /**
+     * Uploads a file as a multipart request.
+     */
+    CompletableFuture<Message> send(SendDocument document);
+
+    /**
+     * Sends a photo, uploading it as a multipart request unless it is given by file_id.
+     */
+    CompletableFuture<Message> send(SendPhoto photo);
+}
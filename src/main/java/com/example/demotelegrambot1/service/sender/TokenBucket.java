@@ -0,0 +1,51 @@
+package com.example.demotelegrambot1.service.sender;
+
+/**
+ * Classic token bucket. Not thread-safe: every bucket is owned by the sender thread.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double ratePerSecond, double capacity, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * @return nanoseconds until one token is available, {@code 0} if one is available now
+     */
+    long nanosUntilAvailable(long now) {
+        refill(now);
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    void consume(long now) {
+        refill(now);
+        tokens -= 1;
+    }
+
+    /**
+     * @return nanoseconds until the bucket is full again
+     */
+    long nanosUntilFull(long now) {
+        refill(now);
+        return (long) Math.ceil((capacity - tokens) / tokensPerNano);
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
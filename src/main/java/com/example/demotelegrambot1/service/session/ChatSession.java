@@ -0,0 +1,120 @@
+package com.example.demotelegrambot1.service.session;
+
+import com.example.demotelegrambot1.persistence.entity.User;
+import com.example.demotelegrambot1.persistence.entity.UserEvent;
+import com.example.demotelegrambot1.service.catalog.EventQuery;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Cached user of one chat plus the changes that still have to reach the database.
+ * Only touched while the owning {@link SessionStore} holds the session lock.
+ */
+public class ChatSession {
+
+    private final long chatId;
+    private User user;
+    private boolean userDirty;
+    private final Set<UserEvent> dirtyRegistrations = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile long lastAccess;
+    private int failedFlushes;
+    /**
+     * What the chat is browsing; kept in memory only, an evicted session starts over with all events.
+     */
+    private EventQuery eventQuery = EventQuery.ALL;
+    /** Latest update handled in this session; written as the user's {@code last_update_id} on flush. */
+    private int updateId;
+    boolean evicted;
+
+    ChatSession(long chatId) {
+        this.chatId = chatId;
+    }
+
+    public long getChatId() {
+        return chatId;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    void setUser(User user) {
+        this.user = user;
+    }
+
+    public UserEvent getActiveRegistration() {
+        return user == null ? null : user.getActiveRegistration();
+    }
+
+    public EventQuery getEventQuery() {
+        return eventQuery;
+    }
+
+    public void setEventQuery(EventQuery eventQuery) {
+        this.eventQuery = eventQuery;
+    }
+
+    /**
+     * @return {@code true} if the update's changes were already written, i.e. it is replayed after a
+     * crash that happened between writing them and checkpointing it
+     */
+    public boolean isApplied(int updateId) {
+        return user != null && user.getLastUpdateId() != null && updateId <= user.getLastUpdateId();
+    }
+
+    public void setUpdateId(int updateId) {
+        this.updateId = updateId;
+    }
+
+    int getUpdateId() {
+        return updateId;
+    }
+
+    public void markUserDirty() {
+        userDirty = true;
+    }
+
+    public void markRegistrationDirty(UserEvent registration) {
+        dirtyRegistrations.add(registration);
+    }
+
+    /**
+     * An applied update makes the session dirty even if it changed nothing else, so every update
+     * handled, not only those that moved a registration, is skipped when replayed after its flush.
+     */
+    boolean isDirty() {
+        return userDirty || !dirtyRegistrations.isEmpty() || hasUnwrittenUpdate();
+    }
+
+    boolean hasUnwrittenUpdate() {
+        return user != null && updateId > 0 && (user.getLastUpdateId() == null || updateId > user.getLastUpdateId());
+    }
+
+    boolean isUserDirty() {
+        return userDirty;
+    }
+
+    Set<UserEvent> getDirtyRegistrations() {
+        return dirtyRegistrations;
+    }
+
+    void markClean() {
+        userDirty = false;
+        dirtyRegistrations.clear();
+        failedFlushes = 0;
+    }
+
+    int recordFailedFlush() {
+        return ++failedFlushes;
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    void touch(long now) {
+        lastAccess = now;
+    }
+}
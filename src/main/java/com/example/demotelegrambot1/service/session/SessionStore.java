@@ -0,0 +1,295 @@
+package com.example.demotelegrambot1.service.session;
+
+import com.example.demotelegrambot1.config.SessionConfig;
+import com.example.demotelegrambot1.persistence.entity.User;
+import com.example.demotelegrambot1.persistence.entity.UserEvent;
+import com.example.demotelegrambot1.persistence.repository.UserEventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process cache of {@link ChatSession}s keyed by chat ID, with write-behind persistence.
+ * <p>
+ * Handlers mutate the cached {@link User} and its active {@link UserEvent} and only mark them dirty.
+ * A background flusher writes all changes of a session in one transaction, so a user tapping through
+ * the registration flow costs no database round trip on the update path. Idle sessions and, above
+ * {@code maxSessions}, the least recently used ones are flushed and evicted.
+ * <p>
+ * Every flush also stores the latest update applied to the session as the user's
+ * {@code last_update_id}, so an update replayed after it is skipped. Side effects that leave the
+ * process before that flush, such as replies, can repeat when an update is replayed; one that must
+ * not, like starting a broadcast, either runs through {@link #writeThrough} or carries the update
+ * ID as its own idempotency key.
+ */
+@Component
+@Slf4j
+public class SessionStore {
+
+    private final UserRepository userRepository;
+    private final UserEventRepository userEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SessionConfig config;
+
+    private final ConcurrentHashMap<Long, ChatSession> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean sweepScheduled = new AtomicBoolean();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter flushFailures;
+    private final Counter dropped;
+
+    public SessionStore(UserRepository userRepository, UserEventRepository userEventRepository,
+                        TransactionTemplate transactionTemplate, SessionConfig config, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.userEventRepository = userEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushAndSweep, interval, interval, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("bot.sessions.cached", sessions, ConcurrentHashMap::size)
+                .register(meterRegistry);
+        this.hits = Counter.builder("bot.sessions.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("bot.sessions.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("bot.sessions.flush.failures")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("bot.sessions.dropped")
+                .description("Sessions whose unsaved changes were given up unwritten")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code action} with exclusive access to the chat's session, loading the user on a miss.
+     *
+     * @param registrar creates the user when the chat is unknown; may be {@code null}, in which case
+     *                  the action sees a session without user
+     */
+    public void withSession(long chatId, Supplier<User> registrar, Consumer<ChatSession> action) {
+        while (true) {
+            ChatSession session = sessions.computeIfAbsent(chatId, ChatSession::new);
+            synchronized (session) {
+                if (session.evicted) {
+                    continue;
+                }
+                if (session.getUser() == null) {
+                    misses.increment();
+                    User user = userRepository.findById(chatId).orElse(null);
+                    if (user == null && registrar != null) {
+                        user = registrar.get();
+                    }
+                    session.setUser(user);
+                } else {
+                    hits.increment();
+                }
+                session.touch(System.nanoTime());
+                action.accept(session);
+            }
+            if (sessions.size() > config.getMaxSessions() && sweepScheduled.compareAndSet(false, true)) {
+                flusher.execute(this::flushAndSweep);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Writes every dirty session to the database.
+     *
+     * @return {@code false} if some session could not be written and is still dirty
+     */
+    public boolean flushAll() {
+        boolean clean = true;
+        for (ChatSession session : sessions.values()) {
+            synchronized (session) {
+                clean &= flush(session);
+            }
+        }
+        return clean;
+    }
+
+    /**
+     * Writes the session's pending changes and runs {@code action} in the same transaction, for steps
+     * that must not be deferred. Must be called from inside {@link #withSession}.
+     */
+    public <T> T writeThrough(ChatSession session, Supplier<T> action) {
+        T result = transactionTemplate.execute(status -> {
+            writeDirty(session);
+            userEventRepository.flush();
+            return action.get();
+        });
+        session.markClean();
+        return result;
+    }
+
+    /**
+     * Flushes and evicts the sessions of all matching chats, e.g. when another node takes them over.
+     */
+    public void evictMatching(LongPredicate chatFilter) {
+        for (ChatSession session : sessions.values()) {
+            if (chatFilter.test(session.getChatId())) {
+                evict(session);
+            }
+        }
+    }
+
+    /**
+     * Drops the sessions of all matching chats without writing them, for chats this node no longer owns.
+     */
+    public void discardMatching(LongPredicate chatFilter) {
+        discardMatching(chatFilter, null);
+    }
+
+    /**
+     * Drops the sessions of all matching chats, but first writes each dirty one in a transaction in
+     * which {@code guard} still holds, e.g. for chats whose lease ran out before another node took
+     * them. The guard runs inside that transaction, so it can lock what it checks.
+     *
+     * @param guard may be {@code null}, in which case nothing is written
+     */
+    public void discardMatching(LongPredicate chatFilter, BooleanSupplier guard) {
+        for (ChatSession session : sessions.values()) {
+            if (!chatFilter.test(session.getChatId())) {
+                continue;
+            }
+            synchronized (session) {
+                if (session.isDirty() && (guard == null || !writeGuarded(session, guard))) {
+                    log.warn("Discarding unsaved changes for chat ID: {}", session.getChatId());
+                    dropped.increment();
+                }
+                session.markClean();
+                session.evicted = true;
+                sessions.remove(session.getChatId(), session);
+            }
+        }
+    }
+
+    private boolean writeGuarded(ChatSession session, BooleanSupplier guard) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (!guard.getAsBoolean()) {
+                    return false;
+                }
+                writeDirty(session);
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            log.warn("Failed to write session for chat ID: {}: {}", session.getChatId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void flushAndSweep() {
+        try {
+            flushAll();
+            sweep();
+        } catch (RuntimeException e) {
+            log.error("Session flush failed: {}", e.getMessage());
+        } finally {
+            sweepScheduled.set(false);
+        }
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        long idleTimeout = config.getIdleTimeout().toNanos();
+        for (ChatSession session : sessions.values()) {
+            if (now - session.getLastAccess() > idleTimeout) {
+                evict(session);
+            }
+        }
+        int overflow = sessions.size() - config.getMaxSessions();
+        if (overflow > 0) {
+            sessions.values().stream()
+                    .sorted(Comparator.comparingLong(ChatSession::getLastAccess))
+                    .limit(overflow)
+                    .toList()
+                    .forEach(this::evict);
+        }
+    }
+
+    private void evict(ChatSession session) {
+        synchronized (session) {
+            if (session.evicted || !flush(session)) {
+                return;
+            }
+            session.evicted = true;
+            sessions.remove(session.getChatId(), session);
+        }
+    }
+
+    /**
+     * Must be called while holding the session lock.
+     *
+     * @return {@code true} if the session is clean afterwards
+     */
+    private boolean flush(ChatSession session) {
+        if (!session.isDirty()) {
+            return true;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeDirty(session));
+            session.markClean();
+            return true;
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            int attempts = session.recordFailedFlush();
+            if (attempts >= config.getMaxFlushAttempts()) {
+                log.error("Dropping unsaved changes for chat ID: {} after {} failed flushes: {}",
+                        session.getChatId(), attempts, e.getMessage());
+                dropped.increment();
+                session.markClean();
+                return true;
+            }
+            log.warn("Failed to flush session for chat ID: {}: {}", session.getChatId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeDirty(ChatSession session) {
+        User user = session.getUser();
+        if (session.hasUnwrittenUpdate()) {
+            // Commits with the changes, so a replayed update sees they are already written.
+            user.setLastUpdateId(session.getUpdateId());
+            session.markUserDirty();
+        }
+        for (UserEvent registration : session.getDirtyRegistrations()) {
+            userEventRepository.save(registration);
+        }
+        if (session.isUserDirty()) {
+            userRepository.save(user);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        flushAll();
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.demotelegrambot1.service.stats;
+
+import com.example.demotelegrambot1.config.StatsConfig;
+import com.example.demotelegrambot1.enums.RegistrationState;
+import com.example.demotelegrambot1.service.session.SessionStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live number of registrations per event and {@link RegistrationState}, kept without counting
+ * {@code user_event}.
+ * <p>
+ * The registration handlers report every state change, which moves one registration between two
+ * {@link LongAdder}s, so concurrent updates never contend on a lock; a read sums a few cells. A
+ * worker regularly adds the changes since its last write to {@code registration_stats} and reads
+ * the table back, which also brings in the changes of other nodes. Every
+ * {@code bot.stats.rebuild-interval}, and at the first start, the table is recounted from
+ * {@code user_event}; registrations changed while the recount runs may be off by one until the next.
+ */
+@Component
+@Slf4j
+public class RegistrationStats {
+
+    private static final RegistrationState[] STATES = RegistrationState.values();
+
+    private static final String RECOUNT = "SELECT event_id, registration_state, count(*) FROM user_event "
+            + "GROUP BY event_id, registration_state";
+
+    /** Skips events deleted in the meantime, which would fail the whole batch. */
+    private static final String ADD = "INSERT INTO registration_stats (event_id, registration_state, registrations) "
+            + "SELECT ?, ?, ? WHERE EXISTS (SELECT 1 FROM event WHERE id = ?) "
+            + "ON CONFLICT (event_id, registration_state) DO UPDATE "
+            + "SET registrations = registration_stats.registrations + excluded.registrations, updated_at = now()";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SessionStore sessionStore;
+    private final StatsConfig config;
+    private final ScheduledExecutorService worker;
+    private final MultiGauge gauge;
+
+    private final Map<Long, EventCounters> events = new ConcurrentHashMap<>();
+
+    public RegistrationStats(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             SessionStore sessionStore, StatsConfig config, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sessionStore = sessionStore;
+        this.config = config;
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "registration-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.gauge = MultiGauge.builder("bot.registrations")
+                .description("Registrations per event and state")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        worker.execute(() -> safely("load", this::load));
+        long interval = config.getPersistInterval().toMillis();
+        worker.scheduleWithFixedDelay(() -> safely("persist", config.isPersist() ? this::persist : this::publish),
+                interval, interval, TimeUnit.MILLISECONDS);
+        long rebuildInterval = config.getRebuildInterval().toMillis();
+        if (config.isPersist() && rebuildInterval > 0) {
+            worker.scheduleWithFixedDelay(() -> safely("rebuild", this::rebuild),
+                    rebuildInterval, rebuildInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Counts a registration moving to {@code to}.
+     *
+     * @param from its previous state, {@code null} for a new registration
+     */
+    public void registrationMoved(long eventId, RegistrationState from, RegistrationState to) {
+        EventCounters counters = events.computeIfAbsent(eventId, EventCounters::new);
+        if (from != null) {
+            counters.counts[from.ordinal()].decrement();
+        }
+        counters.counts[to.ordinal()].increment();
+    }
+
+    /**
+     * @return the event's registrations per state, indexed by {@link RegistrationState#ordinal()}
+     */
+    public long[] counts(long eventId) {
+        long[] counts = new long[STATES.length];
+        EventCounters counters = events.get(eventId);
+        if (counters != null) {
+            for (int state = 0; state < STATES.length; state++) {
+                counts[state] = counters.counts[state].sum();
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Recounts everything from {@code user_event} on the worker, e.g. after bulk changes in SQL.
+     */
+    public void requestRebuild() {
+        worker.execute(() -> safely("rebuild", config.isPersist() ? this::rebuild : this::recountInMemory));
+    }
+
+    private void load() {
+        if (!config.isPersist()) {
+            recountInMemory();
+            return;
+        }
+        Integer rows = jdbcTemplate.queryForObject("SELECT count(*) FROM registration_stats", Integer.class);
+        if (rows == null || rows == 0) {
+            rebuild();
+        } else {
+            sync();
+        }
+    }
+
+    /**
+     * Adds the changes since the last write to the table, then reads it back.
+     */
+    private void persist() {
+        List<Written> changed = new ArrayList<>();
+        for (EventCounters counters : events.values()) {
+            for (int state = 0; state < STATES.length; state++) {
+                long count = counters.counts[state].sum();
+                if (count != counters.persisted[state]) {
+                    changed.add(new Written(counters, state, count));
+                }
+            }
+        }
+        if (!changed.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(ADD, changed, changed.size(),
+                    (statement, written) -> {
+                        statement.setLong(1, written.counters().eventId);
+                        statement.setInt(2, written.state());
+                        statement.setLong(3, written.count() - written.counters().persisted[written.state()]);
+                        statement.setLong(4, written.counters().eventId);
+                    }));
+            changed.forEach(Written::mark);
+        }
+        sync();
+    }
+
+    /**
+     * Recounts the table from {@code user_event}. Changes counted here are written to the database by
+     * then, so they are taken as written and replaced by the recount.
+     */
+    private void rebuild() {
+        sessionStore.flushAll();
+        List<Written> counted = new ArrayList<>();
+        for (EventCounters counters : events.values()) {
+            for (int state = 0; state < STATES.length; state++) {
+                counted.add(new Written(counters, state, counters.counts[state].sum()));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM registration_stats");
+            jdbcTemplate.update("INSERT INTO registration_stats (event_id, registration_state, registrations) " + RECOUNT);
+        });
+        counted.forEach(Written::mark);
+        sync();
+        log.info("Recounted registrations of {} events", events.size());
+    }
+
+    /**
+     * Moves every counter by the difference between the table and what this node last wrote or read,
+     * keeping changes not written yet.
+     */
+    private void sync() {
+        Map<Long, long[]> totals = new HashMap<>();
+        jdbcTemplate.query("SELECT event_id, registration_state, registrations FROM registration_stats", rs -> {
+            totals.computeIfAbsent(rs.getLong(1), eventId -> new long[STATES.length])[rs.getInt(2)] = rs.getLong(3);
+        });
+        totals.keySet().forEach(eventId -> events.computeIfAbsent(eventId, EventCounters::new));
+        for (EventCounters counters : events.values()) {
+            long[] total = totals.getOrDefault(counters.eventId, new long[STATES.length]);
+            for (int state = 0; state < STATES.length; state++) {
+                long difference = total[state] - counters.persisted[state];
+                if (difference != 0) {
+                    counters.counts[state].add(difference);
+                    counters.persisted[state] = total[state];
+                }
+            }
+        }
+        publish();
+    }
+
+    private void recountInMemory() {
+        events.clear();
+        jdbcTemplate.query(RECOUNT, rs -> {
+            events.computeIfAbsent(rs.getLong(1), EventCounters::new).counts[rs.getInt(2)].add(rs.getLong(3));
+        });
+        publish();
+    }
+
+    private void publish() {
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(events.size() * STATES.length);
+        for (EventCounters counters : events.values()) {
+            for (RegistrationState state : STATES) {
+                rows.add(MultiGauge.Row.of(
+                        Tags.of("event", String.valueOf(counters.eventId), "state", state.name().toLowerCase()),
+                        counters.counts[state.ordinal()], LongAdder::doubleValue));
+            }
+        }
+        gauge.register(rows, true);
+    }
+
+    private void safely(String task, Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (RuntimeException e) {
+            log.error("Registration stats {} failed: {}", task, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+        if (config.isPersist()) {
+            safely("persist", this::persist);
+        }
+    }
+
+    /**
+     * A count as it was when written to the table.
+     */
+    private record Written(EventCounters counters, int state, long count) {
+
+        void mark() {
+            counters.persisted[state] = count;
+        }
+    }
+
+    private static final class EventCounters {
+
+        final long eventId;
+        final LongAdder[] counts = new LongAdder[STATES.length];
+        /** Counts as of the last write to or read from the table; touched by the worker only. */
+        final long[] persisted = new long[STATES.length];
+
+        EventCounters(long eventId) {
+            this.eventId = eventId;
+            for (int state = 0; state < STATES.length; state++) {
+                counts[state] = new LongAdder();
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demotelegrambot1.web;
+
+import com.example.demotelegrambot1.service.TelegramBotService;
+import com.example.demotelegrambot1.service.UpdateChats;
+import com.example.demotelegrambot1.service.cluster.ClusterCoordinator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.List;
+
+/**
+ * Receives updates other nodes forward to this one because it owns their chats.
+ * <p>
+ * Updates are never forwarded a second time: if ownership moved in the meantime the whole batch is
+ * refused, the forwarding node answers Telegram with an error and Telegram delivers the update again.
+ */
+@RestController
+@ConditionalOnProperty(name = "bot.cluster.enabled", havingValue = "true")
+@Slf4j
+public class ClusterController {
+
+    private final TelegramBotService bot;
+    private final ClusterCoordinator coordinator;
+
+    public ClusterController(TelegramBotService bot, ClusterCoordinator coordinator) {
+        this.bot = bot;
+        this.coordinator = coordinator;
+    }
+
+    @PostMapping(ClusterCoordinator.FORWARD_PATH)
+    public ResponseEntity<Void> receive(@RequestHeader(name = ClusterCoordinator.TOKEN_HEADER, required = false) String token,
+                                        @RequestBody List<Update> updates) {
+        if (!coordinator.isClusterToken(token)) {
+            log.warn("Rejected forwarded updates with a missing or invalid cluster token");
+            return ResponseEntity.status(401).build();
+        }
+        for (Update update : updates) {
+            Long chatId = UpdateChats.chatIdOf(update);
+            if (chatId != null && !coordinator.accepts(chatId)) {
+                log.warn("Refused forwarded update {} for chat ID: {}, not owned by this node", update.getUpdateId(), chatId);
+                return ResponseEntity.status(409).build();
+            }
+        }
+        bot.onUpdatesReceived(updates);
+        return ResponseEntity.ok().build();
+    }
+}
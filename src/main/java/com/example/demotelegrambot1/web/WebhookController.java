@@ -0,0 +1,80 @@
+package com.example.demotelegrambot1.web;
+
+import com.example.demotelegrambot1.config.WebhookConfig;
+import com.example.demotelegrambot1.service.TelegramBotService;
+import com.example.demotelegrambot1.service.cluster.ChatAffinity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Receives updates pushed by Telegram in webhook mode.
+ * <p>
+ * Accepts a single update, as Telegram sends it, or a JSON array of updates, as replay tools send
+ * them. Updates are handed to the bot's dispatcher and acknowledged right away; handlers run on the
+ * dispatcher's workers. In cluster mode updates of chats owned by another node are forwarded there first.
+ */
+@RestController
+@ConditionalOnProperty(name = "bot.mode", havingValue = "webhook")
+@Slf4j
+public class WebhookController {
+
+    static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    private final TelegramBotService bot;
+    private final ChatAffinity chatAffinity;
+    private final ObjectMapper objectMapper;
+    private final byte[] secretToken;
+
+    public WebhookController(TelegramBotService bot, ChatAffinity chatAffinity, ObjectMapper objectMapper,
+                             WebhookConfig webhookConfig) {
+        this.bot = bot;
+        this.chatAffinity = chatAffinity;
+        this.objectMapper = objectMapper;
+        if (webhookConfig.getSecretToken() == null || webhookConfig.getSecretToken().isBlank()) {
+            throw new IllegalStateException("bot.webhook.secret-token must be set in webhook mode");
+        }
+        this.secretToken = webhookConfig.getSecretToken().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("${bot.webhook.path:/telegram/webhook}")
+    public ResponseEntity<Void> receive(@RequestHeader(name = SECRET_HEADER, required = false) String secret,
+                                        @RequestBody JsonNode body) {
+        if (secret == null || !MessageDigest.isEqual(secretToken, secret.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Rejected webhook call with a missing or invalid secret token");
+            return ResponseEntity.status(401).build();
+        }
+
+        List<Update> updates = new ArrayList<>();
+        try {
+            if (body.isArray()) {
+                for (JsonNode node : body) {
+                    updates.add(objectMapper.treeToValue(node, Update.class));
+                }
+            } else {
+                updates.add(objectMapper.treeToValue(body, Update.class));
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Rejected malformed webhook payload: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        if (!chatAffinity.route(updates, bot::onUpdatesReceived)) {
+            // Telegram redelivers on any non-2xx answer.
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok().build();
+    }
+}
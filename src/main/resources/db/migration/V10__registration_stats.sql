@@ -0,0 +1,10 @@
+-- Registrations per event and state, maintained incrementally by the bot and recounted from
+-- user_event now and then. Nodes add their changes to the counts rather than overwrite them.
+CREATE TABLE registration_stats
+(
+    event_id           BIGINT                   NOT NULL REFERENCES event (id) ON DELETE CASCADE,
+    registration_state SMALLINT                 NOT NULL,
+    registrations      BIGINT                   NOT NULL,
+    updated_at         TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    PRIMARY KEY (event_id, registration_state)
+);
@@ -0,0 +1,6 @@
+-- Optional poster image shown on the event card. poster_path names a file on the bot host; the
+-- file_id Telegram returns for its first upload is kept with the file's fingerprint and reused until
+-- the poster changes.
+ALTER TABLE event ADD COLUMN poster_path VARCHAR(512);
+ALTER TABLE event ADD COLUMN poster_file_id VARCHAR(255);
+ALTER TABLE event ADD COLUMN poster_source VARCHAR(640);
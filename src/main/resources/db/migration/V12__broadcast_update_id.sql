@@ -0,0 +1,5 @@
+-- The /broadcast update that started the broadcast; a redelivered update finds its broadcast here
+-- instead of starting a second one.
+ALTER TABLE broadcast ADD COLUMN update_id BIGINT;
+ALTER TABLE broadcast
+    ADD CONSTRAINT uk_broadcast_update_id UNIQUE (update_id);
@@ -0,0 +1,46 @@
+-- Schema as previously generated by spring.jpa.hibernate.ddl-auto=update.
+-- Databases created that way are baselined at version 0, so every statement here must be idempotent.
+
+CREATE TABLE IF NOT EXISTS event
+(
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title       VARCHAR(255),
+    date        VARCHAR(255),
+    location    VARCHAR(255),
+    description VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS "user"
+(
+    chat_id                BIGINT PRIMARY KEY,
+    active_registration_id BIGINT UNIQUE,
+    first_name             VARCHAR(255),
+    last_name              VARCHAR(255),
+    user_name              VARCHAR(255),
+    registered_at          TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS user_event
+(
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id            BIGINT   NOT NULL,
+    event_id           BIGINT   NOT NULL,
+    registration_state SMALLINT NOT NULL CHECK (registration_state BETWEEN 0 AND 4),
+    registration_date  TIMESTAMP(6),
+    contact_phone      VARCHAR(255),
+    team_name          VARCHAR(255),
+    team_members       VARCHAR(255)[]
+);
+
+-- Join tables Hibernate created for the former unidirectional @OneToMany mappings.
+CREATE TABLE IF NOT EXISTS user_user_events
+(
+    user_chat_id   BIGINT NOT NULL,
+    user_events_id BIGINT NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS event_user_events
+(
+    event_id       BIGINT NOT NULL,
+    user_events_id BIGINT NOT NULL UNIQUE
+);
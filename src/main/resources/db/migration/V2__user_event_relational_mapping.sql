@@ -0,0 +1,74 @@
+-- Team members move from an array column into an ordered element collection table.
+CREATE TABLE user_event_member
+(
+    user_event_id BIGINT       NOT NULL REFERENCES user_event (id) ON DELETE CASCADE,
+    position      INTEGER      NOT NULL,
+    member_name   VARCHAR(255) NOT NULL,
+    PRIMARY KEY (user_event_id, position)
+);
+
+INSERT INTO user_event_member (user_event_id, position, member_name)
+SELECT ue.id,
+       ROW_NUMBER() OVER (PARTITION BY ue.id ORDER BY m.ordinality) - 1,
+       m.member_name
+FROM user_event ue
+         CROSS JOIN LATERAL UNNEST(ue.team_members) WITH ORDINALITY AS m(member_name, ordinality)
+WHERE m.member_name IS NOT NULL;
+
+ALTER TABLE user_event
+    DROP COLUMN team_members;
+
+-- User.userEvents and Event.userEvents are now mapped by user_event itself.
+DROP TABLE IF EXISTS user_user_events;
+DROP TABLE IF EXISTS event_user_events;
+
+-- Keep one registration per (event, user): completed first, then the active one, then the newest.
+CREATE TEMPORARY TABLE duplicate_user_event AS
+SELECT id
+FROM (SELECT ue.id,
+             ROW_NUMBER() OVER (
+                 PARTITION BY ue.event_id, ue.user_id
+                 ORDER BY ue.registration_state = 4 DESC,
+                     u.chat_id IS NOT NULL DESC,
+                     ue.id DESC) AS rank
+      FROM user_event ue
+               LEFT JOIN "user" u ON u.active_registration_id = ue.id) ranked
+WHERE rank > 1;
+
+UPDATE "user"
+SET active_registration_id = NULL
+WHERE active_registration_id IN (SELECT id FROM duplicate_user_event);
+
+DELETE
+FROM user_event
+WHERE id IN (SELECT id FROM duplicate_user_event);
+
+DROP TABLE duplicate_user_event;
+
+-- Replace Hibernate's generated foreign key names with stable ones.
+DO
+$$
+    DECLARE
+        constraint_row RECORD;
+    BEGIN
+        FOR constraint_row IN
+            SELECT conrelid::regclass AS table_name, conname
+            FROM pg_constraint
+            WHERE contype = 'f'
+              AND conrelid IN ('user_event'::regclass, '"user"'::regclass)
+            LOOP
+                EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', constraint_row.table_name, constraint_row.conname);
+            END LOOP;
+    END
+$$;
+
+ALTER TABLE user_event
+    ADD CONSTRAINT fk_user_event_user FOREIGN KEY (user_id) REFERENCES "user" (chat_id),
+    ADD CONSTRAINT fk_user_event_event FOREIGN KEY (event_id) REFERENCES event (id),
+    ADD CONSTRAINT uk_user_event_event_user UNIQUE (event_id, user_id);
+
+ALTER TABLE "user"
+    ADD CONSTRAINT fk_user_active_registration FOREIGN KEY (active_registration_id) REFERENCES user_event (id);
+
+-- uk_user_event_event_user already serves lookups by event; this one serves lookups by user.
+CREATE INDEX idx_user_event_user ON user_event (user_id);
@@ -0,0 +1,14 @@
+-- IDENTITY columns disable JDBC insert batching; ids now come from pooled sequences instead.
+-- INCREMENT BY must match allocationSize of the @SequenceGenerator mappings.
+CREATE SEQUENCE event_seq INCREMENT BY 50;
+CREATE SEQUENCE user_event_seq INCREMENT BY 50;
+
+SELECT SETVAL('event_seq', COALESCE(MAX(id), 1), MAX(id) IS NOT NULL)
+FROM event;
+SELECT SETVAL('user_event_seq', COALESCE(MAX(id), 1), MAX(id) IS NOT NULL)
+FROM user_event;
+
+ALTER TABLE event
+    ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE user_event
+    ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,16 @@
+-- Chat partition ownership for running several bot nodes against one database.
+CREATE TABLE cluster_node
+(
+    node_id      VARCHAR(255) PRIMARY KEY,
+    base_url     VARCHAR(255)             NOT NULL,
+    heartbeat_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Rows are created by the first node to start, one per partition.
+CREATE TABLE chat_partition_lease
+(
+    partition_id INTEGER PRIMARY KEY,
+    owner_node   VARCHAR(255),
+    owner_url    VARCHAR(255),
+    lease_until  TIMESTAMP WITH TIME ZONE NOT NULL
+);
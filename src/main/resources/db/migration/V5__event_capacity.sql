@@ -0,0 +1,21 @@
+-- Seat limits per event. seats_taken is only ever changed by conditional updates, never by JPA,
+-- and the CHECK is the last line of defence against overselling.
+ALTER TABLE event
+    ADD COLUMN capacity    INTEGER CHECK (capacity >= 0),
+    ADD COLUMN seats_taken INTEGER NOT NULL DEFAULT 0;
+
+ALTER TABLE event
+    ADD CONSTRAINT ck_event_seats CHECK (capacity IS NULL OR seats_taken <= capacity);
+
+-- 0 = confirmed, 1 = waitlisted; NULL until the registration is completed.
+ALTER TABLE user_event
+    ADD COLUMN seat_status SMALLINT CHECK (seat_status BETWEEN 0 AND 1);
+
+UPDATE user_event
+SET seat_status = 0
+WHERE registration_state = 4;
+
+UPDATE event e
+SET seats_taken = (SELECT count(*) FROM user_event ue WHERE ue.event_id = e.id AND ue.seat_status = 0);
+
+CREATE INDEX idx_user_event_waitlist ON user_event (event_id, registration_date) WHERE seat_status = 1;
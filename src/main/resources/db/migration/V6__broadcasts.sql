@@ -0,0 +1,28 @@
+-- Announcements to every team registered for an event, sent in the background.
+CREATE TABLE broadcast
+(
+    id             BIGSERIAL PRIMARY KEY,
+    event_id       BIGINT                   NOT NULL REFERENCES event (id),
+    text           TEXT                     NOT NULL,
+    created_by     BIGINT                   NOT NULL,
+    created_at     TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    -- 0 running, 1 completed
+    status         SMALLINT                 NOT NULL DEFAULT 0,
+    -- Keyset position: the highest user_id already handed to the sender.
+    last_user_id   BIGINT                   NOT NULL DEFAULT 0,
+    delivered      INTEGER                  NOT NULL DEFAULT 0,
+    failed         INTEGER                  NOT NULL DEFAULT 0,
+    finished_at    TIMESTAMP WITH TIME ZONE
+);
+
+CREATE INDEX idx_broadcast_running ON broadcast (id) WHERE status = 0;
+
+-- One row per recipient, inserted before the send: a recipient with a row is never sent to again.
+CREATE TABLE broadcast_delivery
+(
+    broadcast_id BIGINT   NOT NULL REFERENCES broadcast (id) ON DELETE CASCADE,
+    chat_id      BIGINT   NOT NULL,
+    -- 0 handed to the sender, 1 delivered, 2 failed
+    status       SMALLINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (broadcast_id, chat_id)
+);
@@ -0,0 +1,28 @@
+-- Machine-readable start time next to the free-form date, used to schedule reminders.
+ALTER TABLE event ADD COLUMN starts_at TIMESTAMP WITH TIME ZONE;
+
+-- Best effort for existing rows: dates written as ISO dates or date-times are taken over in the
+-- database time zone, anything else stays NULL until set by hand. Invalid values such as 2026-02-30
+-- are skipped row by row.
+DO
+$$
+    DECLARE
+        row RECORD;
+    BEGIN
+        FOR row IN SELECT id, trim(date) AS date FROM event
+                   WHERE trim(date) ~ '^\d{4}-\d{2}-\d{2}([ T]\d{2}:\d{2}(:\d{2})?)?$'
+            LOOP
+                BEGIN
+                    UPDATE event SET starts_at = row.date::timestamptz WHERE id = row.id;
+                EXCEPTION
+                    WHEN others THEN
+                        RAISE NOTICE 'Event % has unparseable date %', row.id, row.date;
+                END;
+            END LOOP;
+    END
+$$;
+
+CREATE INDEX idx_event_starts_at ON event (starts_at) WHERE starts_at IS NOT NULL;
+
+-- Set when a registration's reminder is handed to the sender, so it is never sent twice.
+ALTER TABLE user_event ADD COLUMN reminder_sent_at TIMESTAMP WITH TIME ZONE;
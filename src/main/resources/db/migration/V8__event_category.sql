@@ -0,0 +1,3 @@
+-- Optional grouping of events, used as a browsing filter. Searching and filtering run on the cached
+-- catalog in memory, so no index is needed.
+ALTER TABLE event ADD COLUMN category VARCHAR(64);
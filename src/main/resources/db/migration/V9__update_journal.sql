@@ -0,0 +1,19 @@
+-- Updates received from Telegram but not yet checkpointed. Written before Telegram is told they
+-- arrived, replayed after a crash, pruned once the checkpoint passes them.
+CREATE TABLE update_journal
+(
+    update_id   BIGINT PRIMARY KEY,
+    payload     TEXT                     NOT NULL,
+    received_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- Every update up to last_update_id has been handled and its changes written. A single row.
+CREATE TABLE update_checkpoint
+(
+    id             SMALLINT PRIMARY KEY CHECK (id = 1),
+    last_update_id BIGINT                   NOT NULL,
+    updated_at     TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- Latest update whose changes are stored for the chat; a redelivered update at or below it is skipped.
+ALTER TABLE "user" ADD COLUMN last_update_id INTEGER;
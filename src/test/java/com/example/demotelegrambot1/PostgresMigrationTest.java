@@ -0,0 +1,36 @@
+package com.example.demotelegrambot1;
+
+import com.example.demotelegrambot1.harness.PostgresContainer;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the bot on an empty Postgres, so every Flyway migration runs and Hibernate then checks the
+ * entities against the schema they built. The H2 tests create their schema from the entities and
+ * cannot catch a migration that is missing or disagrees with them.
+ */
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@Import(PostgresContainer.class)
+@Testcontainers(disabledWithoutDocker = true)
+class PostgresMigrationTest {
+
+    @Autowired
+    Flyway flyway;
+
+    @Test
+    void migrationsBuildTheSchemaTheEntitiesExpect() {
+        MigrationInfo[] applied = flyway.info().applied();
+
+        assertThat(flyway.info().pending()).isEmpty();
+        assertThat(applied).isNotEmpty();
+        assertThat(applied).allSatisfy(migration -> assertThat(migration.getState().isFailed()).isFalse());
+        assertThat(applied[0].getVersion().getVersion()).isEqualTo("1");
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demotelegrambot1.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * The contact phone check: {@code String.matches}, which compiles the regex on every call, against a
+ * precompiled pattern.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhoneValidationBenchmark {
+
+    private static final String PHONE_REGEX = "^\\+?[0-9]{9,15}$";
+    private static final Pattern PHONE = Pattern.compile(PHONE_REGEX);
+
+    @Param({"+37499123456", "call me maybe"})
+    String input;
+
+    @Benchmark
+    public boolean stringMatches() {
+        return input.matches(PHONE_REGEX);
+    }
+
+    @Benchmark
+    public boolean precompiledPattern() {
+        return PHONE.matcher(input).matches();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.demotelegrambot1.benchmark;
+
+import com.example.demotelegrambot1.config.CatalogConfig;
+import com.example.demotelegrambot1.persistence.entity.Event;
+import com.example.demotelegrambot1.persistence.repository.EventRepository;
+import com.example.demotelegrambot1.service.catalog.EventCatalog;
+import com.example.demotelegrambot1.service.catalog.EventQuery;
+import com.example.demotelegrambot1.service.render.EventViewRenderer;
+import com.example.demotelegrambot1.service.render.RenderedCatalog;
+import com.example.demotelegrambot1.service.render.RenderedView;
+import com.example.demotelegrambot1.service.routing.CallbackAction;
+import com.example.demotelegrambot1.service.routing.CallbackCodec;
+import com.vdurmont.emoji.EmojiParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event list rendering: emoji parsing, keyboard construction, a full catalog re-render and the
+ * pre-rendered view the handlers actually read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderingBenchmark {
+
+    private static final EventQuery SEARCH = EventQuery.ALL.withText("yerevan hall 1");
+
+    @Param({"5", "50", "500"})
+    int events;
+
+    private List<Event> catalog;
+    private String eventListTemplate;
+    private EventViewRenderer reRenderingViews;
+    private EventViewRenderer cachedViews;
+
+    @Setup
+    public void setUp() {
+        catalog = new ArrayList<>();
+        StringBuilder template = new StringBuilder("Here are the upcoming events:\n");
+        for (int i = 1; i <= events; i++) {
+            Event event = new Event();
+            event.setId((long) i);
+            event.setTitle("Hackathon #" + i);
+            event.setDate("2026-11-" + (i % 28 + 1));
+            event.setLocation("Yerevan, Hall " + i);
+            event.setDescription("Build something great in 48 hours :rocket:");
+            catalog.add(event);
+            template.append(":hash: ").append(event.getTitle()).append("\n");
+        }
+        eventListTemplate = template.toString();
+        // A zero TTL makes every read reload the catalog, so every read renders it again.
+        reRenderingViews = new EventViewRenderer(catalogWithTtl(Duration.ZERO), new CatalogConfig());
+        cachedViews = new EventViewRenderer(catalogWithTtl(Duration.ofDays(1)), new CatalogConfig());
+    }
+
+    /**
+     * What every /events request cost before views were pre-rendered.
+     */
+    @Benchmark
+    public String emojiParseEventList() {
+        return EmojiParser.parseToUnicode(eventListTemplate);
+    }
+
+    @Benchmark
+    public InlineKeyboardMarkup buildEventKeyboard() {
+        List<InlineKeyboardButton> row = new ArrayList<>(catalog.size());
+        for (int i = 0; i < catalog.size(); i++) {
+            InlineKeyboardButton button = new InlineKeyboardButton();
+            button.setText(String.valueOf(i + 1));
+            button.setCallbackData(CallbackCodec.encode(CallbackAction.SHOW_EVENT, catalog.get(i).getId()));
+            row.add(button);
+        }
+        return new InlineKeyboardMarkup(List.of(row));
+    }
+
+    @Benchmark
+    public RenderedCatalog reloadAndRenderCatalog() {
+        return reRenderingViews.current();
+    }
+
+    @Benchmark
+    public RenderedView cachedEventList() {
+        return cachedViews.eventList();
+    }
+
+    /**
+     * One page of search results, served from the catalog's in-memory index.
+     */
+    @Benchmark
+    public RenderedView searchEventPage() {
+        return cachedViews.eventPage(SEARCH, CallbackCodec.NO_ID, CallbackCodec.NO_ID);
+    }
+
+    private EventCatalog catalogWithTtl(Duration ttl) {
+        CatalogConfig config = new CatalogConfig();
+        config.setTtl(ttl);
+        EventRepository repository = (EventRepository) Proxy.newProxyInstance(
+                EventRepository.class.getClassLoader(), new Class<?>[]{EventRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAllByOrderByIdAsc")) {
+                        return catalog;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new EventCatalog(repository, config, new SimpleMeterRegistry());
+    }
+}
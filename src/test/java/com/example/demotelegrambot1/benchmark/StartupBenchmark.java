@@ -0,0 +1,93 @@
+package com.example.demotelegrambot1.benchmark;
+
+import com.example.demotelegrambot1.harness.InProcessBot;
+import com.example.demotelegrambot1.harness.Replies;
+import com.example.demotelegrambot1.harness.Updates;
+import com.example.demotelegrambot1.service.sender.TelegramTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start until the first update is answered: Spring context, Flyway, Hibernate and the update path
+ * on Postgres, with the {@code prod} profile alone and with {@code lean} on top, as deployed. Every fork is a fresh JVM that measures
+ * a single start; the score is the time from starting the context to the reply reaching the transport.
+ * <p>
+ * Needs the {@code PROD_PG*} variables of {@link InProcessBot.Database#POSTGRES}, so the benchmark profile
+ * leaves it out unless included by name: {@code mvn -Pbenchmark verify -Djmh.include=Startup}. In
+ * production the same figure, counted from JVM start, is the {@code bot.startup.first.update} gauge.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    @Param({"prod", "prod,lean"})
+    String profile;
+
+    private InProcessBot inProcessBot;
+
+    @Setup(Level.Trial)
+    public void requirePostgres() {
+        if (System.getenv("PROD_PGHOST") == null) {
+            throw new IllegalStateException("StartupBenchmark needs Postgres: set the PROD_PG* variables");
+        }
+    }
+
+    @Benchmark
+    public void timeToFirstUpdate() throws InterruptedException {
+        CountDownLatch replied = new CountDownLatch(1);
+        TelegramTransport transport = new TelegramTransport() {
+            @Override
+            public <T extends Serializable, M extends BotApiMethod<T>> CompletableFuture<T> send(M method) {
+                replied.countDown();
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public CompletableFuture<Message> send(SendDocument document) {
+                replied.countDown();
+                return CompletableFuture.completedFuture(Replies.document(document));
+            }
+
+            @Override
+            public CompletableFuture<Message> send(SendPhoto photo) {
+                replied.countDown();
+                return CompletableFuture.completedFuture(Replies.photo(photo));
+            }
+        };
+        inProcessBot = InProcessBot.start(transport, InProcessBot.Database.POSTGRES, false,
+                "--spring.profiles.active=" + profile);
+        inProcessBot.bot().onUpdateReceived(Updates.text(1, "/start"));
+        if (!replied.await(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("No reply to the first update");
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopBot() {
+        inProcessBot.close();
+    }
+}
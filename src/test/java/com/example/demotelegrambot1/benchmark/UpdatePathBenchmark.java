@@ -0,0 +1,135 @@
+package com.example.demotelegrambot1.benchmark;
+
+import com.example.demotelegrambot1.harness.InProcessBot;
+import com.example.demotelegrambot1.harness.Replies;
+import com.example.demotelegrambot1.harness.Updates;
+import com.example.demotelegrambot1.persistence.entity.Event;
+import com.example.demotelegrambot1.persistence.repository.EventRepository;
+import com.example.demotelegrambot1.service.TelegramBotService;
+import com.example.demotelegrambot1.service.routing.CallbackAction;
+import com.example.demotelegrambot1.service.routing.CallbackCodec;
+import com.example.demotelegrambot1.service.sender.TelegramTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * The whole update path from {@link TelegramBotService#onUpdateReceived} to the outbound call: dispatcher,
+ * session store, routing, rendering and sender, with H2 in place of Postgres and a transport that answers
+ * every Bot API call immediately instead of calling Telegram.
+ * <p>
+ * Each invocation hands one update per chat to the bot and waits until every reply reached the transport.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpdatePathBenchmark {
+
+    static final int CHATS = 256;
+
+    static final AtomicLong SENT = new AtomicLong();
+
+    private InProcessBot inProcessBot;
+    private TelegramBotService bot;
+    private long eventId;
+
+    @Setup(Level.Trial)
+    public void startBot() throws InterruptedException {
+        inProcessBot = InProcessBot.start(new CountingTransport(), InProcessBot.Database.H2, false);
+        bot = inProcessBot.bot();
+
+        EventRepository events = inProcessBot.bean(EventRepository.class);
+        for (int i = 1; i <= 5; i++) {
+            Event event = new Event();
+            event.setTitle("Hackathon #" + i);
+            event.setDate("2026-11-0" + i);
+            event.setLocation("Hall " + i);
+            event.setDescription("48 hours of building");
+            eventId = events.save(event).getId();
+        }
+
+        // Register every chat so callbacks find their user.
+        deliver(chatId -> Updates.text(chatId, "/start"));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopBot() {
+        inProcessBot.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHATS)
+    public void eventsCommand() throws InterruptedException {
+        deliver(chatId -> Updates.text(chatId, "/events"));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHATS)
+    public void eventDetailsCallback() throws InterruptedException {
+        String data = CallbackCodec.encode(CallbackAction.SHOW_EVENT, eventId);
+        deliver(chatId -> Updates.callback(chatId, data));
+    }
+
+    private void deliver(LongFunction<Update> updateFor) throws InterruptedException {
+        long expected = SENT.get() + CHATS;
+        List<Update> updates = new ArrayList<>(CHATS);
+        for (long chatId = 1; chatId <= CHATS; chatId++) {
+            updates.add(updateFor.apply(chatId));
+        }
+        bot.onUpdatesReceived(updates);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (SENT.get() < expected) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Replies missing: " + (expected - SENT.get()));
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static final class CountingTransport implements TelegramTransport {
+
+        @Override
+        public <T extends Serializable, M extends BotApiMethod<T>> CompletableFuture<T> send(M method) {
+            SENT.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Message> send(SendDocument document) {
+            SENT.incrementAndGet();
+            return CompletableFuture.completedFuture(Replies.document(document));
+        }
+
+        @Override
+        public CompletableFuture<Message> send(SendPhoto photo) {
+            SENT.incrementAndGet();
+            return CompletableFuture.completedFuture(Replies.photo(photo));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demotelegrambot1.benchmark;
+
+import com.example.demotelegrambot1.enums.RegistrationState;
+import com.example.demotelegrambot1.service.routing.CallbackAction;
+import com.example.demotelegrambot1.service.routing.CallbackCodec;
+import com.example.demotelegrambot1.service.routing.ChatCommand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routing cost of one update: the former {@code startsWith}/{@code split}/{@code name()} chains against
+ * {@link CallbackCodec} and enum-keyed dispatch tables. Handlers are stubs, only routing is measured.
+ * <p>
+ * Run with {@code mvn test-compile} and then {@code UpdateRoutingBenchmark.main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateRoutingBenchmark {
+
+    private static final int MIX = 1024;
+
+    private String[] legacyCallbacks;
+    private String[] compactCallbacks;
+    private String[] texts;
+    private RegistrationState[] states;
+
+    private final Map<CallbackAction, Route> callbackTable = new EnumMap<>(CallbackAction.class);
+    private final Map<ChatCommand, Route> commandTable = new EnumMap<>(ChatCommand.class);
+    private final Map<RegistrationState, Route> stepTable = new EnumMap<>(RegistrationState.class);
+
+    @FunctionalInterface
+    interface Route {
+        void handle(Blackhole blackhole, long id);
+    }
+
+    @Setup
+    public void setUp() {
+        legacyCallbacks = new String[MIX];
+        compactCallbacks = new String[MIX];
+        texts = new String[MIX];
+        states = new RegistrationState[MIX];
+        String[] freeText = {"/start", "/events", "/help", "Ann Smith\nBob Jones", "Team Rocket", "+37499123456"};
+        for (int i = 0; i < MIX; i++) {
+            long eventId = 1 + (i * 7919L) % 5000;
+            switch (i % 3) {
+                case 0 -> {
+                    legacyCallbacks[i] = "event_" + eventId;
+                    compactCallbacks[i] = CallbackCodec.encode(CallbackAction.SHOW_EVENT, eventId);
+                }
+                case 1 -> {
+                    legacyCallbacks[i] = "register_event_" + eventId;
+                    compactCallbacks[i] = CallbackCodec.encode(CallbackAction.REGISTER, eventId);
+                }
+                default -> {
+                    legacyCallbacks[i] = "back_to_events";
+                    compactCallbacks[i] = CallbackCodec.encode(CallbackAction.BACK_TO_EVENTS);
+                }
+            }
+            texts[i] = freeText[i % freeText.length];
+            states[i] = RegistrationState.values()[i % RegistrationState.values().length];
+        }
+
+        for (CallbackAction action : CallbackAction.values()) {
+            callbackTable.put(action, (blackhole, id) -> blackhole.consume(id));
+        }
+        for (ChatCommand command : ChatCommand.values()) {
+            commandTable.put(command, (blackhole, id) -> blackhole.consume(id));
+        }
+        stepTable.put(RegistrationState.AWAITING_TEAM_MEMBERS, (blackhole, id) -> blackhole.consume(id));
+        stepTable.put(RegistrationState.AWAITING_TEAM_NAME, (blackhole, id) -> blackhole.consume(id));
+        stepTable.put(RegistrationState.AWAITING_CONTACT_PHONE, (blackhole, id) -> blackhole.consume(id));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MIX)
+    public void legacyCallbacks(Blackhole blackhole) {
+        for (String data : legacyCallbacks) {
+            if (data.startsWith("event_")) {
+                blackhole.consume(Long.parseLong(data.split("_")[1]));
+            } else if (data.startsWith("register_event_")) {
+                blackhole.consume(Long.parseLong(data.split("_")[2]));
+            } else if (data.equals("back_to_events")) {
+                blackhole.consume(0L);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MIX)
+    public void tableCallbacks(Blackhole blackhole) {
+        for (String data : compactCallbacks) {
+            CallbackAction action = CallbackCodec.action(data);
+            long id = action.hasId() ? CallbackCodec.id(data, action) : CallbackCodec.NO_ID;
+            callbackTable.get(action).handle(blackhole, id);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MIX)
+    public void tableLegacyCallbacks(Blackhole blackhole) {
+        for (String data : legacyCallbacks) {
+            CallbackAction action = CallbackCodec.action(data);
+            long id = action.hasId() ? CallbackCodec.id(data, action) : CallbackCodec.NO_ID;
+            callbackTable.get(action).handle(blackhole, id);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MIX)
+    public void legacyMessages(Blackhole blackhole) {
+        for (int i = 0; i < MIX; i++) {
+            String text = texts[i];
+            switch (text) {
+                case "/start", "/help", "/events" -> {
+                    blackhole.consume(text);
+                    continue;
+                }
+                default -> {
+                }
+            }
+            switch (states[i].name()) {
+                case "AWAITING_TEAM_MEMBERS", "AWAITING_TEAM_NAME", "AWAITING_CONTACT_PHONE" -> blackhole.consume(i);
+                default -> blackhole.consume(-i);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MIX)
+    public void tableMessages(Blackhole blackhole) {
+        for (int i = 0; i < MIX; i++) {
+            ChatCommand command = ChatCommand.of(texts[i]);
+            if (command != null) {
+                commandTable.get(command).handle(blackhole, i);
+                continue;
+            }
+            Route step = stepTable.get(states[i]);
+            if (step != null) {
+                step.handle(blackhole, i);
+            } else {
+                blackhole.consume(-i);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UpdateRoutingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
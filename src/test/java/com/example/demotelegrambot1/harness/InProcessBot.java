@@ -0,0 +1,161 @@
+package com.example.demotelegrambot1.harness;
+
+import com.example.demotelegrambot1.DemoTelegrambot1Application;
+import com.example.demotelegrambot1.service.TelegramBotService;
+import com.example.demotelegrambot1.service.sender.TelegramTransport;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boots the whole bot in-process with a caller-supplied {@link TelegramTransport} in place of the
+ * Bot API, for benchmarks and load tests. No webhook server, no long polling, and by default an
+ * in-memory H2 database instead of Postgres. Every JDBC statement the bot prepares is counted.
+ */
+public final class InProcessBot implements AutoCloseable {
+
+    public enum Database {
+        /**
+         * In-memory H2 with the schema generated from the entities.
+         */
+        H2,
+        /**
+         * The database configured through the {@code PROD_PG*} variables, migrated by Flyway.
+         */
+        POSTGRES
+    }
+
+    private final ConfigurableApplicationContext context;
+    private final AtomicLong statements;
+
+    private InProcessBot(ConfigurableApplicationContext context, AtomicLong statements) {
+        this.context = context;
+        this.statements = statements;
+    }
+
+    /**
+     * @param telegramRateLimits keep the sender's Telegram rate limits and the bot's per-chat admission
+     *                           limits; otherwise they are lifted so the bot itself is measured
+     */
+    public static InProcessBot start(TelegramTransport transport, Database database, boolean telegramRateLimits,
+                                     String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.main.web-application-type=none",
+                "--spring.jpa.show-sql=false",
+                "--bot.mode=polling",
+                "--bot.bot-token=",
+                // Generated update IDs restart at 1 with every run and would fall below a stored checkpoint.
+                "--bot.intake.journal=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example=ERROR"
+        ));
+        if (database == Database.H2) {
+            args.addAll(List.of(
+                    "--spring.datasource.url=jdbc:h2:mem:bot;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.flyway.enabled=false",
+                    "--spring.jpa.hibernate.ddl-auto=create-drop",
+                    "--bot.broadcast.resume-on-startup=false",
+                    "--bot.stats.persist=false"
+            ));
+        }
+        if (!telegramRateLimits) {
+            args.addAll(List.of(
+                    "--bot.sender.global-rate-per-second=1000000000",
+                    "--bot.sender.global-burst=1000000000",
+                    "--bot.sender.chat-rate-per-second=1000000000",
+                    "--bot.sender.chat-burst=1000000000",
+                    "--bot.sender.merge-texts=false",
+                    // Benchmarks send far faster per chat than any user and would be shed.
+                    "--bot.admission.enabled=false"
+            ));
+        }
+        args.addAll(List.of(extraArgs));
+
+        AtomicLong statements = new AtomicLong();
+        SpringApplication application = new SpringApplication(DemoTelegrambot1Application.class);
+        application.addInitializers(context -> {
+            GenericApplicationContext generic = (GenericApplicationContext) context;
+            generic.registerBean("inProcessTransport", TelegramTransport.class, () -> transport,
+                    definition -> definition.setPrimary(true));
+            generic.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)
+                            ? new CountingDataSource(dataSource, statements)
+                            : bean;
+                }
+            });
+        });
+        return new InProcessBot(application.run(args.toArray(String[]::new)), statements);
+    }
+
+    public TelegramBotService bot() {
+        return context.getBean(TelegramBotService.class);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * JDBC statements prepared or created so far, including those issued through {@code JdbcTemplate}.
+     */
+    public long statements() {
+        return statements.get();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private static final class CountingDataSource extends DelegatingDataSource {
+
+        private final AtomicLong statements;
+
+        CountingDataSource(DataSource target, AtomicLong statements) {
+            super(target);
+            this.statements = statements;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+
+        private Connection counting(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "prepareStatement", "prepareCall", "createStatement" -> statements.incrementAndGet();
+                            default -> {
+                            }
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
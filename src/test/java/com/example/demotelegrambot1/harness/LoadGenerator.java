@@ -0,0 +1,322 @@
+package com.example.demotelegrambot1.harness;
+
+import com.example.demotelegrambot1.persistence.entity.Event;
+import com.example.demotelegrambot1.persistence.repository.EventRepository;
+import com.example.demotelegrambot1.service.TelegramBotService;
+import com.example.demotelegrambot1.service.routing.CallbackAction;
+import com.example.demotelegrambot1.service.routing.CallbackCodec;
+import com.example.demotelegrambot1.service.sender.TelegramTransport;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulates many users walking the bot's flows at once, in-process, and reports throughput, reply
+ * latency per handler and JDBC statements per update.
+ * <p>
+ * Every virtual user runs one flow: {@code browse} ({@code /events}, event details, back, another
+ * event, back) or {@code register} ({@code /events}, event details, register, team members, team name,
+ * phone). The next step is sent a random think time after the bot's first reply to the previous one;
+ * a step's latency is the time from handing the update to the bot until that first reply reaches the
+ * transport. Run for example:
+ * <pre>
+ * LoadGenerator --users=5000 --ramp-up-s=20 --think-ms=200-2000 --mix=browse:70,register:30
+ * LoadGenerator --users=500 --db=postgres --capacity=100 --telegram-limits=true
+ * </pre>
+ * {@code --db=postgres} uses the {@code PROD_PG*} database; the default is in-memory H2. Telegram's
+ * rate limits are lifted unless {@code --telegram-limits=true}, so the bot itself is what gets measured.
+ */
+public class LoadGenerator {
+
+    enum Step {
+        EVENTS, EVENT_DETAILS, BACK_TO_EVENTS, REGISTER, TEAM_MEMBERS, TEAM_NAME, CONTACT_PHONE
+    }
+
+    enum Flow {
+        BROWSE(Step.EVENTS, Step.EVENT_DETAILS, Step.BACK_TO_EVENTS, Step.EVENT_DETAILS, Step.BACK_TO_EVENTS),
+        REGISTER(Step.EVENTS, Step.EVENT_DETAILS, Step.REGISTER, Step.TEAM_MEMBERS, Step.TEAM_NAME, Step.CONTACT_PHONE);
+
+        final Step[] steps;
+
+        Flow(Step... steps) {
+            this.steps = steps;
+        }
+    }
+
+    private final Map<Step, ConcurrentLinkedQueue<Long>> latencies = new EnumMap<>(Step.class);
+    private final Map<Step, AtomicLong> timeouts = new EnumMap<>(Step.class);
+    private final ConcurrentHashMap<Long, VirtualUser> users = new ConcurrentHashMap<>();
+    private final AtomicLong updatesSent = new AtomicLong();
+    private final ScheduledExecutorService clock;
+
+    private final int thinkMinMillis;
+    private final int thinkMaxMillis;
+    private final long stepTimeoutMillis;
+
+    private TelegramBotService bot;
+    private List<Long> eventIds;
+    private CountDownLatch finished;
+
+    LoadGenerator(int thinkMinMillis, int thinkMaxMillis, long stepTimeoutMillis, int clockThreads) {
+        this.thinkMinMillis = thinkMinMillis;
+        this.thinkMaxMillis = thinkMaxMillis;
+        this.stepTimeoutMillis = stepTimeoutMillis;
+        this.clock = Executors.newScheduledThreadPool(clockThreads);
+        for (Step step : Step.values()) {
+            latencies.put(step, new ConcurrentLinkedQueue<>());
+            timeouts.put(step, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int userCount = Integer.parseInt(options.getOrDefault("users", "1000"));
+        int rampUpSeconds = Integer.parseInt(options.getOrDefault("ramp-up-s", "10"));
+        String[] think = options.getOrDefault("think-ms", "200-1500").split("-");
+        Map<Flow, Integer> mix = parseMix(options.getOrDefault("mix", "browse:70,register:30"));
+        int eventCount = Integer.parseInt(options.getOrDefault("events", "5"));
+        Integer capacity = options.containsKey("capacity") ? Integer.valueOf(options.get("capacity")) : null;
+        InProcessBot.Database database = InProcessBot.Database.valueOf(options.getOrDefault("db", "h2").toUpperCase());
+        boolean telegramLimits = Boolean.parseBoolean(options.getOrDefault("telegram-limits", "false"));
+
+        LoadGenerator generator = new LoadGenerator(Integer.parseInt(think[0]), Integer.parseInt(think[think.length - 1]),
+                Long.parseLong(options.getOrDefault("step-timeout-ms", "10000")),
+                Integer.parseInt(options.getOrDefault("clock-threads", "4")));
+        try (InProcessBot inProcessBot = InProcessBot.start(generator.new ReplyTransport(), database, telegramLimits)) {
+            generator.run(inProcessBot, userCount, rampUpSeconds, mix, eventCount, capacity);
+        }
+        System.exit(0);
+    }
+
+    void run(InProcessBot inProcessBot, int userCount, int rampUpSeconds, Map<Flow, Integer> mix,
+             int eventCount, Integer capacity) throws InterruptedException {
+        bot = inProcessBot.bot();
+        eventIds = seedEvents(inProcessBot.bean(EventRepository.class), eventCount, capacity);
+        finished = new CountDownLatch(userCount);
+
+        List<Flow> flows = new ArrayList<>();
+        mix.forEach((flow, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                flows.add(flow);
+            }
+        });
+        Map<Flow, Integer> started = new EnumMap<>(Flow.class);
+        long baseChatId = 1_000_000L + ThreadLocalRandom.current().nextInt(1_000_000) * 100_000L;
+        long rampUpNanos = TimeUnit.SECONDS.toNanos(rampUpSeconds);
+
+        long statementsBefore = inProcessBot.statements();
+        long begin = System.nanoTime();
+        for (int i = 0; i < userCount; i++) {
+            Flow flow = flows.get(i % flows.size());
+            started.merge(flow, 1, Integer::sum);
+            VirtualUser user = new VirtualUser(baseChatId + i, flow, eventIds.get(i % eventIds.size()));
+            users.put(user.chatId, user);
+            long delay = userCount > 1 ? rampUpNanos * i / (userCount - 1) : 0;
+            clock.schedule(() -> send(user), delay, TimeUnit.NANOSECONDS);
+        }
+        boolean completed = finished.await(rampUpSeconds + 600L, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - begin;
+        long statements = inProcessBot.statements() - statementsBefore;
+        clock.shutdownNow();
+
+        report(userCount, started, elapsed, statements, completed);
+    }
+
+    private List<Long> seedEvents(EventRepository repository, int count, Integer capacity) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Event event = new Event();
+            event.setTitle("Load test event " + i);
+            event.setDate("2026-12-" + (10 + i));
+            event.setLocation("Hall " + i);
+            event.setDescription("Synthetic event for load generation");
+            event.setCapacity(capacity);
+            ids.add(repository.save(event).getId());
+        }
+        return ids;
+    }
+
+    private void send(VirtualUser user) {
+        Step step = user.flow.steps[user.position];
+        Update update = switch (step) {
+            case EVENTS -> Updates.text(user.chatId, "/events");
+            case EVENT_DETAILS -> Updates.callback(user.chatId, CallbackCodec.encode(CallbackAction.SHOW_EVENT, nextEvent(user)));
+            case BACK_TO_EVENTS -> Updates.callback(user.chatId, CallbackCodec.encode(CallbackAction.BACK_TO_EVENTS));
+            case REGISTER -> Updates.callback(user.chatId, CallbackCodec.encode(CallbackAction.REGISTER, user.eventId));
+            case TEAM_MEMBERS -> Updates.text(user.chatId, "Ann Smith\nBob Jones\nCarol White");
+            case TEAM_NAME -> Updates.text(user.chatId, "Team " + user.chatId);
+            case CONTACT_PHONE -> Updates.text(user.chatId, "+3749" + (user.chatId % 10_000_000 + 10_000_000));
+        };
+        int attempt;
+        synchronized (user) {
+            attempt = ++user.attempt;
+            user.sentAt = System.nanoTime();
+            user.awaitingReply = true;
+        }
+        updatesSent.incrementAndGet();
+        bot.onUpdateReceived(update);
+        clock.schedule(() -> timeout(user, attempt), stepTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private long nextEvent(VirtualUser user) {
+        if (user.flow == Flow.REGISTER) {
+            return user.eventId;
+        }
+        return eventIds.get(ThreadLocalRandom.current().nextInt(eventIds.size()));
+    }
+
+    private void onReply(long chatId) {
+        VirtualUser user = users.get(chatId);
+        if (user == null) {
+            return;
+        }
+        Step step;
+        synchronized (user) {
+            if (!user.awaitingReply) {
+                // Second message of a step that sends several.
+                return;
+            }
+            user.awaitingReply = false;
+            step = user.flow.steps[user.position];
+            latencies.get(step).add(System.nanoTime() - user.sentAt);
+        }
+        advance(user);
+    }
+
+    private void timeout(VirtualUser user, int attempt) {
+        synchronized (user) {
+            if (!user.awaitingReply || user.attempt != attempt) {
+                return;
+            }
+            user.awaitingReply = false;
+            timeouts.get(user.flow.steps[user.position]).incrementAndGet();
+            // The rest of the flow depends on this step, so the user gives up.
+            user.position = user.flow.steps.length;
+        }
+        finished.countDown();
+    }
+
+    private void advance(VirtualUser user) {
+        synchronized (user) {
+            user.position++;
+            if (user.position >= user.flow.steps.length) {
+                finished.countDown();
+                return;
+            }
+        }
+        long think = thinkMinMillis + ThreadLocalRandom.current().nextLong(Math.max(1, thinkMaxMillis - thinkMinMillis + 1));
+        clock.schedule(() -> send(user), think, TimeUnit.MILLISECONDS);
+    }
+
+    private void report(int userCount, Map<Flow, Integer> started, long elapsedNanos, long statements, boolean completed) {
+        double seconds = elapsedNanos / 1e9;
+        long updates = updatesSent.get();
+        System.out.printf("%nusers=%d flows=%s updates=%d duration=%.1fs%s%n", userCount, started, updates, seconds,
+                completed ? "" : " (gave up waiting, some users unfinished)");
+        System.out.printf("throughput: %.0f updates/s%n", updates / seconds);
+        System.out.printf("%-16s %8s %9s %9s %9s %9s%n", "handler", "count", "p50 ms", "p99 ms", "max ms", "timeouts");
+        for (Step step : Step.values()) {
+            List<Long> sorted = new ArrayList<>(latencies.get(step));
+            if (sorted.isEmpty() && timeouts.get(step).get() == 0) {
+                continue;
+            }
+            sorted.sort(null);
+            System.out.printf("%-16s %8d %9.2f %9.2f %9.2f %9d%n", step.name().toLowerCase(), sorted.size(),
+                    percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6,
+                    sorted.isEmpty() ? 0 : sorted.get(sorted.size() - 1) / 1e6, timeouts.get(step).get());
+        }
+        System.out.printf("db statements: %d total, %.2f per update%n", statements, updates == 0 ? 0 : (double) statements / updates);
+    }
+
+    /**
+     * Stands in for the Bot API and turns every message sent to a chat into a reply event.
+     */
+    class ReplyTransport implements TelegramTransport {
+
+        @Override
+        public <T extends Serializable, M extends BotApiMethod<T>> CompletableFuture<T> send(M method) {
+            String chatId = null;
+            if (method instanceof SendMessage message) {
+                chatId = message.getChatId();
+            } else if (method instanceof EditMessageText edit) {
+                chatId = edit.getChatId();
+            }
+            if (chatId != null) {
+                onReply(Long.parseLong(chatId));
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Message> send(SendDocument document) {
+            onReply(Long.parseLong(document.getChatId()));
+            return CompletableFuture.completedFuture(Replies.document(document));
+        }
+
+        @Override
+        public CompletableFuture<Message> send(SendPhoto photo) {
+            onReply(Long.parseLong(photo.getChatId()));
+            return CompletableFuture.completedFuture(Replies.photo(photo));
+        }
+    }
+
+    private static final class VirtualUser {
+        final long chatId;
+        final Flow flow;
+        final long eventId;
+        int position;
+        int attempt;
+        long sentAt;
+        boolean awaitingReply;
+
+        VirtualUser(long chatId, Flow flow, long eventId) {
+            this.chatId = chatId;
+            this.flow = flow;
+            this.eventId = eventId;
+        }
+    }
+
+    private static Map<Flow, Integer> parseMix(String mix) {
+        Map<Flow, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] flowAndWeight = part.split(":");
+            weights.put(Flow.valueOf(flowAndWeight[0].trim().toUpperCase()), Integer.parseInt(flowAndWeight[1].trim()));
+        }
+        return weights;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private static double percentile(List<Long> sorted, double quantile) {
+        return sorted.isEmpty() ? 0 : sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demotelegrambot1.harness;
+
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Document;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.PhotoSize;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the {@link Message}s the Bot API answers file sends with, for transports standing in for it.
+ */
+public final class Replies {
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private Replies() {
+    }
+
+    /**
+     * The sent photo; an upload gets a new file_id, a photo sent by file_id keeps it.
+     */
+    public static Message photo(SendPhoto photo) {
+        Message message = message(photo.getChatId());
+        PhotoSize size = new PhotoSize();
+        size.setFileId(fileId(photo.getPhoto(), "photo-"));
+        message.setPhoto(List.of(size));
+        message.setCaption(photo.getCaption());
+        return message;
+    }
+
+    public static Message document(SendDocument document) {
+        Message message = message(document.getChatId());
+        Document sent = new Document();
+        sent.setFileId(fileId(document.getDocument(), "document-"));
+        sent.setFileName(document.getDocument().getMediaName());
+        message.setDocument(sent);
+        message.setCaption(document.getCaption());
+        return message;
+    }
+
+    private static String fileId(InputFile file, String prefix) {
+        return file.isNew() ? prefix + NEXT_ID.incrementAndGet() : file.getAttachName();
+    }
+
+    private static Message message(String chatId) {
+        Chat chat = new Chat();
+        chat.setId(Long.parseLong(chatId));
+        chat.setType("private");
+        Message message = new Message();
+        message.setMessageId(NEXT_ID.incrementAndGet());
+        message.setChat(chat);
+        message.setDate((int) (System.currentTimeMillis() / 1000));
+        return message;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demotelegrambot1.harness;
+
+import com.example.demotelegrambot1.persistence.entity.Event;
+
+/**
+ * Builds the {@link Event}s tests register for.
+ */
+public final class TestEvents {
+
+    private TestEvents() {
+    }
+
+    /**
+     * An unsaved event with only the required fields set.
+     */
+    public static Event hackathon() {
+        Event event = new Event();
+        event.setTitle("Hackathon");
+        return event;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demotelegrambot1.harness;
+
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds {@link Update}s shaped like the ones Telegram sends for private chats.
+ */
+public final class Updates {
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private Updates() {
+    }
+
+    public static Update text(long chatId, String text) {
+        Message message = message(chatId);
+        message.setText(text);
+        Update update = new Update();
+        update.setUpdateId(NEXT_ID.incrementAndGet());
+        update.setMessage(message);
+        return update;
+    }
+
+    public static Update callback(long chatId, String data) {
+        CallbackQuery query = new CallbackQuery();
+        query.setId(String.valueOf(NEXT_ID.get()));
+        query.setData(data);
+        query.setMessage(message(chatId));
+        Update update = new Update();
+        update.setUpdateId(NEXT_ID.incrementAndGet());
+        update.setCallbackQuery(query);
+        return update;
+    }
+
+    private static Message message(long chatId) {
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        chat.setType("private");
+        chat.setFirstName("User" + chatId);
+        Message message = new Message();
+        message.setMessageId(1);
+        message.setChat(chat);
+        message.setDate((int) (System.currentTimeMillis() / 1000));
+        return message;
+    }
+}
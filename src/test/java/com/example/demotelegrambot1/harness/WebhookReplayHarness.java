@@ -0,0 +1,174 @@
+package com.example.demotelegrambot1.harness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Posts recorded or synthetic updates to a locally running bot in webhook mode and reports throughput.
+ * <p>
+ * Start the bot with {@code bot.mode=webhook}, then run for example:
+ * <pre>
+ * WebhookReplayHarness --url=http://localhost:8080/telegram/webhook --secret=s3cr3t --file=updates.json
+ * WebhookReplayHarness --url=http://localhost:8080/telegram/webhook --secret=s3cr3t --chats=500 --updates=20000
+ * </pre>
+ * A file holds either one JSON array of updates or one update per line. After all batches are
+ * acknowledged the harness polls {@code bot.dispatcher.queued} until the bot has drained its queues,
+ * so the reported end-to-end rate includes handler time.
+ */
+public class WebhookReplayHarness {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        URI webhook = URI.create(options.getOrDefault("url", "http://localhost:8080/telegram/webhook"));
+        URI queuedMetric = URI.create(options.getOrDefault("metrics-url",
+                webhook.resolve("/actuator/metrics/bot.dispatcher.queued").toString()));
+        String secret = options.getOrDefault("secret", "");
+        int batchSize = Integer.parseInt(options.getOrDefault("batch", "50"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "8"));
+
+        List<JsonNode> updates = options.containsKey("file")
+                ? readUpdates(Path.of(options.get("file")))
+                : synthesize(Integer.parseInt(options.getOrDefault("chats", "100")),
+                Integer.parseInt(options.getOrDefault("updates", "10000")));
+
+        HttpClient client = HttpClient.newHttpClient();
+        ExecutorService senders = Executors.newFixedThreadPool(concurrency);
+        List<Future<Long>> acks = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int from = 0; from < updates.size(); from += batchSize) {
+            ArrayNode batch = MAPPER.createArrayNode().addAll(updates.subList(from, Math.min(from + batchSize, updates.size())));
+            HttpRequest request = HttpRequest.newBuilder(webhook)
+                    .header("Content-Type", "application/json")
+                    .header("X-Telegram-Bot-Api-Secret-Token", secret)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(batch)))
+                    .build();
+            acks.add(senders.submit(() -> {
+                long sent = System.nanoTime();
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Webhook answered " + response.statusCode());
+                }
+                return System.nanoTime() - sent;
+            }));
+        }
+        List<Long> ackLatencies = new ArrayList<>();
+        for (Future<Long> ack : acks) {
+            ackLatencies.add(ack.get());
+        }
+        long acknowledged = System.nanoTime();
+        senders.shutdown();
+
+        while (queuedUpdates(client, queuedMetric) > 0) {
+            Thread.sleep(20);
+        }
+        long drained = System.nanoTime();
+
+        ackLatencies.sort(null);
+        System.out.printf("updates=%d batches=%d%n", updates.size(), acks.size());
+        System.out.printf("ack throughput: %.0f updates/s, batch ack p50=%.2fms p99=%.2fms%n",
+                updates.size() / seconds(acknowledged - started),
+                percentile(ackLatencies, 0.50) / 1e6, percentile(ackLatencies, 0.99) / 1e6);
+        System.out.printf("end-to-end throughput: %.0f updates/s (%.2fs total)%n",
+                updates.size() / seconds(drained - started), seconds(drained - started));
+    }
+
+    private static List<JsonNode> readUpdates(Path file) throws IOException {
+        String content = Files.readString(file).trim();
+        List<JsonNode> updates = new ArrayList<>();
+        if (content.startsWith("[")) {
+            MAPPER.readTree(content).forEach(updates::add);
+        } else {
+            for (String line : content.split("\n")) {
+                if (!line.isBlank()) {
+                    updates.add(MAPPER.readTree(line));
+                }
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Round-robins chats through the browse flow: /events, then event details and back.
+     */
+    private static List<JsonNode> synthesize(int chats, int count) {
+        String[] script = {"/events", "event_1", "back_to_events", "event_2", "back_to_events"};
+        List<JsonNode> updates = new ArrayList<>(count);
+        long now = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < count; i++) {
+            long chatId = 1_000_000 + i % chats;
+            String step = script[(i / chats) % script.length];
+            ObjectNode chat = MAPPER.createObjectNode()
+                    .put("id", chatId)
+                    .put("type", "private")
+                    .put("first_name", "Load" + chatId);
+            ObjectNode from = MAPPER.createObjectNode()
+                    .put("id", chatId)
+                    .put("is_bot", false)
+                    .put("first_name", "Load" + chatId);
+            ObjectNode message = MAPPER.createObjectNode()
+                    .put("message_id", i + 1)
+                    .put("date", now);
+            message.set("chat", chat);
+            message.set("from", from);
+
+            ObjectNode update = MAPPER.createObjectNode().put("update_id", i + 1);
+            if (step.startsWith("/")) {
+                message.put("text", step);
+                update.set("message", message);
+            } else {
+                ObjectNode callback = MAPPER.createObjectNode()
+                        .put("id", "cb" + i)
+                        .put("chat_instance", String.valueOf(chatId))
+                        .put("data", step);
+                callback.set("from", from);
+                callback.set("message", message);
+                update.set("callback_query", callback);
+            }
+            updates.add(update);
+        }
+        return updates;
+    }
+
+    private static double queuedUpdates(HttpClient client, URI metric) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(metric).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        return MAPPER.readTree(response.body()).path("measurements").path(0).path("value").asDouble();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private static double percentile(List<Long> sorted, double quantile) {
+        return sorted.isEmpty() ? 0 : sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1));
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+}
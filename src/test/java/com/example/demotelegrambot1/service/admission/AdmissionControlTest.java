@@ -0,0 +1,140 @@
+package com.example.demotelegrambot1.service.admission;
+
+import com.example.demotelegrambot1.config.AdmissionConfig;
+import com.example.demotelegrambot1.config.DispatcherConfig;
+import com.example.demotelegrambot1.config.SenderConfig;
+import com.example.demotelegrambot1.harness.Replies;
+import com.example.demotelegrambot1.harness.Updates;
+import com.example.demotelegrambot1.service.dispatch.UpdateDispatcher;
+import com.example.demotelegrambot1.service.routing.CallbackAction;
+import com.example.demotelegrambot1.service.routing.CallbackCodec;
+import com.example.demotelegrambot1.service.sender.OutboundMessageSender;
+import com.example.demotelegrambot1.service.sender.TelegramTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link AdmissionControl} sheds navigation before commands as load grows, and that
+ * registration input gets through both overload and a chat's exhausted bucket.
+ */
+class AdmissionControlTest {
+
+    static final long CHAT = 7L;
+
+    SimpleMeterRegistry meterRegistry;
+    UpdateDispatcher dispatcher;
+    OutboundMessageSender sender;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new UpdateDispatcher(new DispatcherConfig(), meterRegistry);
+        SenderConfig config = new SenderConfig();
+        config.setMergeTexts(false);
+        config.setShutdownTimeoutMillis(0);
+        sender = new OutboundMessageSender(new StalledTransport(), config, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        sender.shutdown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void shedsNavigationFirstThenCommandsButNeverRegistration() {
+        AdmissionConfig config = new AdmissionConfig();
+        config.setShedNavigationAbove(1);
+        config.setShedCommandsAbove(3);
+        AdmissionControl admission = new AdmissionControl(config, dispatcher, sender, meterRegistry);
+
+        stallOutbound(2);
+        assertThat(admission.admit(CHAT, Updates.text(CHAT, "/events"))).as("navigation").isFalse();
+        assertThat(admission.admit(CHAT, Updates.callback(CHAT, CallbackCodec.encode(CallbackAction.SHOW_EVENT, 1))))
+                .as("navigation").isFalse();
+        assertThat(admission.admit(CHAT, Updates.text(CHAT, "/help"))).as("command").isTrue();
+        assertThat(admission.admit(CHAT, Updates.text(CHAT, "Team Rocket"))).as("registration").isTrue();
+
+        stallOutbound(2);
+        assertThat(admission.admit(CHAT, Updates.text(CHAT, "/help"))).as("command").isFalse();
+        assertThat(admission.admit(CHAT, Updates.text(CHAT, "+37499000000"))).as("registration").isTrue();
+        assertThat(admission.admit(CHAT, Updates.callback(CHAT, CallbackCodec.encode(CallbackAction.REGISTER, 1))))
+                .as("registration").isTrue();
+
+        assertThat(shed("overload", "navigation")).isEqualTo(2);
+        assertThat(shed("overload", "command")).isEqualTo(1);
+        assertThat(shed("overload", "registration")).isZero();
+    }
+
+    @Test
+    void rateLimitsCommandsButNotRegistrationInput() {
+        AdmissionConfig config = new AdmissionConfig();
+        config.setChatRatePerSecond(0.001);
+        config.setChatBurst(2);
+        AdmissionControl admission = new AdmissionControl(config, dispatcher, sender, meterRegistry);
+
+        assertThat(admission.admit(CHAT, Updates.text(CHAT, "/help"))).isTrue();
+        assertThat(admission.admit(CHAT, Updates.text(CHAT, "/help"))).isTrue();
+        assertThat(admission.admit(CHAT, Updates.text(CHAT, "/help"))).as("over the burst").isFalse();
+
+        // A backlog of registration steps delivered at once, e.g. after a restart, goes through whole.
+        Update register = Updates.callback(CHAT, CallbackCodec.encode(CallbackAction.REGISTER, 1));
+        assertThat(admission.admit(CHAT, register)).isTrue();
+        for (String step : new String[]{"Ann Smith\nBob Jones", "Team Rocket", "+37499000000"}) {
+            assertThat(admission.admit(CHAT, Updates.text(CHAT, step))).as(step).isTrue();
+        }
+        // Registration input is still debounced.
+        assertThat(admission.admit(CHAT, register)).as("repeated tap").isFalse();
+
+        assertThat(shed("rate_limited", "command")).isEqualTo(1);
+        assertThat(shed("rate_limited", "registration")).isZero();
+        assertThat(shed("debounced", "registration")).isEqualTo(1);
+    }
+
+    private void stallOutbound(int calls) {
+        for (int i = 0; i < calls; i++) {
+            SendMessage message = new SendMessage();
+            message.setChatId(CHAT);
+            message.setText("reply " + i);
+            sender.enqueue(CHAT, message);
+        }
+    }
+
+    private double shed(String reason, String priority) {
+        return meterRegistry.get("bot.admission.shed").tag("reason", reason).tag("priority", priority).counter().count();
+    }
+
+    /**
+     * Never answers, so every call sent or queued stays pending.
+     */
+    static class StalledTransport implements TelegramTransport {
+
+        @Override
+        public <T extends Serializable, M extends BotApiMethod<T>> CompletableFuture<T> send(M method) {
+            return new CompletableFuture<>();
+        }
+
+        @Override
+        public CompletableFuture<Message> send(SendDocument document) {
+            return CompletableFuture.completedFuture(Replies.document(document));
+        }
+
+        @Override
+        public CompletableFuture<Message> send(SendPhoto photo) {
+            return CompletableFuture.completedFuture(Replies.photo(photo));
+        }
+    }
+}
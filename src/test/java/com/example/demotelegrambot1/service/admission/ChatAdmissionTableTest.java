@@ -0,0 +1,41 @@
+package com.example.demotelegrambot1.service.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.example.demotelegrambot1.service.admission.ChatAdmissionTable.Verdict.ADMITTED;
+import static com.example.demotelegrambot1.service.admission.ChatAdmissionTable.Verdict.DEBOUNCED;
+import static com.example.demotelegrambot1.service.admission.ChatAdmissionTable.Verdict.RATE_LIMITED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link ChatAdmissionTable} limits each chat on its own, debounces repeated callbacks and
+ * forgets idle chats instead of growing.
+ */
+class ChatAdmissionTableTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void limitsEachChatAndExpiresIdleOnes() {
+        // One update per second, bursts of three, callbacks debounced for a second.
+        ChatAdmissionTable table = new ChatAdmissionTable(16, 1, 3, SECOND);
+        long now = 1_000 * SECOND;
+
+        assertThat(table.admit(7, 42, true, now)).isEqualTo(ADMITTED);
+        assertThat(table.admit(7, 42, true, now + 1)).isEqualTo(DEBOUNCED);
+        assertThat(table.admit(7, 43, true, now + 2)).isEqualTo(ADMITTED);
+        assertThat(table.admit(7, 0, true, now + 3)).isEqualTo(ADMITTED);
+        assertThat(table.admit(7, 0, true, now + 4)).isEqualTo(RATE_LIMITED);
+        assertThat(table.admit(-7, 0, true, now + 5)).isEqualTo(ADMITTED);
+        assertThat(table.admit(7, 42, true, now + SECOND + 4)).isEqualTo(ADMITTED);
+
+        // Thousands of chats passing through, one per second, never need more than the initial table.
+        long later = now + 10 * SECOND;
+        for (long chatId = 100; chatId < 10_000; chatId++) {
+            assertThat(table.admit(chatId, 0, true, later + chatId * SECOND)).isEqualTo(ADMITTED);
+        }
+        assertThat(table.size()).isLessThan(16);
+    }
+}
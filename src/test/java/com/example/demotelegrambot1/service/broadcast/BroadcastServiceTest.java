@@ -0,0 +1,240 @@
+package com.example.demotelegrambot1.service.broadcast;
+
+import com.example.demotelegrambot1.config.BroadcastConfig;
+import com.example.demotelegrambot1.config.SenderConfig;
+import com.example.demotelegrambot1.enums.RegistrationState;
+import com.example.demotelegrambot1.harness.PostgresJpaTest;
+import com.example.demotelegrambot1.harness.Replies;
+import com.example.demotelegrambot1.harness.TestEvents;
+import com.example.demotelegrambot1.persistence.entity.Event;
+import com.example.demotelegrambot1.persistence.entity.User;
+import com.example.demotelegrambot1.persistence.entity.UserEvent;
+import com.example.demotelegrambot1.persistence.repository.EventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserEventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserRepository;
+import com.example.demotelegrambot1.service.sender.OutboundMessageSender;
+import com.example.demotelegrambot1.service.sender.TelegramTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.example.demotelegrambot1.service.render.MessageTemplates.broadcastReport;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Interrupts a {@link BroadcastService} after its first page, as a restart would, and checks that the
+ * node resuming it messages everyone else exactly once and reports the right totals; and that a
+ * replayed {@code /broadcast} update does not start the broadcast again.
+ */
+@PostgresJpaTest
+class BroadcastServiceTest {
+
+    static final long ADMIN = 1L;
+    static final long FIRST_RECIPIENT = 1001L;
+    static final int RECIPIENTS = 7;
+    static final long BLOCKED_RECIPIENT = 1005L;
+    static final int PAGE_SIZE = 3;
+    static final long FIRST_REPLAY_RECIPIENT = 2001L;
+
+    @Autowired
+    EventRepository eventRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    UserEventRepository userEventRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void resumesAfterTheLastPageAndMessagesEveryoneOnce() throws Exception {
+        Event event = eventRepository.save(TestEvents.hackathon());
+        for (long chatId = FIRST_RECIPIENT; chatId < FIRST_RECIPIENT + RECIPIENTS; chatId++) {
+            register(event, chatId, RegistrationState.COMPLETED_REGISTRATION);
+        }
+        register(event, FIRST_RECIPIENT + RECIPIENTS, RegistrationState.AWAITING_TEAM_NAME);
+
+        // Once the first page is out, the first node gets busy with a reply that never completes, so
+        // the broadcast pauses with only that page sent and confirmed.
+        RecordingTransport firstTransport = new RecordingTransport();
+        OutboundMessageSender firstSender = sender(firstTransport);
+        firstTransport.onSent(PAGE_SIZE, () -> firstSender.enqueue(ADMIN, text(ADMIN, "busy")));
+        BroadcastService first = service(firstSender);
+        long broadcastId = first.start(event.getId(), "Doors open at 10", ADMIN, 1).id();
+        await(() -> confirmed(broadcastId) == PAGE_SIZE);
+        first.shutdown();
+        firstSender.shutdown();
+        assertThat(jdbcTemplate.queryForObject("SELECT last_user_id FROM broadcast WHERE id = ?", Long.class, broadcastId))
+                .isEqualTo(FIRST_RECIPIENT + PAGE_SIZE - 1);
+
+        RecordingTransport secondTransport = new RecordingTransport();
+        OutboundMessageSender secondSender = sender(secondTransport);
+        BroadcastService second = service(secondSender);
+        second.resumeUnfinished();
+        await(() -> secondTransport.sentTo(ADMIN).size() == 1);
+        second.shutdown();
+        secondSender.shutdown();
+
+        Map<Long, Long> messagesPerChat = LongStream.range(FIRST_RECIPIENT, FIRST_RECIPIENT + RECIPIENTS + 1)
+                .boxed()
+                .collect(Collectors.toMap(chatId -> chatId,
+                        chatId -> (long) firstTransport.sentTo(chatId).size() + secondTransport.sentTo(chatId).size()));
+        assertThat(messagesPerChat).allSatisfy((chatId, messages) ->
+                assertThat(messages).as("messages to chat %d", chatId).isEqualTo(chatId < FIRST_RECIPIENT + RECIPIENTS ? 1 : 0));
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT status FROM broadcast_delivery WHERE broadcast_id = ? ORDER BY chat_id", Integer.class, broadcastId))
+                .containsExactly(1, 1, 1, 1, 2, 1, 1);
+        assertThat(jdbcTemplate.queryForMap("SELECT status, delivered, failed FROM broadcast WHERE id = ?", broadcastId))
+                .containsEntry("status", 1)
+                .containsEntry("delivered", RECIPIENTS - 1)
+                .containsEntry("failed", 1);
+        assertThat(secondTransport.sentTo(ADMIN)).containsExactly(broadcastReport(broadcastId, RECIPIENTS - 1, 1));
+    }
+
+    @Test
+    void replayedUpdateDoesNotStartASecondBroadcast() throws Exception {
+        Event event = eventRepository.save(TestEvents.hackathon());
+        for (long chatId = FIRST_REPLAY_RECIPIENT; chatId < FIRST_REPLAY_RECIPIENT + PAGE_SIZE; chatId++) {
+            register(event, chatId, RegistrationState.COMPLETED_REGISTRATION);
+        }
+
+        RecordingTransport transport = new RecordingTransport();
+        OutboundMessageSender sender = sender(transport);
+        BroadcastService service = service(sender);
+        BroadcastService.Started started = service.start(event.getId(), "Bring your laptop", ADMIN, 2);
+        BroadcastService.Started replayed = service.start(event.getId(), "Bring your laptop", ADMIN, 2);
+        await(() -> transport.sentTo(ADMIN).size() == 1);
+        service.shutdown();
+        sender.shutdown();
+
+        assertThat(replayed).isEqualTo(started);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM broadcast WHERE event_id = ?", Integer.class, event.getId()))
+                .isEqualTo(1);
+        for (long chatId = FIRST_REPLAY_RECIPIENT; chatId < FIRST_REPLAY_RECIPIENT + PAGE_SIZE; chatId++) {
+            assertThat(transport.sentTo(chatId)).as("messages to chat %d", chatId).containsExactly("Bring your laptop");
+        }
+        assertThat(transport.sentTo(ADMIN)).containsExactly(broadcastReport(started.id(), PAGE_SIZE, 0));
+    }
+
+    private void register(Event event, long chatId, RegistrationState state) {
+        User user = userRepository.save(User.newUser(chatId));
+        UserEvent registration = new UserEvent();
+        registration.setUser(user);
+        registration.setEvent(event);
+        registration.setState(state);
+        registration.setTeamName("Team " + chatId);
+        userEventRepository.save(registration);
+    }
+
+    private int confirmed(long broadcastId) {
+        return jdbcTemplate.queryForObject("SELECT delivered + failed FROM broadcast WHERE id = ?", Integer.class, broadcastId);
+    }
+
+    private BroadcastService service(OutboundMessageSender sender) {
+        BroadcastConfig config = new BroadcastConfig();
+        config.setPageSize(PAGE_SIZE);
+        config.setRatePerSecond(1_000);
+        config.setTickInterval(Duration.ofMillis(20));
+        // Only page while nothing else is being sent.
+        config.setMaxPendingOutbound(0);
+        return new BroadcastService(jdbcTemplate, transactionTemplate, sender, config, new SimpleMeterRegistry());
+    }
+
+    private static OutboundMessageSender sender(TelegramTransport transport) {
+        SenderConfig config = new SenderConfig();
+        config.setGlobalRatePerSecond(1_000);
+        config.setGlobalBurst(1_000);
+        config.setMergeTexts(false);
+        config.setShutdownTimeoutMillis(0);
+        return new OutboundMessageSender(transport, config, new SimpleMeterRegistry());
+    }
+
+    private static SendMessage text(long chatId, String text) {
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId);
+        message.setText(text);
+        return message;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("timed out").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Records every text sent, fails sends to {@link #BLOCKED_RECIPIENT} as Telegram does for a user who
+     * blocked the bot, and leaves the reply to {@link #ADMIN} unanswered while it is "busy".
+     */
+    static class RecordingTransport implements TelegramTransport {
+
+        private final List<SendMessage> sent = new CopyOnWriteArrayList<>();
+        private volatile int triggerAt;
+        private volatile Runnable trigger;
+
+        void onSent(int count, Runnable action) {
+            this.triggerAt = count;
+            this.trigger = action;
+        }
+
+        List<String> sentTo(long chatId) {
+            return sent.stream()
+                    .filter(message -> message.getChatId().equals(String.valueOf(chatId)))
+                    .map(SendMessage::getText)
+                    .filter(text -> !text.equals("busy"))
+                    .toList();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends Serializable, M extends BotApiMethod<T>> CompletableFuture<T> send(M method) {
+            SendMessage message = (SendMessage) method;
+            sent.add(message);
+            if (message.getText().equals("busy")) {
+                return new CompletableFuture<>();
+            }
+            if (sent.size() == triggerAt) {
+                trigger.run();
+            }
+            if (message.getChatId().equals(String.valueOf(BLOCKED_RECIPIENT))) {
+                return CompletableFuture.failedFuture(new TelegramApiRequestException("Forbidden: bot was blocked by the user"));
+            }
+            return CompletableFuture.completedFuture((T) new Message());
+        }
+
+        @Override
+        public CompletableFuture<Message> send(SendDocument document) {
+            return CompletableFuture.completedFuture(Replies.document(document));
+        }
+
+        @Override
+        public CompletableFuture<Message> send(SendPhoto photo) {
+            return CompletableFuture.completedFuture(Replies.photo(photo));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.demotelegrambot1.service.capacity;
+
+import com.example.demotelegrambot1.enums.RegistrationState;
+import com.example.demotelegrambot1.enums.SeatStatus;
+import com.example.demotelegrambot1.harness.H2JpaTest;
+import com.example.demotelegrambot1.harness.TestEvents;
+import com.example.demotelegrambot1.persistence.entity.Event;
+import com.example.demotelegrambot1.persistence.entity.User;
+import com.example.demotelegrambot1.persistence.entity.UserEvent;
+import com.example.demotelegrambot1.persistence.repository.EventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserEventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hundreds of teams completing their registration for one event at the same moment must never get
+ * more confirmed seats than the event has.
+ */
+@H2JpaTest
+@Import({SeatAllocator.class, SeatAllocatorStressTest.Metrics.class})
+class SeatAllocatorStressTest {
+
+    static final int CAPACITY = 25;
+    static final int TEAMS = 400;
+    static final int THREADS = 32;
+
+    @Autowired
+    SeatAllocator seatAllocator;
+
+    @Autowired
+    EventRepository eventRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    UserEventRepository userEventRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    static long nextChatId = 10_000L;
+
+    Event event;
+    List<UserEvent> registrations;
+    long firstChatId;
+
+    @BeforeEach
+    void setUp() {
+        Event newEvent = TestEvents.hackathon();
+        newEvent.setCapacity(CAPACITY);
+        event = eventRepository.save(newEvent);
+
+        firstChatId = nextChatId;
+        nextChatId += TEAMS;
+        registrations = new ArrayList<>();
+        for (int i = 0; i < TEAMS; i++) {
+            User user = userRepository.save(User.newUser(firstChatId + i));
+            UserEvent registration = new UserEvent();
+            registration.setUser(user);
+            registration.setEvent(event);
+            registration.setState(RegistrationState.COMPLETED_REGISTRATION);
+            registration.setRegistrationDate(new Timestamp(i));
+            registrations.add(registration);
+        }
+        registrations = userEventRepository.saveAll(registrations);
+    }
+
+    @Test
+    void concurrentClaimsNeverOversell() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<SeatStatus>> results = new ArrayList<>();
+        for (UserEvent registration : registrations) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return transactionTemplate.execute(status -> seatAllocator.claim(registration));
+            }));
+        }
+        start.countDown();
+        int confirmed = 0;
+        for (Future<SeatStatus> result : results) {
+            if (result.get(30, TimeUnit.SECONDS) == SeatStatus.CONFIRMED) {
+                confirmed++;
+            }
+        }
+        pool.shutdown();
+
+        assertThat(confirmed).isEqualTo(CAPACITY);
+        assertThat(seatsTaken()).isEqualTo(CAPACITY);
+        assertThat(countWithStatus(SeatStatus.CONFIRMED)).isEqualTo(CAPACITY);
+        assertThat(countWithStatus(SeatStatus.WAITLISTED)).isEqualTo(TEAMS - CAPACITY);
+        assertThat(seatAllocator.isFull(event.getId())).isTrue();
+    }
+
+    @Test
+    void raisedCapacityPromotesOldestWaitlistedFirst() {
+        for (UserEvent registration : registrations) {
+            transactionTemplate.execute(status -> seatAllocator.claim(registration));
+        }
+
+        jdbcTemplate.update("UPDATE event SET capacity = ? WHERE id = ?", CAPACITY + 5, event.getId());
+        List<Long> promoted = seatAllocator.promoteWaitlisted(event.getId());
+
+        assertThat(promoted).containsExactly(firstChatId + CAPACITY, firstChatId + CAPACITY + 1,
+                firstChatId + CAPACITY + 2, firstChatId + CAPACITY + 3, firstChatId + CAPACITY + 4);
+        assertThat(seatsTaken()).isEqualTo(CAPACITY + 5);
+        assertThat(seatAllocator.promoteWaitlisted(event.getId())).isEmpty();
+        assertThat(seatsTaken()).isEqualTo(CAPACITY + 5);
+    }
+
+    private int seatsTaken() {
+        return jdbcTemplate.queryForObject("SELECT seats_taken FROM event WHERE id = ?", Integer.class, event.getId());
+    }
+
+    private int countWithStatus(SeatStatus status) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM user_event WHERE event_id = ? AND seat_status = ?",
+                Integer.class, event.getId(), status.ordinal());
+    }
+
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demotelegrambot1.service.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSearchTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-18T12:00:00Z");
+
+    private final CatalogSnapshot catalog = new CatalogSnapshot(1, 0, List.of(
+            event(1, "Robotics Hackathon", "Yerevan, Hall 1", "hackathon", Duration.ofDays(3)),
+            event(2, "Pub Quiz", "Gyumri", "Quiz", Duration.ofDays(20)),
+            event(3, "Robot Wars Quiz", "Yerevan, Hall 2", "quiz", null),
+            event(4, "Data Hackathon", "Online", "hackathon", Duration.ofDays(-1))
+    ));
+
+    @Test
+    void matchesEveryWordAsAPrefix() {
+        assertThat(ids(EventQuery.ALL.withText("robot"))).containsExactly(1L, 3L);
+        assertThat(ids(EventQuery.ALL.withText("ROBOT yerevan, hall 2"))).containsExactly(3L);
+        assertThat(ids(EventQuery.ALL.withText("robot gyumri"))).isEmpty();
+        assertThat(ids(EventQuery.ALL.withText("  "))).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void filtersByCategoryAndStartDate() {
+        assertThat(catalog.categories()).containsExactly("hackathon", "Quiz");
+        assertThat(ids(EventQuery.ALL.withCategory("quiz"))).containsExactly(2L, 3L);
+        assertThat(ids(EventQuery.ALL.withDates(EventQuery.Dates.NEXT_7_DAYS))).containsExactly(1L);
+        assertThat(ids(EventQuery.ALL.withDates(EventQuery.Dates.NEXT_30_DAYS).withText("quiz"))).containsExactly(2L);
+    }
+
+    private List<Long> ids(EventQuery query) {
+        return catalog.search(query, NOW).stream().map(EventSnapshot::id).toList();
+    }
+
+    private static EventSnapshot event(long id, String title, String location, String category, Duration startsIn) {
+        return new EventSnapshot(id, title, null, location, "Bring a laptop", null,
+                startsIn == null ? null : NOW.plus(startsIn), category, null, null, null);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demotelegrambot1.service.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.LongUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link ChatPartitioner} spreads the chat IDs Telegram actually hands out, dense ranges
+ * of users and negative group IDs, evenly over the partitions.
+ */
+class ChatPartitionerTest {
+
+    static final int PARTITIONS = 64;
+    static final int CHATS = 64_000;
+
+    @Test
+    void spreadsUsersAndGroupsEvenly() {
+        assertEven(i -> 5_000_000_000L + i);
+        assertEven(i -> -1_001_000_000_000L - i);
+        // Every 64th chat, which a plain modulo would put into a single partition.
+        assertEven(i -> 1_000_000L + i * PARTITIONS);
+    }
+
+    @Test
+    void keepsAChatInOnePartition() {
+        for (long chatId : new long[]{0, 1, -1, Long.MIN_VALUE, Long.MAX_VALUE, -1_001_234_567_890L}) {
+            int partition = ChatPartitioner.partitionOf(chatId, PARTITIONS);
+            assertThat(partition).isBetween(0, PARTITIONS - 1);
+            assertThat(ChatPartitioner.partitionOf(chatId, PARTITIONS)).isEqualTo(partition);
+        }
+    }
+
+    private static void assertEven(LongUnaryOperator chatIds) {
+        int[] counts = new int[PARTITIONS];
+        for (int i = 0; i < CHATS; i++) {
+            counts[ChatPartitioner.partitionOf(chatIds.applyAsLong(i), PARTITIONS)]++;
+        }
+        int expected = CHATS / PARTITIONS;
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            assertThat(counts[partition]).as("chats in partition %d", partition)
+                    .isBetween(expected * 8 / 10, expected * 12 / 10);
+        }
+    }
+}
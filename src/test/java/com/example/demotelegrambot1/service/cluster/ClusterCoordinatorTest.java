@@ -0,0 +1,199 @@
+package com.example.demotelegrambot1.service.cluster;
+
+import com.example.demotelegrambot1.config.BotConfig;
+import com.example.demotelegrambot1.config.ClusterConfig;
+import com.example.demotelegrambot1.config.DispatcherConfig;
+import com.example.demotelegrambot1.config.SessionConfig;
+import com.example.demotelegrambot1.enums.BotMode;
+import com.example.demotelegrambot1.harness.PostgresJpaTest;
+import com.example.demotelegrambot1.persistence.entity.User;
+import com.example.demotelegrambot1.persistence.repository.UserEventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserRepository;
+import com.example.demotelegrambot1.service.dispatch.UpdateDispatcher;
+import com.example.demotelegrambot1.service.session.SessionStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts two {@link ClusterCoordinator}s on one database and checks that they split the partitions so
+ * every chat has exactly one owner, and that the survivor takes over all of them once the other node
+ * loses the database, but only after that node stopped processing. A node whose lease merely ran out
+ * writes its cached sessions before dropping them, unless another node took the partition already.
+ */
+@PostgresJpaTest
+class ClusterCoordinatorTest {
+
+    static final int PARTITIONS = 8;
+    static final int CHATS = 1_000;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    UserEventRepository userEventRepository;
+
+    @BeforeEach
+    void clearLeases() {
+        jdbcTemplate.update("DELETE FROM chat_partition_lease");
+        jdbcTemplate.update("DELETE FROM cluster_node");
+    }
+
+    @Test
+    void splitsPartitionsAndFailsOver() throws Exception {
+        FlakyDataSource firstDatabase = new FlakyDataSource(dataSource);
+        SimpleMeterRegistry firstMeters = new SimpleMeterRegistry();
+        ClusterCoordinator first = coordinator("node-a", new JdbcTemplate(firstDatabase), firstMeters);
+        assertThat(owned(firstMeters)).as("partitions of the only node").isEqualTo(PARTITIONS);
+
+        // The first node hands half of its partitions over once it sees the second one.
+        SimpleMeterRegistry secondMeters = new SimpleMeterRegistry();
+        ClusterCoordinator second = coordinator("node-b", jdbcTemplate, secondMeters);
+        await(() -> owned(firstMeters) == PARTITIONS / 2 && owned(secondMeters) == PARTITIONS / 2);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT owner_node FROM chat_partition_lease WHERE lease_until > now() "
+                        + "GROUP BY owner_node HAVING count(*) = ? ORDER BY owner_node", String.class, PARTITIONS / 2))
+                .containsExactly("node-a", "node-b");
+        for (long chatId = 0; chatId < CHATS; chatId++) {
+            assertThat(first.mayProcess(chatId) ^ second.mayProcess(chatId)).as("one owner of chat %d", chatId).isTrue();
+        }
+
+        // The first node can no longer renew; its leases run out and the second node takes them, never
+        // while the first one may still process their chats.
+        firstDatabase.down = true;
+        await(() -> {
+            for (long chatId = 0; chatId < CHATS; chatId++) {
+                assertThat(first.mayProcess(chatId) && second.mayProcess(chatId)).as("two owners of chat %d", chatId).isFalse();
+            }
+            return owned(secondMeters) == PARTITIONS;
+        });
+        assertThat(owned(firstMeters)).as("partitions the first node still processes").isZero();
+        for (long chatId = 0; chatId < CHATS; chatId++) {
+            assertThat(first.mayProcess(chatId)).isFalse();
+            assertThat(second.mayProcess(chatId)).isTrue();
+        }
+
+        second.shutdown();
+        firstDatabase.down = false;
+        first.shutdown();
+    }
+
+    @Test
+    void writesSessionsOfAnExpiredLeaseUnlessTakenOver() throws Exception {
+        SessionConfig sessionConfig = new SessionConfig();
+        // Nothing is written in the background; only losing the lease writes the sessions.
+        sessionConfig.setFlushInterval(Duration.ofHours(1));
+        SimpleMeterRegistry sessionMeters = new SimpleMeterRegistry();
+        SessionStore sessionStore = new SessionStore(userRepository, userEventRepository, transactionTemplate,
+                sessionConfig, sessionMeters);
+        ClusterCoordinator node = coordinator("node-a", jdbcTemplate, sessionStore, new SimpleMeterRegistry());
+        try {
+            long expired = chatIn(0);
+            long takenOver = chatIn(1);
+            for (long chatId : new long[]{expired, takenOver}) {
+                sessionStore.withSession(chatId, () -> userRepository.save(User.newUser(chatId)), session -> session.setUpdateId(7));
+            }
+
+            // Partition 0 ran out while the node stalled; partition 1 ran out and another node took it.
+            jdbcTemplate.update("UPDATE chat_partition_lease SET lease_until = now() - interval '1 second' WHERE partition_id = 0");
+            jdbcTemplate.update("UPDATE chat_partition_lease SET owner_node = 'node-x', owner_url = 'http://node-x:8080', "
+                    + "lease_until = now() + interval '1 minute' WHERE partition_id = 1");
+            await(() -> sessionMeters.get("bot.sessions.cached").gauge().value() == 0);
+
+            assertThat(lastUpdateId(expired)).as("written before dropped").isEqualTo(7);
+            assertThat(lastUpdateId(takenOver)).as("dropped unwritten").isNull();
+        } finally {
+            node.shutdown();
+        }
+    }
+
+    private Integer lastUpdateId(long chatId) {
+        return jdbcTemplate.queryForObject("SELECT last_update_id FROM \"user\" WHERE chat_id = ?", Integer.class, chatId);
+    }
+
+    private static long chatIn(int partition) {
+        long chatId = 1;
+        while (ChatPartitioner.partitionOf(chatId, PARTITIONS) != partition) {
+            chatId++;
+        }
+        return chatId;
+    }
+
+    private ClusterCoordinator coordinator(String nodeId, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        return coordinator(nodeId, jdbcTemplate, new SessionStore(userRepository, userEventRepository,
+                transactionTemplate, new SessionConfig(), new SimpleMeterRegistry()), meterRegistry);
+    }
+
+    private ClusterCoordinator coordinator(String nodeId, JdbcTemplate jdbcTemplate, SessionStore sessionStore,
+                                           MeterRegistry meterRegistry) {
+        ClusterConfig config = new ClusterConfig();
+        config.setEnabled(true);
+        config.setNodeId(nodeId);
+        config.setAdvertisedUrl("http://" + nodeId + ":8080");
+        config.setSecret("secret");
+        config.setPartitions(PARTITIONS);
+        config.setLeaseDuration(Duration.ofSeconds(2));
+        config.setRenewInterval(Duration.ofMillis(200));
+        config.setDrainTimeout(Duration.ofSeconds(1));
+        BotConfig botConfig = new BotConfig();
+        botConfig.setMode(BotMode.WEBHOOK);
+        return new ClusterCoordinator(config, botConfig, jdbcTemplate,
+                new UpdateDispatcher(new DispatcherConfig(), new SimpleMeterRegistry()), sessionStore,
+                new ObjectMapper(), meterRegistry);
+    }
+
+    private static int owned(MeterRegistry meterRegistry) {
+        return (int) meterRegistry.get("bot.cluster.partitions.owned").gauge().value();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("timed out").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * Refuses connections while {@link #down}, as for a node cut off from the database.
+     */
+    static class FlakyDataSource extends DelegatingDataSource {
+
+        volatile boolean down;
+
+        FlakyDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+}
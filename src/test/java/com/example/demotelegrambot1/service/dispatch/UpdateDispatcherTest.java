@@ -0,0 +1,69 @@
+package com.example.demotelegrambot1.service.dispatch;
+
+import com.example.demotelegrambot1.config.DispatcherConfig;
+import com.example.demotelegrambot1.enums.BackpressurePolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that an update evicted from a full lane under {@link BackpressurePolicy#DROP_OLDEST} is still
+ * finished, so the intake watermark can move past it.
+ */
+class UpdateDispatcherTest {
+
+    @Test
+    void finishesEveryUpdateWhetherHandledOrDropped() throws Exception {
+        DispatcherConfig config = new DispatcherConfig();
+        config.setWorkerThreads(1);
+        config.setChatQueueCapacity(2);
+        config.setBackpressurePolicy(BackpressurePolicy.DROP_OLDEST);
+        UpdateDispatcher dispatcher = new UpdateDispatcher(config, new SimpleMeterRegistry());
+
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+        List<Integer> dropped = new CopyOnWriteArrayList<>();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            dispatcher.dispatch(7, () -> {
+                running.countDown();
+                await(release);
+                handled.add(1);
+            }, () -> dropped.add(1));
+            assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // The lane holds two updates while the first is handled; the next two evict the oldest ones.
+            for (int update = 2; update <= 5; update++) {
+                int id = update;
+                assertThat(dispatcher.dispatch(7, () -> handled.add(id), () -> dropped.add(id))).isTrue();
+            }
+            assertThat(dropped).containsExactly(2, 3);
+            release.countDown();
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (!dispatcher.isIdle(chatId -> true) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(handled).containsExactly(1, 4, 5);
+            assertThat(dropped).containsExactly(2, 3);
+            assertThat(dispatcher.queuedUpdates()).isZero();
+        } finally {
+            release.countDown();
+            dispatcher.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demotelegrambot1.service.export;
+
+import com.example.demotelegrambot1.enums.RegistrationState;
+import com.example.demotelegrambot1.harness.H2JpaTest;
+import com.example.demotelegrambot1.harness.TestEvents;
+import com.example.demotelegrambot1.persistence.entity.Event;
+import com.example.demotelegrambot1.persistence.entity.User;
+import com.example.demotelegrambot1.persistence.entity.UserEvent;
+import com.example.demotelegrambot1.persistence.repository.EventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserEventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@H2JpaTest
+@Import({RegistrationExporter.class, RegistrationExporterTest.Json.class})
+class RegistrationExporterTest {
+
+    @Autowired
+    RegistrationExporter exporter;
+
+    @Autowired
+    EventRepository eventRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    UserEventRepository userEventRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    Event event;
+
+    @BeforeEach
+    void setUp() {
+        event = eventRepository.save(TestEvents.hackathon());
+        long chatId = 50_000L + event.getId() * 10;
+        register(chatId, "Rockets, Inc.", RegistrationState.COMPLETED_REGISTRATION, 1, "Ann Smith", "Bob Jones");
+        register(chatId + 1, "Owls", RegistrationState.COMPLETED_REGISTRATION, 2, "Carol White", "Dan Brown", "Eve Black");
+        register(chatId + 2, "Unfinished", RegistrationState.AWAITING_CONTACT_PHONE, 3, "Fay Green", "Gus Grey");
+    }
+
+    private void register(long chatId, String teamName, RegistrationState state, long registeredAt, String... members) {
+        User user = userRepository.save(User.newUser(chatId));
+        UserEvent registration = new UserEvent();
+        registration.setUser(user);
+        registration.setEvent(event);
+        registration.setState(state);
+        registration.setTeamName(teamName);
+        registration.setContactPhone("+37499000000");
+        registration.setRegistrationDate(new Timestamp(registeredAt));
+        registration.setTeamMembers(List.of(members));
+        userEventRepository.save(registration);
+    }
+
+    @Test
+    void csvHasOneRowPerCompletedTeam() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int teams = exporter.export(event.getId(), ExportFormat.CSV, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(teams).isEqualTo(2);
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(1)).startsWith("\"Rockets, Inc.\",Ann Smith; Bob Jones,+37499000000,");
+        assertThat(lines.get(2)).startsWith("Owls,Carol White; Dan Brown; Eve Black,");
+    }
+
+    @Test
+    void csvTurnsFormulasIntoText() throws Exception {
+        register(60_000L + event.getId() * 10, "=1+1", RegistrationState.COMPLETED_REGISTRATION, 4, "@SUM(A1)", "Hal Blue");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(event.getId(), ExportFormat.CSV, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(3)).startsWith("\"'=1+1\",\"'@SUM(A1); Hal Blue\",+37499000000,");
+    }
+
+    @Test
+    void jsonKeepsMembersInOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(event.getId(), ExportFormat.JSON, out);
+
+        JsonNode teams = objectMapper.readTree(out.toByteArray());
+        assertThat(teams).hasSize(2);
+        assertThat(teams.get(1).get("teamName").asText()).isEqualTo("Owls");
+        assertThat(teams.get(1).get("members").toString()).isEqualTo("[\"Carol White\",\"Dan Brown\",\"Eve Black\"]");
+    }
+
+    @TestConfiguration
+    static class Json {
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+}
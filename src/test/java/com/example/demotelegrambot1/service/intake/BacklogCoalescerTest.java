@@ -0,0 +1,51 @@
+package com.example.demotelegrambot1.service.intake;
+
+import com.example.demotelegrambot1.harness.Updates;
+import com.example.demotelegrambot1.service.routing.CallbackAction;
+import com.example.demotelegrambot1.service.routing.CallbackCodec;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link BacklogCoalescer} keeps the last view of every message and every update that is
+ * not navigation, per chat and in order.
+ */
+class BacklogCoalescerTest {
+
+    @Test
+    void keepsTheLatestViewAndEveryRegistrationInput() {
+        Update staleList = Updates.text(1, "/events");
+        Update staleDetails = tap(1, 10, CallbackCodec.encode(CallbackAction.SHOW_EVENT, 3));
+        Update otherChat = tap(2, 10, CallbackCodec.encode(CallbackAction.SHOW_EVENT, 3));
+        Update back = tap(1, 10, "back_to_events");
+        Update list = Updates.text(1, "/events");
+        Update register = tap(1, 20, CallbackCodec.encode(CallbackAction.REGISTER, 3));
+        Update members = Updates.text(1, "Ann Lee\nBob Ray");
+        Update details = tap(1, 20, CallbackCodec.encode(CallbackAction.SHOW_EVENT, 4));
+        Update nextPage = tap(1, 20, CallbackCodec.encode(CallbackAction.EVENTS_AFTER, 4));
+
+        List<Update> superseded = new ArrayList<>();
+        List<Update> kept = BacklogCoalescer.collapse(
+                List.of(staleList, staleDetails, otherChat, back, list, register, members, details, nextPage), superseded);
+
+        // The back tap reads the query of the stale list, so that list stays.
+        assertThat(kept).containsExactly(staleList, otherChat, back, list, register, members, nextPage);
+        assertThat(superseded).containsExactly(staleDetails, details);
+
+        Update first = Updates.text(1, "/events");
+        Update second = Updates.text(1, "/events");
+        assertThat(BacklogCoalescer.collapse(List.of(first, second), new ArrayList<>())).containsExactly(second);
+    }
+
+    private static Update tap(long chatId, int messageId, String data) {
+        Update update = Updates.callback(chatId, data);
+        ((Message) update.getCallbackQuery().getMessage()).setMessageId(messageId);
+        return update;
+    }
+}
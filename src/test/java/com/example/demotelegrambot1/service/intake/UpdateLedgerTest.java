@@ -0,0 +1,42 @@
+package com.example.demotelegrambot1.service.intake;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link UpdateLedger} drops redeliveries and that its watermark stops below the oldest
+ * update still in flight.
+ */
+class UpdateLedgerTest {
+
+    @Test
+    void dropsRedeliveriesAndHoldsTheWatermarkAtTheOldestUnfinishedUpdate() {
+        UpdateLedger ledger = new UpdateLedger(64, 99);
+
+        assertThat(ledger.admit(99)).isFalse();
+        for (long id = 100; id < 110; id++) {
+            assertThat(ledger.admit(id)).isTrue();
+        }
+        assertThat(ledger.admit(105)).isFalse();
+
+        for (long id = 100; id < 110; id++) {
+            if (id != 103) {
+                ledger.complete(id);
+            }
+        }
+        assertThat(ledger.watermark()).isEqualTo(102);
+        ledger.complete(103);
+        assertThat(ledger.watermark()).isEqualTo(109);
+
+        ledger.admit(110);
+        ledger.forget(110);
+        assertThat(ledger.admit(110)).isTrue();
+
+        // A jump past the window forgets everything below it.
+        assertThat(ledger.admit(1_000)).isTrue();
+        assertThat(ledger.admit(900)).isFalse();
+        ledger.complete(1_000);
+        assertThat(ledger.watermark()).isEqualTo(1_000);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demotelegrambot1.service.media;
+
+import com.example.demotelegrambot1.config.PosterConfig;
+import com.example.demotelegrambot1.harness.H2JpaTest;
+import com.example.demotelegrambot1.harness.TestEvents;
+import com.example.demotelegrambot1.persistence.entity.Event;
+import com.example.demotelegrambot1.persistence.repository.EventRepository;
+import com.example.demotelegrambot1.service.catalog.EventSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.PhotoSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link PosterStore} uploads a poster once, reuses its file_id, also after a restart,
+ * and uploads it again once the file is replaced.
+ */
+@H2JpaTest
+class PosterStoreTest {
+
+    @Autowired
+    EventRepository eventRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void uploadsOncePerPosterFile() throws Exception {
+        Path file = Files.write(directory.resolve("hackathon.png"), new byte[]{1, 2, 3});
+        Event newEvent = TestEvents.hackathon();
+        newEvent.setPosterPath("hackathon.png");
+        long eventId = eventRepository.save(newEvent).getId();
+
+        PosterStore store = store();
+        PosterStore.Poster first = store.poster(snapshot(eventId)).orElseThrow();
+        assertThat(first.upload()).isTrue();
+        store.sent(first, photo("small", "large"));
+
+        PosterStore.Poster second = store.poster(snapshot(eventId)).orElseThrow();
+        assertThat(second.upload()).isFalse();
+        assertThat(second.input().getAttachName()).isEqualTo("large");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (snapshot(eventId).posterFileId() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(store().poster(snapshot(eventId)).orElseThrow().input().getAttachName()).isEqualTo("large");
+
+        Files.write(file, new byte[]{4, 5, 6, 7});
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+        assertThat(store.poster(snapshot(eventId)).orElseThrow().upload()).isTrue();
+    }
+
+    private PosterStore store() {
+        PosterConfig config = new PosterConfig();
+        config.setDirectory(directory);
+        return new PosterStore(jdbcTemplate, config, new SimpleMeterRegistry());
+    }
+
+    private EventSnapshot snapshot(long eventId) {
+        return EventSnapshot.from(eventRepository.findById(eventId).orElseThrow());
+    }
+
+    private static Message photo(String... fileIds) {
+        Message message = new Message();
+        message.setPhoto(Arrays.stream(fileIds).map(fileId -> {
+            PhotoSize size = new PhotoSize();
+            size.setFileId(fileId);
+            return size;
+        }).toList());
+        return message;
+    }
+}
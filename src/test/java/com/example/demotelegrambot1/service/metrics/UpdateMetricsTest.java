@@ -0,0 +1,97 @@
+package com.example.demotelegrambot1.service.metrics;
+
+import com.example.demotelegrambot1.harness.InProcessBot;
+import com.example.demotelegrambot1.harness.Replies;
+import com.example.demotelegrambot1.harness.TestEvents;
+import com.example.demotelegrambot1.harness.Updates;
+import com.example.demotelegrambot1.persistence.repository.EventRepository;
+import com.example.demotelegrambot1.service.routing.CallbackAction;
+import com.example.demotelegrambot1.service.routing.CallbackCodec;
+import com.example.demotelegrambot1.service.sender.TelegramTransport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives one registration to completion and leaves another one unfinished, then checks that only the
+ * unfinished one counts as abandoned when the next command clears them.
+ */
+class UpdateMetricsTest {
+
+    static final long FINISHED = 4001L;
+    static final long UNFINISHED = 4002L;
+
+    @Test
+    void countsOnlyUnfinishedRegistrationsAsAbandoned() throws Exception {
+        try (InProcessBot bot = InProcessBot.start(new NoReplyTransport(), InProcessBot.Database.H2, false)) {
+            MeterRegistry meterRegistry = bot.bean(MeterRegistry.class);
+            long eventId = bot.bean(EventRepository.class).save(TestEvents.hackathon()).getId();
+            String register = CallbackCodec.encode(CallbackAction.REGISTER, eventId);
+
+            handle(bot, Updates.text(FINISHED, "/start"));
+            handle(bot, Updates.callback(FINISHED, register));
+            handle(bot, Updates.text(FINISHED, "Ann Smith\nBob Jones"));
+            handle(bot, Updates.text(FINISHED, "Team " + FINISHED));
+            handle(bot, Updates.text(FINISHED, "+37499000000"));
+            handle(bot, Updates.text(FINISHED, "/events"));
+
+            handle(bot, Updates.text(UNFINISHED, "/start"));
+            handle(bot, Updates.callback(UNFINISHED, register));
+            handle(bot, Updates.text(UNFINISHED, "/events"));
+
+            assertThat(counter(meterRegistry, "bot.registration.funnel", "completed_registration")).isEqualTo(1);
+            assertThat(counter(meterRegistry, "bot.registration.abandoned", "completed_registration")).isZero();
+            assertThat(counter(meterRegistry, "bot.registration.abandoned", "awaiting_team_members")).isEqualTo(1);
+        }
+    }
+
+    /**
+     * Hands the update to the bot and waits until its handler returned.
+     */
+    private static void handle(InProcessBot bot, Update update) throws InterruptedException {
+        MeterRegistry meterRegistry = bot.bean(MeterRegistry.class);
+        long handled = handled(meterRegistry);
+        bot.bot().onUpdateReceived(update);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (handled(meterRegistry) == handled) {
+            assertThat(System.currentTimeMillis()).as("timed out handling update %d", update.getUpdateId()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static long handled(MeterRegistry meterRegistry) {
+        return meterRegistry.find("bot.handler.latency").timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private static double counter(MeterRegistry meterRegistry, String name, String state) {
+        return meterRegistry.get(name).tag("state", state).counter().count();
+    }
+
+    static class NoReplyTransport implements TelegramTransport {
+
+        @Override
+        public <T extends Serializable, M extends BotApiMethod<T>> CompletableFuture<T> send(M method) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Message> send(SendDocument document) {
+            return CompletableFuture.completedFuture(Replies.document(document));
+        }
+
+        @Override
+        public CompletableFuture<Message> send(SendPhoto photo) {
+            return CompletableFuture.completedFuture(Replies.photo(photo));
+        }
+    }
+}
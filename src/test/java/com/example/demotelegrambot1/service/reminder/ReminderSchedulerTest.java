@@ -0,0 +1,219 @@
+package com.example.demotelegrambot1.service.reminder;
+
+import com.example.demotelegrambot1.config.CatalogConfig;
+import com.example.demotelegrambot1.config.ReminderConfig;
+import com.example.demotelegrambot1.config.SenderConfig;
+import com.example.demotelegrambot1.enums.RegistrationState;
+import com.example.demotelegrambot1.harness.PostgresJpaTest;
+import com.example.demotelegrambot1.harness.Replies;
+import com.example.demotelegrambot1.harness.TestEvents;
+import com.example.demotelegrambot1.persistence.entity.Event;
+import com.example.demotelegrambot1.persistence.entity.User;
+import com.example.demotelegrambot1.persistence.entity.UserEvent;
+import com.example.demotelegrambot1.persistence.listener.EventChangedEvent;
+import com.example.demotelegrambot1.persistence.repository.EventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserEventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserRepository;
+import com.example.demotelegrambot1.service.catalog.EventCatalog;
+import com.example.demotelegrambot1.service.sender.OutboundMessageSender;
+import com.example.demotelegrambot1.service.sender.TelegramTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import javax.sql.DataSource;
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs a {@link ReminderScheduler} against the database: its first claim fails and is retried, an
+ * event moved to a later start is reminded once at the new time, and a second scheduler started after
+ * the first stopped sends the reminder that fell due in between but none that was already sent.
+ */
+@PostgresJpaTest
+class ReminderSchedulerTest {
+
+    static final Duration LEAD_TIME = Duration.ofHours(1);
+    static final long SOON_FIRST = 3001L;
+    static final long SOON_SECOND = 3002L;
+    static final long SOON_UNFINISHED = 3003L;
+    static final long MOVED = 3004L;
+    static final long LATER = 3005L;
+
+    @Autowired
+    EventRepository eventRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    UserEventRepository userEventRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void remindsEveryCompletedRegistrationOnceAcrossRetryRescheduleAndRestart() throws Exception {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Event soon = event(now.plus(LEAD_TIME).plusMillis(300));
+        register(soon, SOON_FIRST, RegistrationState.COMPLETED_REGISTRATION);
+        register(soon, SOON_SECOND, RegistrationState.COMPLETED_REGISTRATION);
+        register(soon, SOON_UNFINISHED, RegistrationState.AWAITING_TEAM_NAME);
+        Event moved = event(now.plus(LEAD_TIME).plusMillis(1_000));
+        register(moved, MOVED, RegistrationState.COMPLETED_REGISTRATION);
+        Event later = event(now.plus(LEAD_TIME).plusSeconds(1_800));
+        register(later, LATER, RegistrationState.COMPLETED_REGISTRATION);
+
+        // The first claim fails as on a dropped connection; its reminders must still go out.
+        AtomicBoolean failNextClaim = new AtomicBoolean(true);
+        JdbcTemplate claims = new JdbcTemplate(dataSource) {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                           ParameterizedPreparedStatementSetter<T> setter) {
+                if (failNextClaim.getAndSet(false)) {
+                    throw new TransientDataAccessResourceException("connection reset");
+                }
+                return super.batchUpdate(sql, batchArgs, batchSize, setter);
+            }
+        };
+        RecordingTransport firstTransport = new RecordingTransport();
+        OutboundMessageSender firstSender = sender(firstTransport);
+        SimpleMeterRegistry firstMeters = new SimpleMeterRegistry();
+        ReminderScheduler first = scheduler(claims, firstSender, firstMeters);
+        first.start();
+        await(() -> firstMeters.get("bot.reminders.pending").gauge().value() == 4);
+
+        // Postponed by a second after it was loaded: only the new start is reminded.
+        Instant movedStart = now.plus(LEAD_TIME).plusMillis(2_000);
+        jdbcTemplate.update("UPDATE event SET starts_at = ? WHERE id = ?", Timestamp.from(movedStart), moved.getId());
+        first.onEventChanged(new EventChangedEvent(moved.getId()));
+
+        await(() -> firstTransport.sentTo(SOON_FIRST) == 1 && firstTransport.sentTo(SOON_SECOND) == 1);
+        assertThat(failNextClaim).as("claim failed once").isFalse();
+        sleepUntil(movedStart.minus(LEAD_TIME).minusMillis(300));
+        assertThat(firstTransport.sentTo(MOVED)).as("reminders before the new start").isZero();
+        await(() -> firstTransport.sentTo(MOVED) == 1);
+        first.shutdown();
+        firstSender.shutdown();
+
+        // Falls due while no scheduler runs; the next one to start sends it late.
+        jdbcTemplate.update("UPDATE event SET starts_at = ? WHERE id = ?",
+                Timestamp.from(Instant.now().plus(LEAD_TIME).minusSeconds(60)), later.getId());
+        RecordingTransport secondTransport = new RecordingTransport();
+        OutboundMessageSender secondSender = sender(secondTransport);
+        ReminderScheduler second = scheduler(jdbcTemplate, secondSender, new SimpleMeterRegistry());
+        second.start();
+        await(() -> secondTransport.sentTo(LATER) == 1);
+        Thread.sleep(200);
+        second.shutdown();
+        secondSender.shutdown();
+
+        assertThat(firstTransport.sentTo(SOON_UNFINISHED) + secondTransport.sentTo(SOON_UNFINISHED)).isZero();
+        assertThat(firstTransport.sent).as("first scheduler").hasSize(3);
+        assertThat(secondTransport.sent).as("second scheduler").hasSize(1);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT user_id FROM user_event WHERE reminder_sent_at IS NOT NULL ORDER BY user_id", Long.class))
+                .containsExactly(SOON_FIRST, SOON_SECOND, MOVED, LATER);
+    }
+
+    private Event event(Instant startsAt) {
+        Event event = TestEvents.hackathon();
+        event.setStartsAt(startsAt);
+        return eventRepository.save(event);
+    }
+
+    private void register(Event event, long chatId, RegistrationState state) {
+        User user = userRepository.save(User.newUser(chatId));
+        UserEvent registration = new UserEvent();
+        registration.setUser(user);
+        registration.setEvent(event);
+        registration.setState(state);
+        userEventRepository.save(registration);
+    }
+
+    private ReminderScheduler scheduler(JdbcTemplate jdbcTemplate, OutboundMessageSender sender, SimpleMeterRegistry meters) {
+        ReminderConfig config = new ReminderConfig();
+        config.setLeadTime(LEAD_TIME);
+        config.setTick(Duration.ofMillis(10));
+        config.setLoadHorizon(Duration.ofHours(1));
+        // Loads once at start; the test drives every reload.
+        config.setLoadInterval(Duration.ofHours(1));
+        config.setRatePerSecond(1_000);
+        EventCatalog catalog = new EventCatalog(eventRepository, new CatalogConfig(), new SimpleMeterRegistry());
+        return new ReminderScheduler(jdbcTemplate, catalog, sender, config, meters);
+    }
+
+    private static OutboundMessageSender sender(TelegramTransport transport) {
+        SenderConfig config = new SenderConfig();
+        config.setGlobalRatePerSecond(1_000);
+        config.setGlobalBurst(1_000);
+        config.setMergeTexts(false);
+        config.setShutdownTimeoutMillis(0);
+        return new OutboundMessageSender(transport, config, new SimpleMeterRegistry());
+    }
+
+    private static void sleepUntil(Instant instant) throws InterruptedException {
+        long millis = Duration.between(Instant.now(), instant).toMillis();
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("timed out").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    static class RecordingTransport implements TelegramTransport {
+
+        final List<SendMessage> sent = new CopyOnWriteArrayList<>();
+
+        int sentTo(long chatId) {
+            return (int) sent.stream()
+                    .filter(message -> message.getChatId().equals(String.valueOf(chatId)))
+                    .count();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends Serializable, M extends BotApiMethod<T>> CompletableFuture<T> send(M method) {
+            sent.add((SendMessage) method);
+            return CompletableFuture.completedFuture((T) new Message());
+        }
+
+        @Override
+        public CompletableFuture<Message> send(SendDocument document) {
+            return CompletableFuture.completedFuture(Replies.document(document));
+        }
+
+        @Override
+        public CompletableFuture<Message> send(SendPhoto photo) {
+            return CompletableFuture.completedFuture(Replies.photo(photo));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demotelegrambot1.service.reminder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that timers on every level of {@link TimingWheel} fire on the first advance that reaches
+ * their deadline, and each exactly once.
+ */
+class TimingWheelTest {
+
+    @Test
+    void firesEveryTimerOnceWhenItsDeadlineIsReached() {
+        long start = 1_000_003;
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 8, start);
+        Random random = new Random(42);
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            // Spans the first three levels (80, 640 and 5120 time units) and a few past deadlines.
+            long deadline = start - 50 + random.nextInt(6_000);
+            wheel.schedule(deadline, deadline);
+        }
+        assertThat(wheel.pending()).isEqualTo(count);
+
+        List<Long> fired = new ArrayList<>();
+        long previous = Long.MIN_VALUE;
+        for (long now = start; now < start + 6_000 + 25; now += 1 + random.nextInt(25)) {
+            long from = previous;
+            long until = now;
+            wheel.advance(now, deadline -> {
+                assertThat(deadline).isGreaterThan(from).isLessThanOrEqualTo(until);
+                fired.add(deadline);
+            });
+            previous = now;
+        }
+
+        assertThat(fired).hasSize(count);
+        assertThat(wheel.pending()).isZero();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demotelegrambot1.service.routing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks how {@link ChatCommand} splits the words after a command, including a command followed only
+ * by whitespace.
+ */
+class ChatCommandTest {
+
+    @Test
+    void splitsArguments() {
+        assertThat(ChatCommand.arguments("/stats")).isEmpty();
+        assertThat(ChatCommand.arguments("/stats ")).isEmpty();
+        assertThat(ChatCommand.arguments("/stats \n ")).isEmpty();
+        assertThat(ChatCommand.arguments("/stats  12 ")).containsExactly("12");
+        assertThat(ChatCommand.arguments("/broadcast 12 Doors open\nat 10", 2))
+                .containsExactly("12", "Doors open\nat 10");
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.demotelegrambot1.service.session;
+
+import com.example.demotelegrambot1.config.SessionConfig;
+import com.example.demotelegrambot1.enums.RegistrationState;
+import com.example.demotelegrambot1.harness.H2JpaTest;
+import com.example.demotelegrambot1.harness.TestEvents;
+import com.example.demotelegrambot1.persistence.entity.Event;
+import com.example.demotelegrambot1.persistence.entity.User;
+import com.example.demotelegrambot1.persistence.entity.UserEvent;
+import com.example.demotelegrambot1.persistence.repository.EventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserEventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL statements one complete registration costs with per-step saves and with the
+ * write-behind of {@link SessionStore}, both when each step is flushed on its own, as when the user
+ * takes longer than the flush interval to answer, and when all steps land in one flush.
+ */
+@H2JpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RegistrationStatementCountTest {
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    EventRepository eventRepository;
+
+    @Autowired
+    UserEventRepository userEventRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    Event event;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        event = eventRepository.save(TestEvents.hackathon());
+    }
+
+    @Test
+    void countsStatementsPerRegistration() {
+        // Allocates the registration ID pool, so no count below includes a sequence call.
+        registerWithPerStepSaves(0L);
+
+        // Every save of the detached user or registration first selects it, and the registration's
+        // members, to merge the changes.
+        assertThat(countStatements(() -> registerWithPerStepSaves(1L))).as("per-step saves").isEqualTo(20);
+        // Lookup and insert of the user, then 4 statements for the new registration and 3 to 4 for
+        // each later step: selects to merge the registration and its members, its update and, once,
+        // the member batch. The user is not written again.
+        assertThat(countStatements(() -> registerThroughSessionStore(2L, true))).as("flush per step").isEqualTo(16);
+        // Lookup and insert of the user, two selects to attach it to the flush, then the
+        // registration insert, the user's link to it and the member batch.
+        assertThat(countStatements(() -> registerThroughSessionStore(3L, false))).as("one flush").isEqualTo(7);
+    }
+
+    private void registerWithPerStepSaves(long chatId) {
+        User user = userRepository.save(User.newUser(chatId));
+
+        UserEvent registration = new UserEvent();
+        registration.setUser(user);
+        registration.setEvent(event);
+        registration.setState(RegistrationState.AWAITING_TEAM_MEMBERS);
+        userEventRepository.save(registration);
+        user.setActiveRegistration(registration);
+        userRepository.save(user);
+
+        registration.setTeamMembers(List.of("Ann Smith", "Bob Jones"));
+        registration.setState(RegistrationState.AWAITING_TEAM_NAME);
+        userEventRepository.save(registration);
+        userRepository.save(user);
+
+        registration.setTeamName("Team");
+        registration.setState(RegistrationState.AWAITING_CONTACT_PHONE);
+        userEventRepository.save(registration);
+        userRepository.save(user);
+
+        registration.setContactPhone("+37499123456");
+        registration.setState(RegistrationState.COMPLETED_REGISTRATION);
+        userEventRepository.save(registration);
+        userRepository.save(user);
+    }
+
+    private void registerThroughSessionStore(long chatId, boolean flushEachStep) {
+        SessionConfig config = new SessionConfig();
+        config.setFlushInterval(Duration.ofHours(1));
+        SessionStore sessionStore = new SessionStore(userRepository, userEventRepository, transactionTemplate,
+                config, new SimpleMeterRegistry());
+
+        sessionStore.withSession(chatId, () -> userRepository.save(User.newUser(chatId)), session -> {
+            UserEvent registration = new UserEvent();
+            registration.setUser(session.getUser());
+            registration.setEvent(event);
+            registration.setState(RegistrationState.AWAITING_TEAM_MEMBERS);
+            session.markRegistrationDirty(registration);
+            session.getUser().setActiveRegistration(registration);
+            session.markUserDirty();
+        });
+        flushIf(sessionStore, flushEachStep);
+        sessionStore.withSession(chatId, null, session -> {
+            session.getActiveRegistration().setTeamMembers(List.of("Ann Smith", "Bob Jones"));
+            session.getActiveRegistration().setState(RegistrationState.AWAITING_TEAM_NAME);
+            session.markRegistrationDirty(session.getActiveRegistration());
+        });
+        flushIf(sessionStore, flushEachStep);
+        sessionStore.withSession(chatId, null, session -> {
+            session.getActiveRegistration().setTeamName("Team");
+            session.getActiveRegistration().setState(RegistrationState.AWAITING_CONTACT_PHONE);
+            session.markRegistrationDirty(session.getActiveRegistration());
+        });
+        flushIf(sessionStore, flushEachStep);
+        sessionStore.withSession(chatId, null, session -> {
+            session.getActiveRegistration().setContactPhone("+37499123456");
+            session.getActiveRegistration().setState(RegistrationState.COMPLETED_REGISTRATION);
+            session.markRegistrationDirty(session.getActiveRegistration());
+        });
+        sessionStore.flushAll();
+        sessionStore.shutdown();
+    }
+
+    private static void flushIf(SessionStore sessionStore, boolean flush) {
+        if (flush) {
+            sessionStore.flushAll();
+        }
+    }
+
+    private long countStatements(Runnable registration) {
+        statistics.clear();
+        registration.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
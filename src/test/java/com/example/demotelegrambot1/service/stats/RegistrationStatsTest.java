@@ -0,0 +1,134 @@
+package com.example.demotelegrambot1.service.stats;
+
+import com.example.demotelegrambot1.config.SessionConfig;
+import com.example.demotelegrambot1.config.StatsConfig;
+import com.example.demotelegrambot1.enums.RegistrationState;
+import com.example.demotelegrambot1.harness.PostgresJpaTest;
+import com.example.demotelegrambot1.harness.TestEvents;
+import com.example.demotelegrambot1.persistence.entity.Event;
+import com.example.demotelegrambot1.persistence.entity.User;
+import com.example.demotelegrambot1.persistence.entity.UserEvent;
+import com.example.demotelegrambot1.persistence.repository.EventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserEventRepository;
+import com.example.demotelegrambot1.persistence.repository.UserRepository;
+import com.example.demotelegrambot1.service.session.SessionStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Moves a registration through every state and checks that {@link RegistrationStats} agrees with a
+ * {@code GROUP BY} over {@code user_event} in memory, in {@code registration_stats} once persisted, on
+ * a second node that syncs from the table, and after a rebuild catches up with changes made in SQL.
+ */
+@PostgresJpaTest
+class RegistrationStatsTest {
+
+    private static final RegistrationState[] STATES = RegistrationState.values();
+
+    @Autowired
+    EventRepository eventRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    UserEventRepository userEventRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void countsMatchUserEventThroughPersistSyncAndRebuild() throws Exception {
+        Event event = eventRepository.save(TestEvents.hackathon());
+        long eventId = event.getId();
+        register(event, 2001L, RegistrationState.COMPLETED_REGISTRATION);
+        register(event, 2002L, RegistrationState.AWAITING_TEAM_NAME);
+
+        // The table is empty, so the first node recounts it from user_event.
+        RegistrationStats first = stats();
+        first.start();
+        await(() -> first.counts(eventId), eventId);
+
+        UserEvent registration = register(event, 2003L, RegistrationState.START);
+        first.registrationMoved(eventId, null, RegistrationState.START);
+        assertThat(first.counts(eventId)).isEqualTo(grouped(eventId));
+        for (int state = 1; state < STATES.length; state++) {
+            registration.setState(STATES[state]);
+            userEventRepository.save(registration);
+            first.registrationMoved(eventId, STATES[state - 1], STATES[state]);
+            assertThat(first.counts(eventId)).as("counts after moving to %s", STATES[state]).isEqualTo(grouped(eventId));
+        }
+
+        first.shutdown();
+        assertThat(table(eventId)).as("persisted counts").isEqualTo(grouped(eventId));
+
+        // The table is filled now, so a second node takes its counts from there.
+        RegistrationStats second = stats();
+        second.start();
+        await(() -> second.counts(eventId), eventId);
+
+        jdbcTemplate.update("UPDATE user_event SET registration_state = ? WHERE user_id = ?",
+                RegistrationState.COMPLETED_REGISTRATION.ordinal(), 2002L);
+        second.requestRebuild();
+        await(() -> second.counts(eventId), eventId);
+        assertThat(table(eventId)).as("rebuilt counts").isEqualTo(grouped(eventId));
+        second.shutdown();
+    }
+
+    private UserEvent register(Event event, long chatId, RegistrationState state) {
+        User user = userRepository.save(User.newUser(chatId));
+        UserEvent registration = new UserEvent();
+        registration.setUser(user);
+        registration.setEvent(event);
+        registration.setState(state);
+        return userEventRepository.save(registration);
+    }
+
+    private RegistrationStats stats() {
+        SessionStore sessionStore = new SessionStore(userRepository, userEventRepository, transactionTemplate,
+                new SessionConfig(), new SimpleMeterRegistry());
+        StatsConfig config = new StatsConfig();
+        // Nothing runs on a schedule; the test drives every step.
+        config.setPersistInterval(Duration.ofHours(1));
+        config.setRebuildInterval(Duration.ZERO);
+        return new RegistrationStats(jdbcTemplate, transactionTemplate, sessionStore, config, new SimpleMeterRegistry());
+    }
+
+    private long[] grouped(long eventId) {
+        long[] counts = new long[STATES.length];
+        jdbcTemplate.query("SELECT registration_state, count(*) FROM user_event WHERE event_id = ? GROUP BY registration_state",
+                rs -> {
+                    counts[rs.getInt(1)] = rs.getLong(2);
+                }, eventId);
+        return counts;
+    }
+
+    private long[] table(long eventId) {
+        long[] counts = new long[STATES.length];
+        jdbcTemplate.query("SELECT registration_state, registrations FROM registration_stats WHERE event_id = ?",
+                rs -> {
+                    counts[rs.getInt(1)] = rs.getLong(2);
+                }, eventId);
+        return counts;
+    }
+
+    private void await(Supplier<long[]> counts, long eventId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!Arrays.equals(counts.get(), grouped(eventId)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(counts.get()).isEqualTo(grouped(eventId));
+    }
+}